@@ -1,3 +1,7 @@
 create table lancamento (id bigint not null auto_increment, ano integer, data_cadastro datetime(6), descricao varchar(255), mes integer, status default 'PENDENTE', tipo varchar(255), valor decimal(19,2), id_usuario bigint, primary key (id)) engine=InnoDB;
 create table usuario (id bigint not null auto_increment, email varchar(255), nome varchar(255), senha varchar(255), primary key (id)) engine=InnoDB;
 alter table lancamento add constraint FKt2a5b4jc8powehfmsyeufarkr foreign key (id_usuario) references usuario (id);
+create table saldo (id_usuario bigint not null, receitas_efetivadas decimal(19,2), receitas_pendentes decimal(19,2), receitas_canceladas decimal(19,2), despesas_efetivadas decimal(19,2), despesas_pendentes decimal(19,2), despesas_canceladas decimal(19,2), primary key (id_usuario)) engine=InnoDB;
+create table lancamento_termo (id_usuario bigint not null, termo varchar(60) not null, id_lancamento bigint not null, primary key (id_usuario, termo, id_lancamento)) engine=InnoDB;
+create table lancamento_seq (next_val bigint) engine=InnoDB;
+insert into lancamento_seq values ( 1 );
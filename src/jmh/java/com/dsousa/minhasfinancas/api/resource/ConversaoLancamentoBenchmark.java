@@ -0,0 +1,76 @@
+package com.dsousa.minhasfinancas.api.resource;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Conversões do {@link LancamentoResource} nos dois sentidos. Fica no
+ * pacote do resource porque os conversores são package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConversaoLancamentoBenchmark {
+
+	private LancamentoResource resource;
+	
+	private Lancamento lancamento;
+	
+	private LancamentoDTO dto;
+	
+	@Setup
+	public void preparar() {
+		// só obterReferencia é usado na conversão, e sem ir ao banco
+		UsuarioService usuarioService = (UsuarioService) Proxy.newProxyInstance(
+				UsuarioService.class.getClassLoader(),
+				new Class<?>[] { UsuarioService.class },
+				(proxy, metodo, argumentos) -> Usuario.builder().id((Long) argumentos[0]).build());
+		resource = new LancamentoResource(null, usuarioService, new ObjectMapper(), null);
+		
+		lancamento = Lancamento.builder()
+				.id(1L)
+				.descricao("Aluguel")
+				.mes(1)
+				.ano(2020)
+				.valor(BigDecimal.TEN)
+				.usuario(Usuario.builder().id(1L).build())
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.PENDENTE)
+				.build();
+		dto = resource.converter(lancamento);
+	}
+	
+	@Benchmark
+	public LancamentoDTO converterParaDTO() {
+		return resource.converter(lancamento);
+	}
+	
+	@Benchmark
+	public Lancamento converterParaEntidade() {
+		return resource.converter(dto);
+	}
+	
+}
@@ -0,0 +1,122 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.LancamentosColunasDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Serialização de uma listagem nos formatos da API: entidades com o usuário
+ * embutido (formato antigo), DTOs em JSON, CBOR e Smile, e o formato
+ * colunar em JSON e CBOR. O tamanho dos payloads é verificado no
+ * LancamentosColunasDTOTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatoRespostaBenchmark {
+
+	@Param({ "100", "10000" })
+	private int volume;
+	
+	private ObjectMapper json;
+	
+	private ObjectMapper cbor;
+	
+	private ObjectMapper smile;
+	
+	private List<Lancamento> entidades;
+	
+	private List<LancamentoDTO> dtos;
+	
+	@Setup
+	public void preparar() {
+		json = new ObjectMapper();
+		cbor = new ObjectMapper(new CBORFactory());
+		smile = new ObjectMapper(new SmileFactory());
+		
+		Usuario usuario = Usuario.builder().id(1L).nome("Usuário").email("usuario@email.com").build();
+		entidades = new ArrayList<>(volume);
+		dtos = new ArrayList<>(volume);
+		for(int i = 0; i < volume; i++) {
+			Lancamento lancamento = Lancamento.builder()
+					.id((long) i)
+					.descricao("Lançamento " + i)
+					.mes(i % 12 + 1)
+					.ano(2020)
+					.valor(BigDecimal.valueOf(i, 2))
+					.usuario(usuario)
+					.tipo(i % 3 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.status(StatusLancamento.values()[i % StatusLancamento.values().length])
+					.build();
+			entidades.add(lancamento);
+			dtos.add(LancamentoDTO.builder()
+					.id(lancamento.getId())
+					.descricao(lancamento.getDescricao())
+					.mes(lancamento.getMes())
+					.ano(lancamento.getAno())
+					.valor(lancamento.getValor())
+					.idUsuario(usuario.getId())
+					.tipo(lancamento.getTipo().name())
+					.status(lancamento.getStatus().name())
+					.build());
+		}
+	}
+	
+	@Benchmark
+	public byte[] entidadesJson() throws JsonProcessingException {
+		return json.writeValueAsBytes(entidades);
+	}
+	
+	@Benchmark
+	public byte[] dtosJson() throws JsonProcessingException {
+		return json.writeValueAsBytes(dtos);
+	}
+	
+	@Benchmark
+	public byte[] dtosCbor() throws JsonProcessingException {
+		return cbor.writeValueAsBytes(dtos);
+	}
+	
+	@Benchmark
+	public byte[] dtosSmile() throws JsonProcessingException {
+		return smile.writeValueAsBytes(dtos);
+	}
+	
+	@Benchmark
+	public byte[] colunasJson() throws JsonProcessingException {
+		return json.writeValueAsBytes(new LancamentosColunasDTO(1L, dtos));
+	}
+	
+	@Benchmark
+	public byte[] colunasCbor() throws JsonProcessingException {
+		return cbor.writeValueAsBytes(new LancamentosColunasDTO(1L, dtos));
+	}
+	
+}
@@ -0,0 +1,58 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.service.JwtService;
+import com.dsousa.minhasfinancas.service.impl.JwtServiceImpl;
+
+/**
+ * Tokens verificados por segundo em uma única thread, ou seja, por núcleo.
+ * A geração fica ao lado para comparação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtServiceBenchmark {
+
+	private JwtService service;
+	
+	private Usuario usuario;
+	
+	private String token;
+	
+	@Setup
+	public void preparar() {
+		service = new JwtServiceImpl(30, Base64.getEncoder().encodeToString(new byte[64]));
+		usuario = Usuario.builder().id(1L).nome("usuario").email("usuario@gmail.com").build();
+		token = service.gerarToken(usuario);
+	}
+	
+	@Benchmark
+	public Long verificarToken() {
+		return service.obterIdUsuario(token);
+	}
+	
+	@Benchmark
+	public String gerarToken() {
+		return service.gerarToken(usuario);
+	}
+	
+}
@@ -0,0 +1,131 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.dsousa.minhasfinancas.MinhasfinancasApplication;
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.SaldoService;
+
+/**
+ * Consultas de lançamentos contra o H2 em memória (perfil test), com um
+ * usuário dono de {@code volume} lançamentos espalhados por 10 anos.
+ * Cada volume roda em uma JVM própria, com banco novo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LancamentoPersistenciaBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	private int volume;
+	
+	private ConfigurableApplicationContext contexto;
+	
+	private LancamentoService service;
+	
+	private LancamentoRepository repository;
+	
+	private Long idUsuario;
+	
+	private Lancamento filtroMes;
+	
+	@Setup(Level.Trial)
+	public void preparar() {
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				// argumentos, e não properties(), para sobrepor o application-test.properties
+				.run(
+						// sem isso o H2 devolve o último resultado de uma consulta repetida sobre tabela inalterada
+						"--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE;"
+								+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"--spring.main.banner-mode=off",
+						"--spring.devtools.restart.enabled=false",
+						"--logging.level.root=WARN");
+		service = contexto.getBean(LancamentoService.class);
+		repository = contexto.getBean(LancamentoRepository.class);
+		
+		idUsuario = popular(contexto.getBean(JdbcTemplate.class), volume);
+		contexto.getBean(SaldoService.class).reconstruir(idUsuario);
+		
+		filtroMes = Lancamento.builder()
+				.usuario(Usuario.builder().id(idUsuario).build())
+				.ano(2020)
+				.mes(6)
+				.build();
+	}
+	
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+	
+	/** Um mês de um usuário via Example, como a listagem fazia antes da paginação. */
+	@Benchmark
+	public List<Lancamento> buscarPorExample() {
+		return service.buscar(filtroMes);
+	}
+	
+	@Benchmark
+	public PaginaDTO<LancamentoDTO> buscarPrimeiraPagina() {
+		return service.buscar(filtroMes, null, null);
+	}
+	
+	/** Leitura do saldo mantido a cada gravação. */
+	@Benchmark
+	public BigDecimal obterSaldoPorUsuario() {
+		return service.obterSaldoPorUsuario(idUsuario);
+	}
+	
+	/** Agregação sobre todos os lançamentos do usuário, usada na reconstrução do saldo. */
+	@Benchmark
+	public SaldoDTO obterSaldoAgregado() {
+		return repository.obterSaldoPorUsuario(idUsuario);
+	}
+	
+	// gerado no próprio H2 para que 1M de linhas não passem pelo JDBC
+	private static Long popular(JdbcTemplate jdbc, int volume) {
+		jdbc.update("insert into financas.usuario (nome, email, senha) values ('benchmark', 'benchmark@email.com', 'senha')");
+		Long idUsuario = jdbc.queryForObject("select max(id) from financas.usuario", Long.class);
+		
+		jdbc.update("insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro) "
+				+ "select x, concat('Lançamento ', x), mod(x, 12) + 1, 2015 + mod(x / 12, 10), "
+				+ "(mod(x * 37, 100000) + 1) / 100.0, "
+				+ "case when mod(x, 3) = 0 then 'RECEITA' else 'DESPESA' end, "
+				+ "case mod(x, 4) when 0 then 'PENDENTE' when 1 then 'CANCELADO' else 'EFETIVADO' end, "
+				+ "?, current_date "
+				+ "from system_range(1, ?)", idUsuario, volume);
+		
+		return idUsuario;
+	}
+	
+}
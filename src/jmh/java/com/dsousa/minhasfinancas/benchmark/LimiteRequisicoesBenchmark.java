@@ -0,0 +1,50 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dsousa.minhasfinancas.config.LimiteRequisicoes;
+
+/**
+ * Custo da checagem do balde por requisição, com várias threads: todas no
+ * mesmo usuário (disputa no mesmo compareAndSet) e espalhadas por 10 mil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LimiteRequisicoesBenchmark {
+
+	private LimiteRequisicoes<Object> limite;
+	
+	@Setup
+	public void preparar() {
+		limite = new LimiteRequisicoes<>(100, 50, System::nanoTime);
+	}
+	
+	@Benchmark
+	public long mesmoUsuario() {
+		return limite.consumir(1L);
+	}
+	
+	@Benchmark
+	public long usuariosDiferentes() {
+		return limite.consumir(Long.valueOf(ThreadLocalRandom.current().nextInt(10_000)));
+	}
+	
+}
@@ -0,0 +1,162 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.dsousa.minhasfinancas.MinhasfinancasApplication;
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.service.SaldoService;
+import com.dsousa.minhasfinancas.service.razao.RazaoMemoria;
+import com.dsousa.minhasfinancas.service.razao.RazaoUsuario;
+
+/**
+ * Listagem filtrada e totais por tipo e status de um usuário com
+ * {@code volume} lançamentos: consulta JPA no H2 em memória contra as
+ * colunas do RazaoMemoria (com a conferência de versão no banco) e contra
+ * o RazaoUsuario sozinho. As descrições se repetem em 50 textos, como
+ * lançamentos recorrentes, e o filtro de descrição atende 11 deles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RazaoMemoriaBenchmark {
+
+	static final int TAMANHO_PAGINA = 101;
+	
+	@Param({ "1000", "100000", "1000000" })
+	private int volume;
+	
+	private ConfigurableApplicationContext contexto;
+	
+	private LancamentoRepository repository;
+	
+	private RazaoMemoria razaoMemoria;
+	
+	private RazaoUsuario razao;
+	
+	private Long idUsuario;
+	
+	private Lancamento filtroUsuario;
+	
+	private Lancamento filtroDescricao;
+	
+	private final long[] totais = new long[6];
+	
+	@Setup(Level.Trial)
+	public void preparar() {
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE;"
+								+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"--financas.razao.habilitado=true",
+						"--financas.razao.memoria-mb=512",
+						"--spring.main.banner-mode=off",
+						"--spring.devtools.restart.enabled=false",
+						"--logging.level.root=WARN");
+		repository = contexto.getBean(LancamentoRepository.class);
+		razaoMemoria = contexto.getBean(RazaoMemoria.class);
+		
+		idUsuario = popular(contexto.getBean(JdbcTemplate.class), volume);
+		contexto.getBean(SaldoService.class).reconstruir(idUsuario);
+		
+		Usuario usuario = Usuario.builder().id(idUsuario).build();
+		filtroUsuario = Lancamento.builder().usuario(usuario).build();
+		filtroDescricao = Lancamento.builder().usuario(usuario).descricao("ento 7").build();
+		
+		TransactionTemplate transacao = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+		razao = transacao.execute(status -> {
+			// carrega o cache do RazaoMemoria e monta uma cópia avulsa para medir só o laço
+			razaoMemoria.buscarPagina(filtroUsuario, null, 1);
+			RazaoUsuario colunas = new RazaoUsuario(idUsuario, 0);
+			repository.percorrerPorUsuario(idUsuario, 1000, colunas::acrescentar);
+			return colunas;
+		});
+	}
+	
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+	
+	@Benchmark
+	public List<LancamentoDTO> buscarPaginaJpa() {
+		return repository.buscarPagina(filtroDescricao, null, TAMANHO_PAGINA);
+	}
+	
+	@Benchmark
+	public List<LancamentoDTO> buscarPaginaRazaoMemoria() {
+		return razaoMemoria.buscarPagina(filtroDescricao, null, TAMANHO_PAGINA);
+	}
+	
+	@Benchmark
+	public List<LancamentoDTO> buscarPaginaColunas() {
+		return razao.buscar(filtroDescricao, null, TAMANHO_PAGINA);
+	}
+	
+	@Benchmark
+	public SaldoDTO somarJpa() {
+		return repository.obterSaldoPorUsuario(idUsuario);
+	}
+	
+	@Benchmark
+	public SaldoDTO somarRazaoMemoria() {
+		Arrays.fill(totais, 0);
+		razaoMemoria.somar(filtroUsuario, totais);
+		return RazaoUsuario.saldo(totais);
+	}
+	
+	/** Só o laço sobre as colunas, sem criar objetos. */
+	@Benchmark
+	public long[] somarColunas() {
+		Arrays.fill(totais, 0);
+		razao.somar(filtroUsuario, totais);
+		return totais;
+	}
+	
+	// como no LancamentoPersistenciaBenchmark, mas com 50 descrições distintas
+	private static Long popular(JdbcTemplate jdbc, int volume) {
+		jdbc.update("insert into financas.usuario (nome, email, senha) values ('benchmark', 'benchmark@email.com', 'senha')");
+		Long idUsuario = jdbc.queryForObject("select max(id) from financas.usuario", Long.class);
+		
+		jdbc.update("insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro) "
+				+ "select x, concat('Lançamento ', mod(x, 50)), mod(x, 12) + 1, 2015 + mod(x / 12, 10), "
+				+ "(mod(x * 37, 100000) + 1) / 100.0, "
+				+ "case when mod(x, 3) = 0 then 'RECEITA' else 'DESPESA' end, "
+				+ "case mod(x, 4) when 0 then 'PENDENTE' when 1 then 'CANCELADO' else 'EFETIVADO' end, "
+				+ "?, current_date "
+				+ "from system_range(1, ?)", idUsuario, volume);
+		
+		return idUsuario;
+	}
+	
+}
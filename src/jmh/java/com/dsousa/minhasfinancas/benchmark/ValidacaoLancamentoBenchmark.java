@@ -0,0 +1,75 @@
+package com.dsousa.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/**
+ * Custo da validação de um lançamento, válido e inválido (o inválido inclui
+ * a criação da exceção).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidacaoLancamentoBenchmark {
+
+	private LancamentoServiceImpl service;
+	
+	private Lancamento valido;
+	
+	private Lancamento invalido;
+	
+	@Setup
+	public void preparar() {
+		// a validação não usa as dependências
+		service = new LancamentoServiceImpl(null, null, null, null, null, null, null);
+		valido = Lancamento.builder()
+				.descricao("Aluguel")
+				.mes(1)
+				.ano(2020)
+				.valor(BigDecimal.TEN)
+				.usuario(Usuario.builder().id(1L).build())
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.PENDENTE)
+				.build();
+		invalido = valido.copiar();
+		invalido.setValor(BigDecimal.ZERO);
+	}
+	
+	@Benchmark
+	public Lancamento validarLancamentoValido() {
+		service.validarLancamento(valido);
+		return valido;
+	}
+	
+	@Benchmark
+	public String validarLancamentoInvalido() {
+		try {
+			service.validarLancamento(invalido);
+			return null;
+		} catch (RegraNegocioException e) {
+			return e.getMessage();
+		}
+	}
+	
+}
@@ -0,0 +1,30 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Mensagem do fluxo de eventos do usuário: os lançamentos alterados por uma
+ * escrita e o saldo depois dela. A primeira mensagem de cada conexão traz só
+ * o saldo atual. {@code versao} é a mesma do ETag do saldo.
+ */
+@Getter
+@AllArgsConstructor
+public class AlteracoesUsuarioDTO {
+
+	@Getter
+	@AllArgsConstructor
+	public static class LancamentoAlteradoDTO {
+		
+		private final Long id;
+		private final String operacao;
+		
+	}
+	
+	private final long versao;
+	private final List<LancamentoAlteradoDTO> lancamentos;
+	private final SaldoDTO saldo;
+	
+}
@@ -2,11 +2,18 @@ package com.dsousa.minhasfinancas.api.DTO;
 
 import java.math.BigDecimal;
 
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class LancamentoDTO {
 
 	private Long id;
@@ -18,4 +25,15 @@ public class LancamentoDTO {
 	private String tipo;
 	private String status;
 	
+	/**
+	 * Usado pelas consultas que projetam as colunas do lançamento direto no
+	 * DTO, sem carregar a entidade nem o usuário.
+	 */
+	public LancamentoDTO(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor, Long idUsuario,
+			TipoLancamento tipo, StatusLancamento status) {
+		this(id, descricao, mes, ano, valor, idUsuario,
+				tipo == null ? null : tipo.name(),
+				status == null ? null : status.name());
+	}
+	
 }
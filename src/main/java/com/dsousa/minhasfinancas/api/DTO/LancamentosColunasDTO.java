@@ -0,0 +1,49 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Lista de lançamentos de um usuário em colunas: cada campo é um array,
+ * na mesma ordem da listagem, e o usuário aparece uma única vez. Os nomes
+ * dos campos deixam de se repetir a cada item. As linhas de resumo dos anos
+ * arquivados não têm id: a coluna de ids leva null nelas.
+ */
+@Getter
+public class LancamentosColunasDTO {
+
+	private final Long idUsuario;
+	private final Long[] id;
+	private final String[] descricao;
+	private final Integer[] mes;
+	private final Integer[] ano;
+	private final BigDecimal[] valor;
+	private final String[] tipo;
+	private final String[] status;
+	
+	public LancamentosColunasDTO(Long idUsuario, List<LancamentoDTO> lancamentos) {
+		int tamanho = lancamentos.size();
+		this.idUsuario = idUsuario;
+		this.id = new Long[tamanho];
+		this.descricao = new String[tamanho];
+		this.mes = new Integer[tamanho];
+		this.ano = new Integer[tamanho];
+		this.valor = new BigDecimal[tamanho];
+		this.tipo = new String[tamanho];
+		this.status = new String[tamanho];
+		
+		for(int i = 0; i < tamanho; i++) {
+			LancamentoDTO lancamento = lancamentos.get(i);
+			id[i] = lancamento.getId();
+			descricao[i] = lancamento.getDescricao();
+			mes[i] = lancamento.getMes();
+			ano[i] = lancamento.getAno();
+			valor[i] = lancamento.getValor();
+			tipo[i] = lancamento.getTipo();
+			status[i] = lancamento.getStatus();
+		}
+	}
+	
+}
@@ -0,0 +1,17 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaDTO<T> {
+
+	private List<T> itens;
+	private String proximoCursor;
+	
+}
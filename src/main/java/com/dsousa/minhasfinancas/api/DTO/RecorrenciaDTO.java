@@ -0,0 +1,29 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecorrenciaDTO {
+
+	private Long id;
+	private String descricao;
+	private BigDecimal valor;
+	private Long idUsuario;
+	private String tipo;
+	private String frequencia;
+	private Integer mesInicio;
+	private Integer anoInicio;
+	private Integer mesFim;
+	private Integer anoFim;
+	private Integer mesProximo;
+	private Integer anoProximo;
+	
+}
@@ -0,0 +1,28 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoLoteDTO {
+
+	private int salvos;
+	private List<ErroLoteDTO> erros = new ArrayList<>();
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class ErroLoteDTO {
+		
+		private int indice;
+		private String mensagem;
+		
+	}
+	
+}
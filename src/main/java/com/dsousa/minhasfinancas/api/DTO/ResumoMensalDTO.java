@@ -0,0 +1,24 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.math.BigDecimal;
+
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoMensalDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private TipoLancamento tipo;
+	private StatusLancamento status;
+	private BigDecimal valor;
+	private Long quantidade;
+	
+}
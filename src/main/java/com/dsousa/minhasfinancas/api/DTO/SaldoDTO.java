@@ -0,0 +1,73 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+public class SaldoDTO {
+
+	@JsonIgnore
+	private BigDecimal receitasEfetivadas;
+	
+	@JsonIgnore
+	private BigDecimal receitasPendentes;
+	
+	@JsonIgnore
+	private BigDecimal receitasCanceladas;
+	
+	@JsonIgnore
+	private BigDecimal despesasEfetivadas;
+	
+	@JsonIgnore
+	private BigDecimal despesasPendentes;
+	
+	@JsonIgnore
+	private BigDecimal despesasCanceladas;
+	
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+	private BigDecimal saldo;
+	private BigDecimal saldoRealizado;
+	private BigDecimal saldoPrevisto;
+	
+	@JsonIgnore
+	@Setter
+	private long versao;
+	
+	/**
+	 * Recebe os totais de cada combinação de tipo e status (resultado da
+	 * agregação condicional em LancamentoRepository) e deriva os saldos.
+	 * Somas nulas (usuário sem lançamentos) são tratadas como zero.
+	 */
+	public SaldoDTO(BigDecimal receitasEfetivadas, BigDecimal receitasPendentes, BigDecimal receitasCanceladas,
+			BigDecimal despesasEfetivadas, BigDecimal despesasPendentes, BigDecimal despesasCanceladas) {
+		
+		this.receitasEfetivadas = valorOuZero(receitasEfetivadas);
+		this.receitasPendentes = valorOuZero(receitasPendentes);
+		this.receitasCanceladas = valorOuZero(receitasCanceladas);
+		this.despesasEfetivadas = valorOuZero(despesasEfetivadas);
+		this.despesasPendentes = valorOuZero(despesasPendentes);
+		this.despesasCanceladas = valorOuZero(despesasCanceladas);
+		
+		this.receitas = this.receitasEfetivadas.add(this.receitasPendentes).add(this.receitasCanceladas);
+		this.despesas = this.despesasEfetivadas.add(this.despesasPendentes).add(this.despesasCanceladas);
+		this.saldo = receitas.subtract(despesas);
+		this.saldoRealizado = this.receitasEfetivadas.subtract(this.despesasEfetivadas);
+		this.saldoPrevisto = saldoRealizado.add(this.receitasPendentes).subtract(this.despesasPendentes);
+	}
+	
+	public SaldoDTO somar(SaldoDTO outro) {
+		return new SaldoDTO(receitasEfetivadas.add(outro.receitasEfetivadas), receitasPendentes.add(outro.receitasPendentes),
+				receitasCanceladas.add(outro.receitasCanceladas), despesasEfetivadas.add(outro.despesasEfetivadas),
+				despesasPendentes.add(outro.despesasPendentes), despesasCanceladas.add(outro.despesasCanceladas));
+	}
+	
+	private static BigDecimal valorOuZero(BigDecimal valor) {
+		return valor == null ? BigDecimal.ZERO : valor;
+	}
+	
+}
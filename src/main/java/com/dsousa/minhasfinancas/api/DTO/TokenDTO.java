@@ -0,0 +1,17 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenDTO {
+
+	private Long id;
+	private String nome;
+	private String email;
+	private String token;
+	
+}
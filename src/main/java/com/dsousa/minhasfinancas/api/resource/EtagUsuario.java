@@ -0,0 +1,35 @@
+package com.dsousa.minhasfinancas.api.resource;
+
+/**
+ * ETag das respostas montadas a partir dos lançamentos de um usuário. Vem
+ * da versão mantida na linha de saldo, que muda a cada escrita, então pode
+ * ser comparado com o If-None-Match antes de consultar os lançamentos.
+ */
+final class EtagUsuario {
+
+	private EtagUsuario() {
+	}
+	
+	static String de(Long idUsuario, long versao) {
+		return "\"" + idUsuario + "-" + versao + "\"";
+	}
+	
+	static boolean naoModificado(String ifNoneMatch, String etag) {
+		if(ifNoneMatch == null) {
+			return false;
+		}
+		
+		for(String candidato : ifNoneMatch.split(",")) {
+			String valor = candidato.trim();
+			if(valor.startsWith("W/")) {
+				valor = valor.substring(2);
+			}
+			if(valor.equals("*") || valor.equals(etag)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+}
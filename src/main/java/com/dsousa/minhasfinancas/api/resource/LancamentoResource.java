@@ -1,29 +1,56 @@
 package com.dsousa.minhasfinancas.api.resource;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.dsousa.minhasfinancas.api.DTO.AtualizaStatusDTO;
 import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.LancamentosColunasDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO.ErroLoteDTO;
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.config.JwtTokenFilter;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
 import com.dsousa.minhasfinancas.service.LancamentoService;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
-import com.dsousa.minhasfinancas.model.entity.Usuario;
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
 import com.dsousa.minhasfinancas.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -32,95 +59,367 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LancamentoResource {
 
+	static final String HEADER_PROXIMO_CURSOR = "X-Proximo-Cursor";
+	
+	static final String FORMATO_CSV = "csv";
+	
+	static final String FORMATO_NDJSON = "ndjson";
+	
+	static final MediaType FORMATO_COLUNAS = MediaType.parseMediaType("application/vnd.financas.colunas+json");
+	
+	static final int TAMANHO_MAXIMO_LOTE = 10000;
+	
+	static final String USUARIO_NAO_ENCONTRADO = "Usuário não encontrado para o id informado.";
+	
+	static final String ACESSO_NEGADO = "O lançamento não pertence ao usuário autenticado.";
+	
 	private final LancamentoService service;
 	
 	private final UsuarioService usuarioService;
 	
+	private final ObjectMapper objectMapper;
 	
-	@PostMapping
-	public ResponseEntity salvar( @RequestBody LancamentoDTO dto) {
-		try {
-			Lancamento entidade = converter(dto);
-			entidade = service.salvar(entidade);
-			return new ResponseEntity(entidade, HttpStatus.CREATED);
-		} catch (RegraNegocioException e) {
-			return ResponseEntity.badRequest().body(e.getMessage());
-		}	
-	}
+	private final ExecutorRequisicoes executor;
 	
-	@PutMapping("{id}")
-	public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto) {
-		return service.buscarPorId(id).map( entity -> {
+	
+	@PostMapping
+	public CompletableFuture<ResponseEntity> salvar( @RequestBody LancamentoDTO dto, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(!atribuirUsuario(dto, idAutenticado)) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
 			try {
-				Lancamento lancamento = converter(dto);
-				lancamento.setId(entity.getId());
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);
+				Lancamento entidade = converter(dto);
+				entidade = service.salvar(entidade);
+				return new ResponseEntity(converter(entidade), HttpStatus.CREATED);
 			} catch (RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
+			} catch (DataIntegrityViolationException e) {
+				return ResponseEntity.badRequest().body(USUARIO_NAO_ENCONTRADO);
+			}	
+		});
+	}
+	
+	@PostMapping("/lote")
+	public CompletableFuture<ResponseEntity> salvarLote(@RequestBody List<LancamentoDTO> dtos, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(dtos.size() > TAMANHO_MAXIMO_LOTE) {
+				return ResponseEntity.badRequest().body("O lote deve ter no máximo " + TAMANHO_MAXIMO_LOTE + " lançamentos.");
 			}
-		}).orElseGet( () -> new ResponseEntity("Lancamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
 			
-		
-		
+			List<Lancamento> lancamentos = new ArrayList<>();
+			List<Integer> indices = new ArrayList<>();
+			List<ErroLoteDTO> errosConversao = new ArrayList<>();
+			
+			// com token o usuário já é conhecido; sem ele, uma única consulta para todos os usuários do lote
+			Set<Long> usuariosExistentes = idAutenticado != null
+					? Collections.singleton(idAutenticado)
+					: usuarioService.obterIdsExistentes(
+							dtos.stream().map(LancamentoDTO::getIdUsuario).filter(Objects::nonNull).collect(Collectors.toSet()));
+			
+			for(int indice = 0; indice < dtos.size(); indice++) {
+				try {
+					if(!atribuirUsuario(dtos.get(indice), idAutenticado)) {
+						throw new RegraNegocioException(ACESSO_NEGADO);
+					}
+					if(!usuariosExistentes.contains(dtos.get(indice).getIdUsuario())) {
+						throw new RegraNegocioException(USUARIO_NAO_ENCONTRADO);
+					}
+					lancamentos.add(converter(dtos.get(indice)));
+					indices.add(indice);
+				} catch (RegraNegocioException | IllegalArgumentException e) {
+					errosConversao.add(new ErroLoteDTO(indice, e.getMessage()));
+				}
+			}
+			
+			ResultadoLoteDTO resultado = service.salvarLote(lancamentos);
+			
+			// os erros de validação vêm indexados pela lista convertida
+			resultado.getErros().forEach(erro -> erro.setIndice(indices.get(erro.getIndice())));
+			resultado.getErros().addAll(errosConversao);
+			resultado.getErros().sort(Comparator.comparingInt(ErroLoteDTO::getIndice));
+			
+			return ResponseEntity.ok(resultado);
+		});
 	}
 	
-	
-	@PutMapping("{id}/atualiza-status")
-	public ResponseEntity atualiazarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto) {
-		return service.buscarPorId(id).map( entity -> {
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
-			if(statusSelecionado == null) {
-				return ResponseEntity.badRequest().body("Não foi possivel atualizar o status do lançamento, envie um status valido");
-			} 
+	@PutMapping("{id}")
+	public CompletableFuture<ResponseEntity> atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			return service.buscarPorId(id).map( entity -> {
+				if(!pertenceAoUsuario(entity, idAutenticado) || !atribuirUsuario(dto, idAutenticado)) {
+					return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+				}
+				try {
+					Lancamento lancamento = converter(dto);
+					lancamento.setId(entity.getId());
+					service.atualizar(lancamento);
+					return ResponseEntity.ok(converter(lancamento));
+				} catch (RegraNegocioException e) {
+					return ResponseEntity.badRequest().body(e.getMessage());
+				} catch (DataIntegrityViolationException e) {
+					return ResponseEntity.badRequest().body(USUARIO_NAO_ENCONTRADO);
+				}
+			}).orElseGet( () -> new ResponseEntity("Lancamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+				
+			
 			
+		});
+	}
+	
+	
+	@PatchMapping("{id}")
+	public CompletableFuture<ResponseEntity> atualizarParcialmente(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(idAutenticado != null && dto.getIdUsuario() != null && !idAutenticado.equals(dto.getIdUsuario())) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
 			try {
-				entity.setStatus(statusSelecionado);
-				service.atualizar(entity);
-				return ResponseEntity.ok(entity);
-			} catch (RegraNegocioException e) {
+				return service.atualizarParcialmente(id, idAutenticado, converterParcial(dto)).map( lancamento -> {
+					if(!pertenceAoUsuario(lancamento, idAutenticado)) {
+						return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+					}
+					return ResponseEntity.ok(converter(lancamento));
+				}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+			} catch (RegraNegocioException | IllegalArgumentException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
+			} catch (DataIntegrityViolationException e) {
+				return ResponseEntity.badRequest().body(USUARIO_NAO_ENCONTRADO);
+			}
+		});
+	}
+	
+	@PutMapping("{id}/atualiza-status")
+	public CompletableFuture<ResponseEntity> atualiazarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			StatusLancamento statusSelecionado;
+			try {
+				statusSelecionado = StatusLancamento.valueOf(String.valueOf(dto.getStatus()));
+			} catch (IllegalArgumentException e) {
+				return ResponseEntity.badRequest().body("Não foi possivel atualizar o status do lançamento, envie um status valido");
 			}
 			
-			
-		}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+			return service.atualizarStatus(id, idAutenticado, statusSelecionado).map( lancamento -> {
+				if(!pertenceAoUsuario(lancamento, idAutenticado)) {
+					return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+				}
+				return ResponseEntity.ok(converter(lancamento));
+			}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+		});
 	}
 	
 	
 	@DeleteMapping("{id}")
-	public ResponseEntity deletar(@PathVariable("id") Long id) {
-		return service.buscarPorId(id).map( entidade ->  {
-			service.deletar(entidade);
-			return new ResponseEntity(HttpStatus.NO_CONTENT);
-		}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+	public CompletableFuture<ResponseEntity> deletar(@PathVariable("id") Long id, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			return service.buscarPorId(id).map( entidade ->  {
+				if(!pertenceAoUsuario(entidade, idAutenticado)) {
+					return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+				}
+				service.deletar(entidade);
+				return new ResponseEntity(HttpStatus.NO_CONTENT);
+			}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+		});
 	}
 	
 	@GetMapping
-	public ResponseEntity buscar(
+	public CompletableFuture<ResponseEntity> buscar(
 			@RequestParam(value="descricao", required = false) String descricao,
+			@RequestParam(value="busca", required = false) String busca,
 			@RequestParam(value="mes", required = false) Integer mes,
 			@RequestParam(value="ano", required = false) Integer ano,
-			@RequestParam(value="usuario") Long idUsuario
+			@RequestParam(value="usuario", required = false) Long idUsuario,
+			@RequestParam(value="cursor", required = false) String cursor,
+			@RequestParam(value="tamanho", required = false) Integer tamanho,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado
 			) {
+		return executor.executar(() -> {
+			if(idAutenticado != null && idUsuario != null && !idAutenticado.equals(idUsuario)) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
+			Long idConsulta = idAutenticado != null ? idAutenticado : idUsuario;
+			if(idConsulta == null) {
+				return ResponseEntity.badRequest().body("Informe o usuário da consulta.");
+			}
+			
+			// nada mudou para o usuário desde a última resposta: 304 sem consultar os lançamentos
+			String etag = EtagUsuario.de(idConsulta, service.obterVersaoPorUsuario(idConsulta));
+			if(EtagUsuario.naoModificado(ifNoneMatch, etag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+			}
+			
+			Lancamento lancamentoFiltro = new  Lancamento();
+			lancamentoFiltro.setDescricao(descricao);
+			lancamentoFiltro.setAno(ano);
+			lancamentoFiltro.setMes(mes);
+			lancamentoFiltro.setUsuario(usuarioService.obterReferencia(idConsulta));
+			
+			if(busca != null) {
+				List<LancamentoDTO> encontrados = service.pesquisar(lancamentoFiltro, busca, tamanho)
+						.stream().map(this::converter).collect(Collectors.toList());
+				return responder(ResponseEntity.ok().eTag(etag), idConsulta, encontrados, accept);
+			}
+			
+			try {
+				PaginaDTO<LancamentoDTO> pagina = service.buscar(lancamentoFiltro, cursor, tamanho);
+				ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().eTag(etag);
+				if(pagina.getProximoCursor() != null) {
+					resposta.header(HEADER_PROXIMO_CURSOR, pagina.getProximoCursor());
+				}
+				return responder(resposta, idConsulta, pagina.getItens(), accept);
+			} catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		});
+	}
+	
+	
+	/**
+	 * Corpo da listagem no formato pedido: em colunas quando o Accept pede
+	 * o formato colunar; senão a lista de DTOs, que segue a negociação
+	 * normal entre JSON, CBOR e Smile.
+	 */
+	private ResponseEntity responder(ResponseEntity.BodyBuilder resposta, Long idUsuario, List<LancamentoDTO> lancamentos, String accept) {
+		resposta.varyBy(HttpHeaders.ACCEPT);
+		if(aceitaColunas(accept)) {
+			return resposta.contentType(FORMATO_COLUNAS).body(new LancamentosColunasDTO(idUsuario, lancamentos));
+		}
+		return resposta.body(lancamentos);
+	}
+	
+	private boolean aceitaColunas(String accept) {
+		if(accept == null) {
+			return false;
+		}
+		try {
+			return MediaType.parseMediaTypes(accept).stream().anyMatch(FORMATO_COLUNAS::equalsTypeAndSubtype);
+		} catch (InvalidMediaTypeException e) {
+			return false;
+		}
+	}
+	
+	@GetMapping("/export")
+	public void exportar(
+			@RequestParam(value="usuario", required = false) Long idUsuario,
+			@RequestParam(value="format", defaultValue = "csv") String formato,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado,
+			HttpServletResponse response) throws IOException {
+		
+		if(!FORMATO_CSV.equals(formato) && !FORMATO_NDJSON.equals(formato)) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), "Formato de exportação inválido, use csv ou ndjson.");
+			return;
+		}
+		
+		if(idAutenticado != null) {
+			if(idUsuario != null && !idAutenticado.equals(idUsuario)) {
+				response.sendError(HttpStatus.FORBIDDEN.value(), ACESSO_NEGADO);
+				return;
+			}
+			idUsuario = idAutenticado;
+		} else if(idUsuario == null || !usuarioService.obterPorId(idUsuario).isPresent()) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), USUARIO_NAO_ENCONTRADO);
+			return;
+		}
+		Long idExportado = idUsuario;
 		
-		Lancamento lancamentoFiltro = new  Lancamento();
-		lancamentoFiltro.setDescricao(descricao);
-		lancamentoFiltro.setAno(ano);
-		lancamentoFiltro.setMes(mes);
+		boolean csv = FORMATO_CSV.equals(formato);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lancamentos." + formato + "\"");
 		
-		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
-		if(!usuario.isPresent()) {
-			return ResponseEntity.badRequest().body("Não foi possivel realizar a consulta. Usuário não encontrado para o id informado");
-		} else {
-			lancamentoFiltro.setUsuario(usuario.get());
+		Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		if(csv) {
+			writer.write("id,descricao,mes,ano,valor,tipo,status\n");
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		service.exportar(idExportado, lancamento -> {
+			try {
+				if(csv) {
+					escreverCsv(writer, lancamento);
+				} else {
+					writer.write(objectMapper.writeValueAsString(converter(lancamento)));
+					writer.write('\n');
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		
+		writer.flush();
+	}
+	
+	private void escreverCsv(Writer writer, Lancamento lancamento) throws IOException {
+		writer.write(String.valueOf(lancamento.getId()));
+		writer.write(',');
+		writer.write(campoCsv(lancamento.getDescricao()));
+		writer.write(',');
+		writer.write(String.valueOf(lancamento.getMes()));
+		writer.write(',');
+		writer.write(String.valueOf(lancamento.getAno()));
+		writer.write(',');
+		writer.write(lancamento.getValor() == null ? "" : lancamento.getValor().toPlainString());
+		writer.write(',');
+		writer.write(lancamento.getTipo() == null ? "" : lancamento.getTipo().name());
+		writer.write(',');
+		writer.write(lancamento.getStatus() == null ? "" : lancamento.getStatus().name());
+		writer.write('\n');
 	}
 	
+	private String campoCsv(String valor) {
+		if(valor == null) {
+			return "";
+		}
+		if(valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+			return valor;
+		}
+		return '"' + valor.replace("\"", "\"\"") + '"';
+	}
 	
-	private Lancamento converter(LancamentoDTO dto) {
+	/**
+	 * Com token, o lançamento só pode ser do usuário autenticado e o id pode
+	 * ser omitido no corpo.
+	 */
+	private boolean atribuirUsuario(LancamentoDTO dto, Long idAutenticado) {
+		if(idAutenticado == null) {
+			return true;
+		}
+		if(dto.getIdUsuario() == null) {
+			dto.setIdUsuario(idAutenticado);
+		}
+		return idAutenticado.equals(dto.getIdUsuario());
+	}
+	
+	private boolean pertenceAoUsuario(Lancamento lancamento, Long idAutenticado) {
+		return idAutenticado == null || idAutenticado.equals(lancamento.getUsuario().getId());
+	}
+	
+	LancamentoDTO converter(Lancamento lancamento) {
+		return LancamentoDTO.builder()
+				.id(lancamento.getId())
+				.descricao(lancamento.getDescricao())
+				.mes(lancamento.getMes())
+				.ano(lancamento.getAno())
+				.valor(lancamento.getValor())
+				.idUsuario(lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId())
+				.tipo(lancamento.getTipo() == null ? null : lancamento.getTipo().name())
+				.status(lancamento.getStatus() == null ? null : lancamento.getStatus().name())
+				.build();
+	}
+	
+	Lancamento converter(LancamentoDTO dto) {
+		if(dto.getIdUsuario() == null) {
+			throw new RegraNegocioException(USUARIO_NAO_ENCONTRADO);
+		}
+		
+		return converterParcial(dto);
+	}
+	
+	/**
+	 * Converte só os campos informados; os demais ficam nulos, como no PATCH.
+	 */
+	Lancamento converterParcial(LancamentoDTO dto) {
 		Lancamento lancamento = new Lancamento();
 		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
@@ -128,11 +427,8 @@ public class LancamentoResource {
 		lancamento.setMes(dto.getMes());
 		lancamento.setValor(dto.getValor());
 		
-		Usuario usuario = usuarioService
-				.obterPorId(dto.getIdUsuario())
-				.orElseThrow(() -> new RegraNegocioException("Usuário não encontrado para o id informado.") );
-				
-		lancamento.setUsuario(usuario);
+		// referência sem consulta; um id inexistente é barrado pela chave estrangeira
+		if(dto.getIdUsuario() != null) lancamento.setUsuario(usuarioService.obterReferencia(dto.getIdUsuario()));
 		if(dto.getTipo() != null) lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
 		if(dto.getStatus() != null) lancamento.setStatus(StatusLancamento.valueOf(dto.getStatus()));
 		
@@ -0,0 +1,148 @@
+package com.dsousa.minhasfinancas.api.resource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.dsousa.minhasfinancas.api.DTO.RecorrenciaDTO;
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.config.JwtTokenFilter;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.model.enumered.FrequenciaRecorrencia;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.RecorrenciaService;
+import com.dsousa.minhasfinancas.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Modelos de lançamentos recorrentes. Os lançamentos são gerados em segundo
+ * plano (GeracaoRecorrencias), não a cada requisição.
+ */
+@RestController
+@RequestMapping("/api/recorrencias")
+@RequiredArgsConstructor
+public class RecorrenciaResource {
+
+	static final String ACESSO_NEGADO = "A recorrência não pertence ao usuário autenticado.";
+	
+	private final RecorrenciaService service;
+	
+	private final UsuarioService usuarioService;
+	
+	private final ExecutorRequisicoes executor;
+	
+	@PostMapping
+	public CompletableFuture<ResponseEntity> salvar(@RequestBody RecorrenciaDTO dto, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(idAutenticado != null && dto.getIdUsuario() == null) {
+				dto.setIdUsuario(idAutenticado);
+			}
+			if(idAutenticado != null && !idAutenticado.equals(dto.getIdUsuario())) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
+			try {
+				Recorrencia recorrencia = service.salvar(converter(dto));
+				return new ResponseEntity(converter(recorrencia), HttpStatus.CREATED);
+			} catch (RegraNegocioException | IllegalArgumentException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			} catch (DataIntegrityViolationException e) {
+				return ResponseEntity.badRequest().body(LancamentoResource.USUARIO_NAO_ENCONTRADO);
+			}
+		});
+	}
+	
+	@GetMapping
+	public CompletableFuture<ResponseEntity> buscar(@RequestParam(value = "usuario", required = false) Long idUsuario,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(idAutenticado != null && idUsuario != null && !idAutenticado.equals(idUsuario)) {
+				return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+			}
+			Long idConsulta = idAutenticado != null ? idAutenticado : idUsuario;
+			if(idConsulta == null) {
+				return ResponseEntity.badRequest().body("Informe o usuário da consulta.");
+			}
+			
+			List<RecorrenciaDTO> recorrencias = service.buscarPorUsuario(idConsulta)
+					.stream().map(this::converter).collect(Collectors.toList());
+			return ResponseEntity.ok(recorrencias);
+		});
+	}
+	
+	/**
+	 * Encerra a recorrência; os lançamentos já gerados continuam.
+	 */
+	@DeleteMapping("{id}")
+	public CompletableFuture<ResponseEntity> deletar(@PathVariable("id") Long id, @RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			return service.buscarPorId(id).map( entidade -> {
+				if(idAutenticado != null && !idAutenticado.equals(entidade.getUsuario().getId())) {
+					return new ResponseEntity(ACESSO_NEGADO, HttpStatus.FORBIDDEN);
+				}
+				service.deletar(entidade);
+				return new ResponseEntity(HttpStatus.NO_CONTENT);
+			}).orElseGet( () -> new ResponseEntity("Recorrência não encontrada na base de dados.", HttpStatus.BAD_REQUEST));
+		});
+	}
+	
+	RecorrenciaDTO converter(Recorrencia recorrencia) {
+		Integer proxima = recorrencia.getProximaCompetencia();
+		Integer fim = recorrencia.getCompetenciaFim();
+		return RecorrenciaDTO.builder()
+				.id(recorrencia.getId())
+				.descricao(recorrencia.getDescricao())
+				.valor(recorrencia.getValor())
+				.idUsuario(recorrencia.getUsuario() == null ? null : recorrencia.getUsuario().getId())
+				.tipo(recorrencia.getTipo() == null ? null : recorrencia.getTipo().name())
+				.frequencia(recorrencia.getFrequencia() == null ? null : recorrencia.getFrequencia().name())
+				.mesInicio(Recorrencia.mes(recorrencia.getCompetenciaInicio()))
+				.anoInicio(Recorrencia.ano(recorrencia.getCompetenciaInicio()))
+				.mesFim(fim == null ? null : Recorrencia.mes(fim))
+				.anoFim(fim == null ? null : Recorrencia.ano(fim))
+				.mesProximo(proxima == null ? null : Recorrencia.mes(proxima))
+				.anoProximo(proxima == null ? null : Recorrencia.ano(proxima))
+				.build();
+	}
+	
+	Recorrencia converter(RecorrenciaDTO dto) {
+		if(dto.getIdUsuario() == null) {
+			throw new RegraNegocioException(LancamentoResource.USUARIO_NAO_ENCONTRADO);
+		}
+		
+		Recorrencia recorrencia = new Recorrencia();
+		recorrencia.setDescricao(dto.getDescricao());
+		recorrencia.setValor(dto.getValor());
+		recorrencia.setUsuario(usuarioService.obterReferencia(dto.getIdUsuario()));
+		if(dto.getTipo() != null) recorrencia.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+		if(dto.getFrequencia() != null) recorrencia.setFrequencia(FrequenciaRecorrencia.valueOf(dto.getFrequencia()));
+		recorrencia.setCompetenciaInicio(competencia(dto.getAnoInicio(), dto.getMesInicio()));
+		recorrencia.setCompetenciaFim(competencia(dto.getAnoFim(), dto.getMesFim()));
+		return recorrencia;
+	}
+	
+	private Integer competencia(Integer ano, Integer mes) {
+		if(ano == null && mes == null) {
+			return null;
+		}
+		if(ano == null || ano.toString().length() != 4 || mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um mês e um ano válidos.");
+		}
+		return Recorrencia.competencia(ano, mes);
+	}
+	
+}
@@ -1,22 +1,41 @@
 package com.dsousa.minhasfinancas.api.resource;
 
-import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.dsousa.minhasfinancas.api.DTO.AlteracoesUsuarioDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.api.DTO.TokenDTO;
 import com.dsousa.minhasfinancas.api.DTO.UsuarioDTO;
+import com.dsousa.minhasfinancas.config.AcessoBackoffice;
+import com.dsousa.minhasfinancas.config.EventosUsuario;
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.config.JwtTokenFilter;
 import com.dsousa.minhasfinancas.exception.ErroAutenticacao;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.service.JwtService;
 import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.ResumoMensalService;
 import com.dsousa.minhasfinancas.service.UsuarioService;
 
 import lombok.RequiredArgsConstructor;
@@ -26,44 +45,151 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UsuarioResource {
 
+	static final int MAXIMO_SALDOS = 100;
+	
 	private final UsuarioService service;
 	
 	private final LancamentoService lancamentoService;
 	
+	private final ResumoMensalService resumoMensalService;
+	
+	private final JwtService jwtService;
+	
+	private final ExecutorRequisicoes executor;
+	
+	private final EventosUsuario eventos;
+	
+	private final AcessoBackoffice acessoBackoffice;
+	
 	@PostMapping
-	public ResponseEntity salvar(@RequestBody UsuarioDTO dto) {
-		Usuario usuario = Usuario.builder().nome(dto.getNome()).email(dto.getEmail()).senha(dto.getSenha()).build();
-		
-		try {
-			Usuario usuarioSalvo = service.salvarUsuario(usuario);
-			return new ResponseEntity(usuarioSalvo, HttpStatus.CREATED);
-		} catch (RegraNegocioException e) {
-			return ResponseEntity.badRequest().body(e.getMessage());
-		}
+	public CompletableFuture<ResponseEntity> salvar(@RequestBody UsuarioDTO dto) {
+		return executor.executar(() -> {
+			Usuario usuario = Usuario.builder().nome(dto.getNome()).email(dto.getEmail()).senha(dto.getSenha()).build();
+			
+			try {
+				Usuario usuarioSalvo = service.salvarUsuario(usuario);
+				return new ResponseEntity(usuarioSalvo, HttpStatus.CREATED);
+			} catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		});
 	}
 	
 	@PostMapping("/autenticar")
-	public ResponseEntity autenticar( @RequestBody UsuarioDTO dto) {
-		try {
-		 Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
-		 return ResponseEntity.ok(usuarioAutenticado);
-		} catch (ErroAutenticacao e) {
-			return ResponseEntity.badRequest().body(e.getMessage());
-		}		
+	public CompletableFuture<ResponseEntity> autenticar( @RequestBody UsuarioDTO dto) {
+		return executor.executar(() -> {
+			try {
+			 Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
+			 String token = jwtService.gerarToken(usuarioAutenticado);
+			 return ResponseEntity.ok(new TokenDTO(usuarioAutenticado.getId(), usuarioAutenticado.getNome(), usuarioAutenticado.getEmail(), token));
+			} catch (ErroAutenticacao e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}		
+		});
 	}
 	
 	@GetMapping("{id}/saldo")
-	public ResponseEntity obterSaldo(@PathVariable("id") Long id) {
-		
-		Optional<Usuario> usuario = service.obterPorId(id);
+	public CompletableFuture<ResponseEntity> obterSaldo(@PathVariable("id") Long id,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			ResponseEntity negado = negarAcesso(id, idAutenticado);
+			if(negado != null) {
+				return negado;
+			}
+			
+			// a versão vem na mesma leitura da linha de saldo
+			SaldoDTO saldo = lancamentoService.obterSaldoDetalhadoPorUsuario(id);
+			String etag = EtagUsuario.de(id, saldo.getVersao());
+			if(EtagUsuario.naoModificado(ifNoneMatch, etag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+			}
 		
-		if(!usuario.isPresent()) {
-			return new ResponseEntity(HttpStatus.NOT_FOUND);
+			return ResponseEntity.ok().eTag(etag).body(saldo);
+		});
+	}
+	
+	/**
+	 * Saldos de vários usuários, com uma leitura das linhas de saldo por shard
+	 * em vez de uma requisição por usuário. Ids inexistentes ficam fora da
+	 * resposta. Com token, só o próprio usuário pode ser consultado, exceto
+	 * pelos usuários de retaguarda ({@link AcessoBackoffice}).
+	 */
+	@PostMapping("/saldos")
+	public CompletableFuture<ResponseEntity> obterSaldos(@RequestBody List<Long> ids,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(ids.size() > MAXIMO_SALDOS) {
+				return ResponseEntity.badRequest().body("Informe no máximo " + MAXIMO_SALDOS + " usuários.");
+			}
+			
+			Set<Long> distintos = new LinkedHashSet<>(ids);
+			distintos.remove(null);
+			boolean backoffice = acessoBackoffice.permite(idAutenticado);
+			if(idAutenticado != null && !backoffice && distintos.stream().anyMatch(id -> !id.equals(idAutenticado))) {
+				return new ResponseEntity(HttpStatus.FORBIDDEN);
+			}
+			
+			// com token o usuário já é conhecido; nos demais casos, uma única consulta para todos os ids
+			if(idAutenticado == null || backoffice) {
+				distintos.retainAll(service.obterIdsExistentes(distintos));
+			}
+			
+			return ResponseEntity.ok(lancamentoService.obterSaldosPorUsuarios(distintos));
+		});
+	}
+	
+	/**
+	 * Fluxo SSE com os lançamentos alterados e o saldo a cada escrita do
+	 * usuário, começando pelo saldo atual. Fica fora do ExecutorRequisicoes:
+	 * a requisição permanece aberta sem ocupar thread enquanto não há envio.
+	 */
+	@GetMapping(value = "{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> assinarEventos(@PathVariable("id") Long id,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		ResponseEntity negado = negarAcesso(id, idAutenticado);
+		if(negado != null) {
+			return ResponseEntity.status(negado.getStatusCode()).build();
 		}
 		
-		BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
+		return ResponseEntity.ok(eventos.assinar(id, () -> {
+			SaldoDTO saldo = lancamentoService.obterSaldoDetalhadoPorUsuario(id);
+			return new AlteracoesUsuarioDTO(saldo.getVersao(), Collections.emptyList(), saldo);
+		}));
+	}
 	
-		return ResponseEntity.ok(saldo);
+	@GetMapping("{id}/relatorio")
+	public CompletableFuture<ResponseEntity> obterRelatorio(@PathVariable("id") Long id,
+			@RequestParam(value = "anoInicio", required = false) Integer anoInicio,
+			@RequestParam(value = "anoFim", required = false) Integer anoFim,
+			@RequestAttribute(value = JwtTokenFilter.ATRIBUTO_ID_USUARIO, required = false) Long idAutenticado) {
+		return executor.executar(() -> {
+			if(anoInicio != null && anoFim != null && anoInicio > anoFim) {
+				return ResponseEntity.badRequest().body("O ano inicial não pode ser maior que o ano final.");
+			}
+			
+			ResponseEntity negado = negarAcesso(id, idAutenticado);
+			if(negado != null) {
+				return negado;
+			}
+			
+			List<ResumoMensalDTO> relatorio = resumoMensalService.obterPorUsuario(id, anoInicio, anoFim);
+			
+			return ResponseEntity.ok(relatorio);
+		});
+	}
+	
+	/**
+	 * Resposta de erro quando o usuário não pode ser consultado,
+	 * ou nulo quando o acesso é permitido.
+	 */
+	private ResponseEntity negarAcesso(Long id, Long idAutenticado) {
+		if(idAutenticado != null) {
+			// o token já prova que o usuário existe
+			return idAutenticado.equals(id) ? null : new ResponseEntity(HttpStatus.FORBIDDEN);
+		}
+		
+		return service.obterPorId(id).isPresent() ? null : new ResponseEntity(HttpStatus.NOT_FOUND);
 	}
 	
 }
@@ -0,0 +1,26 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Usuários de retaguarda, listados em financas.backoffice.usuarios: com o
+ * token de um deles, as consultas em lote aceitam ids de outros usuários.
+ * O papel vem da configuração e só vale para o id de um token verificado.
+ */
+@Component
+public class AcessoBackoffice {
+
+	private final Set<Long> usuarios;
+	
+	public AcessoBackoffice(@Value("${financas.backoffice.usuarios:}") Set<Long> usuarios) {
+		this.usuarios = usuarios;
+	}
+	
+	public boolean permite(Long idAutenticado) {
+		return idAutenticado != null && usuarios.contains(idAutenticado);
+	}
+	
+}
@@ -0,0 +1,51 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.time.Duration;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Usuários que escreveram há menos que a janela de aderência: as leituras
+ * deles vão ao primário até a réplica ter tempo de alcançá-lo. Registrado
+ * depois do commit. O estado é desta instância, então com várias instâncias
+ * atrás de um balanceador a aderência vale só se ele mantiver o usuário na
+ * mesma instância.
+ */
+public class AderenciaEscrita {
+
+	private final Cache<Long, Boolean> escritasRecentes;
+	
+	public AderenciaEscrita(Duration janela) {
+		this.escritasRecentes = Caffeine.newBuilder()
+				.expireAfterWrite(janela)
+				.build();
+	}
+	
+	@TransactionalEventListener
+	public void registrar(LancamentosAlteradosEvent evento) {
+		for(LancamentosAlteradosEvent.Alteracao alteracao : evento.getAlteracoes()) {
+			registrar(alteracao.getAnterior());
+			registrar(alteracao.getAtual());
+		}
+	}
+	
+	public void registrar(Long idUsuario) {
+		escritasRecentes.put(idUsuario, Boolean.TRUE);
+	}
+	
+	public boolean escreveuRecentemente(Long idUsuario) {
+		return idUsuario != null && escritasRecentes.getIfPresent(idUsuario) != null;
+	}
+	
+	private void registrar(Lancamento lancamento) {
+		if(lancamento != null && lancamento.getUsuario() != null && lancamento.getUsuario().getId() != null) {
+			registrar(lancamento.getUsuario().getId());
+		}
+	}
+	
+}
@@ -0,0 +1,16 @@
+package com.dsousa.minhasfinancas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tarefas agendadas (ex.: geração das recorrências). Desligue com
+ * financas.agendamento.habilitado=false nas instâncias que não devem rodá-las.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(value = "financas.agendamento.habilitado", matchIfMissing = true)
+public class AgendamentoConfig {
+
+}
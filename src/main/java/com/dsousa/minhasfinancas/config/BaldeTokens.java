@@ -0,0 +1,46 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens guardado num único long: o instante em que o balde volta a
+ * ficar cheio, descontada a capacidade (GCRA). Consumir é um compareAndSet,
+ * sem trava e sem alocação.
+ */
+final class BaldeTokens {
+
+	private final long intervaloNanos;
+	
+	private final long toleranciaNanos;
+	
+	private final AtomicLong proximaChegada;
+	
+	/**
+	 * @param intervaloNanos tempo para repor um token
+	 * @param toleranciaNanos capacidade vezes o intervalo
+	 * @param agora o balde começa cheio neste instante
+	 */
+	BaldeTokens(long intervaloNanos, long toleranciaNanos, long agora) {
+		this.intervaloNanos = intervaloNanos;
+		this.toleranciaNanos = toleranciaNanos;
+		this.proximaChegada = new AtomicLong(agora);
+	}
+	
+	/**
+	 * @return zero se havia token, senão quantos nanossegundos faltam para o próximo
+	 */
+	long consumir(long agora) {
+		while(true) {
+			long atual = proximaChegada.get();
+			long proxima = (atual - agora < 0 ? agora : atual) + intervaloNanos;
+			long espera = proxima - agora - toleranciaNanos;
+			if(espera > 0) {
+				return espera;
+			}
+			if(proximaChegada.compareAndSet(atual, proxima)) {
+				return 0;
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,18 @@
+package com.dsousa.minhasfinancas.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache em memória dos usuários (Caffeine). Tamanho máximo, expiração e
+ * estatísticas ficam em spring.cache.caffeine.spec.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String USUARIOS = "usuarios";
+	
+	public static final String USUARIOS_POR_EMAIL = "usuariosPorEmail";
+	
+}
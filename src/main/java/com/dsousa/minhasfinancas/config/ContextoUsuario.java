@@ -0,0 +1,48 @@
+package com.dsousa.minhasfinancas.config;
+
+/**
+ * Usuário da requisição em andamento, usado pelo {@link RoteamentoDataSource}
+ * para decidir se ele ainda precisa ler do primário. Preenchido pelo
+ * {@link ContextoUsuarioInterceptor} e levado às threads do
+ * {@link ExecutorRequisicoes} por {@link #propagar(Runnable)}.
+ */
+public final class ContextoUsuario {
+
+	private static final ThreadLocal<Long> ID_USUARIO = new ThreadLocal<>();
+	
+	private ContextoUsuario() {
+	}
+	
+	public static Long obter() {
+		return ID_USUARIO.get();
+	}
+	
+	public static void definir(Long idUsuario) {
+		if(idUsuario == null) {
+			ID_USUARIO.remove();
+		} else {
+			ID_USUARIO.set(idUsuario);
+		}
+	}
+	
+	public static void limpar() {
+		ID_USUARIO.remove();
+	}
+	
+	/**
+	 * Captura o usuário da thread atual e o define na thread que rodar a tarefa.
+	 */
+	public static Runnable propagar(Runnable tarefa) {
+		Long idUsuario = obter();
+		return () -> {
+			Long anterior = obter();
+			definir(idUsuario);
+			try {
+				tarefa.run();
+			} finally {
+				definir(anterior);
+			}
+		};
+	}
+	
+}
@@ -0,0 +1,67 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Define o {@link ContextoUsuario} a partir do token, do parâmetro usuario ou
+ * do id em /api/usuarios/{id}, nessa ordem, e o limpa ao fim da requisição.
+ */
+public class ContextoUsuarioInterceptor implements AsyncHandlerInterceptor {
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ContextoUsuario.definir(obterIdUsuario(request));
+		return true;
+	}
+	
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ContextoUsuario.limpar();
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		ContextoUsuario.limpar();
+	}
+	
+	static Long obterIdAutenticado(HttpServletRequest request) {
+		Object autenticado = request.getAttribute(JwtTokenFilter.ATRIBUTO_ID_USUARIO);
+		return autenticado instanceof Long ? (Long) autenticado : null;
+	}
+	
+	static Long obterIdUsuario(HttpServletRequest request) {
+		Long autenticado = obterIdAutenticado(request);
+		if(autenticado != null) {
+			return autenticado;
+		}
+		Long usuario = converter(request.getParameter("usuario"));
+		if(usuario != null) {
+			return usuario;
+		}
+		String caminho = request.getRequestURI().substring(request.getContextPath().length());
+		if(caminho.startsWith("/api/usuarios/")) {
+			@SuppressWarnings("unchecked")
+			Map<String, String> variaveis = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+			return variaveis == null ? null : converter(variaveis.get("id"));
+		}
+		return null;
+	}
+	
+	private static Long converter(String valor) {
+		if(valor == null) {
+			return null;
+		}
+		try {
+			return Long.valueOf(valor);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+}
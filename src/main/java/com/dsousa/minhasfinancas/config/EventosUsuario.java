@@ -0,0 +1,381 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.dsousa.minhasfinancas.api.DTO.AlteracoesUsuarioDTO;
+import com.dsousa.minhasfinancas.api.DTO.AlteracoesUsuarioDTO.LancamentoAlteradoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Conexões SSE de /api/usuarios/{id}/eventos. Depois do commit de cada
+ * escrita de lançamentos, a mensagem do usuário entra na fila de cada
+ * conexão dele e é enviada por um pool pequeno, fora da thread que
+ * escreveu. A fila é limitada: a conexão que não acompanha as escritas é
+ * encerrada, e o EventSource do navegador reconecta e recebe o saldo atual.
+ * <p>
+ * Conexões ociosas não ocupam threads, só a requisição assíncrona e a fila;
+ * um comentário a cada batimento mantém proxies abertos e revela as que
+ * caíram. Cada instância só conhece as próprias escritas, como a
+ * {@link AderenciaEscrita}.
+ * <p>
+ * O envio é bloqueante: um cliente que não lê prende a thread até o timeout
+ * de escrita do contêiner. O envio que passa do limite encerra a conexão e o
+ * pool ganha uma thread no lugar da presa, devolvida quando o envio termina.
+ */
+@Component
+public class EventosUsuario implements DisposableBean {
+
+	static final String METRICA = "financas.eventos";
+	
+	private static final Object BATIMENTO = new Object();
+	
+	// threads que o pool pode ganhar no lugar de envios presos
+	static final int MAXIMO_SUBSTITUTAS = 64;
+	
+	private final ConcurrentMap<Long, Set<Conexao>> conexoes = new ConcurrentHashMap<>();
+	
+	private final AtomicInteger abertas = new AtomicInteger();
+	
+	private final Executor envio;
+	
+	private final ThreadPoolExecutor pool;
+	
+	private final AtomicInteger substitutas = new AtomicInteger();
+	
+	private final ScheduledExecutorService batimentos;
+	
+	private final int capacidadeFila;
+	
+	private final long timeout;
+	
+	private final long limiteEnvioNanos;
+	
+	private final Counter descartadas;
+	
+	private final Counter expiradas;
+	
+	@Autowired
+	public EventosUsuario(
+			@Value("${financas.eventos.threads:4}") int threads,
+			@Value("${financas.eventos.fila:32}") int capacidadeFila,
+			@Value("${financas.eventos.timeout-minutos:30}") long timeoutMinutos,
+			@Value("${financas.eventos.batimento-segundos:25}") long batimentoSegundos,
+			@Value("${financas.eventos.limite-envio-segundos:5}") long limiteEnvioSegundos,
+			ObjectProvider<MeterRegistry> registry) {
+		this(Executors.newFixedThreadPool(threads, fabrica("sse-")), capacidadeFila, TimeUnit.MINUTES.toMillis(timeoutMinutos),
+				TimeUnit.SECONDS.toMillis(limiteEnvioSegundos), registry.getIfAvailable());
+		
+		if(batimentoSegundos > 0) {
+			batimentos.scheduleWithFixedDelay(this::enviarBatimentos, batimentoSegundos, batimentoSegundos, TimeUnit.SECONDS);
+		}
+		if(limiteEnvioSegundos > 0) {
+			batimentos.scheduleWithFixedDelay(this::verificarEnvios, 1, 1, TimeUnit.SECONDS);
+		}
+	}
+	
+	EventosUsuario(Executor envio, int capacidadeFila, long timeout, long limiteEnvio, MeterRegistry registry) {
+		this.envio = envio;
+		this.pool = envio instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) envio : null;
+		this.batimentos = Executors.newSingleThreadScheduledExecutor(fabrica("sse-batimento-"));
+		this.capacidadeFila = capacidadeFila;
+		this.timeout = timeout;
+		this.limiteEnvioNanos = TimeUnit.MILLISECONDS.toNanos(limiteEnvio);
+		this.descartadas = registry == null ? null : registry.counter(METRICA + ".descartadas");
+		this.expiradas = registry == null ? null : registry.counter(METRICA + ".expiradas");
+		if(registry != null) {
+			registry.gauge(METRICA + ".conexoes", abertas);
+		}
+	}
+	
+	/**
+	 * Abre o fluxo do usuário. A mensagem inicial é montada depois da conexão
+	 * registrada, para nenhuma escrita cair entre as duas; por isso ela pode
+	 * chegar depois de uma alteração de versão maior, que o cliente ignora.
+	 */
+	public SseEmitter assinar(Long idUsuario, Supplier<AlteracoesUsuarioDTO> inicial) {
+		Conexao conexao = new Conexao(idUsuario, new SseEmitter(timeout));
+		conexao.emitter.onCompletion(() -> conexao.encerrar(false));
+		conexao.emitter.onError(erro -> conexao.encerrar(false));
+		conexao.emitter.onTimeout(() -> conexao.encerrar(true));
+		
+		abertas.incrementAndGet();
+		// dentro do compute, para não cair num conjunto que o encerrar de outra
+		// conexão acabou de tirar do mapa por ter ficado vazio
+		conexoes.compute(idUsuario, (id, doUsuario) -> {
+			Set<Conexao> conjunto = doUsuario == null ? ConcurrentHashMap.newKeySet() : doUsuario;
+			conjunto.add(conexao);
+			return conjunto;
+		});
+		
+		try {
+			conexao.enfileirar(inicial.get());
+		} catch (RuntimeException e) {
+			conexao.encerrar(false);
+			throw e;
+		}
+		return conexao.emitter;
+	}
+	
+	@TransactionalEventListener
+	public void publicar(LancamentosAlteradosEvent evento) {
+		if(conexoes.isEmpty()) {
+			return;
+		}
+		
+		evento.getSaldos().forEach((idUsuario, saldo) -> {
+			Set<Conexao> doUsuario = conexoes.get(idUsuario);
+			if(doUsuario != null && !doUsuario.isEmpty()) {
+				AlteracoesUsuarioDTO mensagem = new AlteracoesUsuarioDTO(saldo.getVersao(), lancamentosDe(evento, idUsuario), saldo);
+				doUsuario.forEach(conexao -> conexao.enfileirar(mensagem));
+			}
+		});
+	}
+	
+	public int conexoesAbertas() {
+		return abertas.get();
+	}
+	
+	@Override
+	public void destroy() {
+		batimentos.shutdownNow();
+		if(pool != null) {
+			pool.shutdownNow();
+		}
+		conexoes.values().forEach(doUsuario -> doUsuario.forEach(conexao -> conexao.encerrar(true)));
+	}
+	
+	void enviarBatimentos() {
+		// só quem não tem nada na fila; uma mensagem pendente já serve de batimento
+		conexoes.values().forEach(doUsuario -> doUsuario.forEach(conexao -> {
+			if(conexao.fila.isEmpty()) {
+				conexao.enfileirar(BATIMENTO);
+			}
+		}));
+	}
+	
+	void verificarEnvios() {
+		long agora = System.nanoTime();
+		conexoes.values().forEach(doUsuario -> doUsuario.forEach(conexao -> conexao.expirar(agora)));
+	}
+	
+	private boolean ampliarPool() {
+		if(pool == null) {
+			return false;
+		}
+		synchronized(pool) {
+			if(substitutas.get() >= MAXIMO_SUBSTITUTAS) {
+				return false;
+			}
+			substitutas.incrementAndGet();
+			pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+			pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+			return true;
+		}
+	}
+	
+	private void reduzirPool() {
+		synchronized(pool) {
+			substitutas.decrementAndGet();
+			pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+			pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+		}
+	}
+	
+	private static List<LancamentoAlteradoDTO> lancamentosDe(LancamentosAlteradosEvent evento, Long idUsuario) {
+		List<LancamentoAlteradoDTO> lancamentos = new ArrayList<>();
+		for(Alteracao alteracao : evento.getAlteracoes()) {
+			Lancamento lancamento = alteracao.getAtual() != null ? alteracao.getAtual() : alteracao.getAnterior();
+			if(pertence(alteracao.getAnterior(), idUsuario) || pertence(alteracao.getAtual(), idUsuario)) {
+				lancamentos.add(new LancamentoAlteradoDTO(lancamento.getId(), alteracao.getOperacao().name()));
+			}
+		}
+		return lancamentos;
+	}
+	
+	private static boolean pertence(Lancamento lancamento, Long idUsuario) {
+		return lancamento != null && lancamento.getUsuario() != null && idUsuario.equals(lancamento.getUsuario().getId());
+	}
+	
+	private static CustomizableThreadFactory fabrica(String prefixo) {
+		CustomizableThreadFactory fabrica = new CustomizableThreadFactory(prefixo);
+		fabrica.setDaemon(true);
+		return fabrica;
+	}
+	
+	private final class Conexao {
+		
+		private final Long idUsuario;
+		
+		private final SseEmitter emitter;
+		
+		private final BlockingQueue<Object> fila = new ArrayBlockingQueue<>(capacidadeFila);
+		
+		// no máximo um envio por conexão no pool, para as mensagens saírem em ordem
+		private final AtomicBoolean agendada = new AtomicBoolean();
+		
+		private final AtomicBoolean encerrada = new AtomicBoolean();
+		
+		// início (System.nanoTime) do envio em andamento, 0 sem envio; alterados sob o lock da conexão
+		private long inicioEnvio;
+		
+		private boolean expirada;
+		
+		private boolean substituida;
+		
+		Conexao(Long idUsuario, SseEmitter emitter) {
+			this.idUsuario = idUsuario;
+			this.emitter = emitter;
+		}
+		
+		void enfileirar(Object mensagem) {
+			if(encerrada.get()) {
+				return;
+			}
+			
+			if(!fila.offer(mensagem)) {
+				if(descartadas != null) {
+					descartadas.increment();
+				}
+				encerrar(true);
+				return;
+			}
+			agendar();
+		}
+		
+		private void agendar() {
+			if(agendada.compareAndSet(false, true)) {
+				try {
+					envio.execute(this::enviar);
+				} catch (RejectedExecutionException e) {
+					agendada.set(false);
+					encerrar(true);
+				}
+			}
+		}
+		
+		private void enviar() {
+			try {
+				Object mensagem;
+				while(!encerrada.get() && (mensagem = fila.poll()) != null) {
+					iniciarEnvio();
+					emitter.send(mensagem == BATIMENTO ? SseEmitter.event().comment("")
+							: SseEmitter.event().name("alteracao").data(mensagem, MediaType.APPLICATION_JSON));
+					terminarEnvio();
+				}
+			} catch (IOException | IllegalStateException e) {
+				// cliente desconectado; o contêiner encerra a requisição
+				encerrar(false);
+			} finally {
+				terminarEnvio();
+				agendada.set(false);
+			}
+			
+			if(liberarSubstituta()) {
+				return;
+			}
+			
+			// mensagem que chegou entre o último poll e a liberação acima
+			if(!fila.isEmpty() && !encerrada.get()) {
+				agendar();
+			}
+		}
+		
+		private synchronized void iniciarEnvio() {
+			inicioEnvio = System.nanoTime();
+		}
+		
+		private synchronized void terminarEnvio() {
+			inicioEnvio = 0;
+		}
+		
+		/**
+		 * Encerra a conexão cujo envio em andamento passou do limite. O
+		 * emitter só pode ser completado depois que o envio retornar, pela
+		 * própria thread do envio.
+		 */
+		synchronized void expirar(long agora) {
+			if(expirada || inicioEnvio == 0 || agora - inicioEnvio <= limiteEnvioNanos) {
+				return;
+			}
+			
+			expirada = true;
+			if(expiradas != null) {
+				expiradas.increment();
+			}
+			substituida = ampliarPool();
+			encerrar(false);
+		}
+		
+		private boolean liberarSubstituta() {
+			synchronized(this) {
+				if(!expirada) {
+					return false;
+				}
+				if(substituida) {
+					substituida = false;
+					reduzirPool();
+				}
+			}
+			try {
+				emitter.completeWithError(new TimeoutException("Envio acima do limite"));
+			} catch (IllegalStateException e) {
+				// já encerrado pelo contêiner
+			}
+			return true;
+		}
+		
+		void encerrar(boolean completar) {
+			if(!encerrada.compareAndSet(false, true)) {
+				return;
+			}
+			
+			abertas.decrementAndGet();
+			fila.clear();
+			conexoes.computeIfPresent(idUsuario, (id, doUsuario) -> {
+				doUsuario.remove(this);
+				return doUsuario.isEmpty() ? null : doUsuario;
+			});
+			if(completar) {
+				try {
+					emitter.complete();
+				} catch (IllegalStateException e) {
+					// já encerrado pelo contêiner
+				}
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,91 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Executa o trabalho dos handlers, que é quase todo JDBC.
+ * <p>
+ * Com financas.async.habilitado=true ele roda num pool do tamanho do pool de
+ * conexões, com fila limitada, e a thread do Tomcat é liberada. Com a fila
+ * cheia a requisição recebe 503 na hora. Desligado (padrão), roda na própria
+ * thread da requisição.
+ */
+@Component
+public class ExecutorRequisicoes implements DisposableBean {
+
+	static final String METRICA = "financas.async";
+	
+	private final Executor executor;
+	
+	private final ThreadPoolTaskExecutor pool;
+	
+	private final Counter rejeitadas;
+	
+	public ExecutorRequisicoes(
+			@Value("${financas.async.habilitado:false}") boolean habilitado,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanhoPool,
+			@Value("${financas.async.fila:100}") int tamanhoFila,
+			ObjectProvider<MeterRegistry> registry) {
+		
+		MeterRegistry meterRegistry = registry.getIfAvailable();
+		this.rejeitadas = meterRegistry == null ? null : meterRegistry.counter(METRICA + ".rejeitadas");
+		
+		if(!habilitado) {
+			this.pool = null;
+			this.executor = new SyncTaskExecutor();
+			return;
+		}
+		
+		// mais threads que conexões só deixariam threads esperando pelo Hikari
+		pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(tamanhoPool);
+		pool.setMaxPoolSize(tamanhoPool);
+		pool.setQueueCapacity(tamanhoFila);
+		pool.setThreadNamePrefix("jdbc-");
+		pool.setTaskDecorator(ContextoUsuario::propagar);
+		pool.initialize();
+		if(meterRegistry != null) {
+			new ExecutorServiceMetrics(pool.getThreadPoolExecutor(), METRICA, Tags.empty()).bindTo(meterRegistry);
+		}
+		this.executor = pool;
+	}
+	
+	public CompletableFuture<ResponseEntity> executar(Supplier<ResponseEntity> tarefa) {
+		try {
+			return CompletableFuture.supplyAsync(tarefa, executor);
+		} catch (RejectedExecutionException e) {
+			if(rejeitadas != null) {
+				rejeitadas.increment();
+			}
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, "1")
+					.body("Servidor ocupado, tente novamente em instantes."));
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if(pool != null) {
+			pool.shutdown();
+		}
+	}
+	
+}
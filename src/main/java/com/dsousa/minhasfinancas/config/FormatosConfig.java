@@ -0,0 +1,36 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Formatos binários da API, escolhidos pelo Accept nas respostas e pelo
+ * Content-Type nas requisições: application/cbor e application/x-jackson-smile,
+ * com a mesma configuração do ObjectMapper de JSON. Entram depois dos
+ * conversores padrão, então quem aceita qualquer tipo continua recebendo JSON.
+ */
+@Configuration
+public class FormatosConfig implements WebMvcConfigurer {
+
+	private final Jackson2ObjectMapperBuilder builder;
+	
+	public FormatosConfig(Jackson2ObjectMapperBuilder builder) {
+		this.builder = builder;
+	}
+	
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()));
+	}
+	
+}
@@ -0,0 +1,79 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.dsousa.minhasfinancas.service.JwtService;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Lê o token do cabeçalho Authorization e deixa o id do usuário, tirado das
+ * claims já verificadas, no atributo {@link #ATRIBUTO_ID_USUARIO} da
+ * requisição. Nenhuma consulta ao banco é feita.
+ */
+@Component
+public class JwtTokenFilter extends OncePerRequestFilter {
+
+	public static final String ATRIBUTO_ID_USUARIO = "idUsuarioAutenticado";
+	
+	private static final String PREFIXO = "Bearer ";
+	
+	private final JwtService jwtService;
+	
+	private final boolean obrigatorio;
+	
+	public JwtTokenFilter(JwtService jwtService, @Value("${jwt.obrigatorio:false}") boolean obrigatorio) {
+		this.jwtService = jwtService;
+		this.obrigatorio = obrigatorio;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		
+		if(authorization != null && authorization.startsWith(PREFIXO)) {
+			Long idUsuario;
+			try {
+				idUsuario = jwtService.obterIdUsuario(authorization.substring(PREFIXO.length()).trim());
+			} catch (JwtException | IllegalArgumentException e) {
+				idUsuario = null;
+			}
+			if(idUsuario == null) {
+				response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token inválido ou expirado.");
+				return;
+			}
+			request.setAttribute(ATRIBUTO_ID_USUARIO, idUsuario);
+		} else if(obrigatorio && exigeToken(request)) {
+			response.sendError(HttpStatus.UNAUTHORIZED.value(), "Informe o token de acesso.");
+			return;
+		}
+		
+		chain.doFilter(request, response);
+	}
+	
+	// cadastro e autenticação continuam abertos
+	private boolean exigeToken(HttpServletRequest request) {
+		String caminho = request.getRequestURI().substring(request.getContextPath().length());
+		if(!caminho.startsWith("/api/")) {
+			return false;
+		}
+		boolean cadastro = HttpMethod.POST.matches(request.getMethod())
+				&& (caminho.equals("/api/usuarios") || caminho.equals("/api/usuarios/autenticar"));
+		return !cadastro;
+	}
+	
+}
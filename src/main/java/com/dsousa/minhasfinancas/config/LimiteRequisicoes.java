@@ -0,0 +1,53 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Um {@link BaldeTokens} por chave. Os baldes ficam num cache do Caffeine e
+ * saem dele depois de parados o tempo de encher de novo, quando já não fariam
+ * diferença. O limite de tamanho protege a memória numa enxurrada de chaves;
+ * um balde despejado antes da hora só volta cheio.
+ */
+public class LimiteRequisicoes<K> {
+
+	private static final long MAXIMO_BALDES = 100_000;
+	
+	private final long intervaloNanos;
+	
+	private final long toleranciaNanos;
+	
+	private final LongSupplier relogio;
+	
+	private final Cache<K, BaldeTokens> baldes;
+	
+	public LimiteRequisicoes(int capacidade, double porSegundo, LongSupplier relogio) {
+		this.intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo);
+		this.toleranciaNanos = intervaloNanos * capacidade;
+		this.relogio = relogio;
+		this.baldes = Caffeine.newBuilder()
+				.expireAfterAccess(Duration.ofNanos(Math.max(toleranciaNanos, TimeUnit.SECONDS.toNanos(1))))
+				.maximumSize(MAXIMO_BALDES)
+				.build();
+	}
+	
+	/**
+	 * @return zero se a requisição pode seguir, senão os nanossegundos até o próximo token
+	 */
+	public long consumir(K chave) {
+		BaldeTokens balde = baldes.getIfPresent(chave);
+		if(balde == null) {
+			balde = baldes.get(chave, k -> new BaldeTokens(intervaloNanos, toleranciaNanos, relogio.getAsLong()));
+		}
+		return balde.consumir(relogio.getAsLong());
+	}
+	
+	public long quantidadeBaldes() {
+		return baldes.estimatedSize();
+	}
+	
+}
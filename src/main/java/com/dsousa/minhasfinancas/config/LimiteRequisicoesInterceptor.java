@@ -0,0 +1,79 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limita as requisições da API por usuário (ou por IP, sem usuário) e a
+ * autenticação por IP, respondendo 429 com Retry-After quando o balde esvazia.
+ * O usuário só vem do token verificado: o parâmetro usuario e o id do caminho
+ * são escolhidos pelo cliente e dariam um balde novo a cada requisição.
+ * O IP é o do request: atrás de proxy, configure server.forward-headers-strategy.
+ */
+public class LimiteRequisicoesInterceptor implements HandlerInterceptor {
+
+	static final String METRICA = "financas.limite.recusadas";
+	
+	private static final String AUTENTICACAO = "/api/usuarios/autenticar";
+	
+	private final LimiteRequisicoes<Object> porUsuario;
+	
+	private final LimiteRequisicoes<String> autenticacao;
+	
+	private final MeterRegistry registry;
+	
+	public LimiteRequisicoesInterceptor(LimiteRequisicoes<Object> porUsuario, LimiteRequisicoes<String> autenticacao,
+			MeterRegistry registry) {
+		this.porUsuario = porUsuario;
+		this.autenticacao = autenticacao;
+		this.registry = registry;
+	}
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+		// o despacho assíncrono é a mesma requisição, já contada
+		if(request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		
+		String tipo;
+		long espera;
+		if(ehAutenticacao(request)) {
+			tipo = "autenticacao";
+			espera = autenticacao.consumir(request.getRemoteAddr());
+		} else {
+			Long idUsuario = ContextoUsuarioInterceptor.obterIdAutenticado(request);
+			tipo = idUsuario == null ? "ip" : "usuario";
+			espera = porUsuario.consumir(idUsuario == null ? request.getRemoteAddr() : idUsuario);
+		}
+		if(espera == 0) {
+			return true;
+		}
+		
+		if(registry != null) {
+			registry.counter(METRICA, "tipo", tipo).increment();
+		}
+		long segundos = Math.max(1, (espera + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+		response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(),
+				"Muitas requisições, tente novamente em " + segundos + " s.");
+		return false;
+	}
+	
+	private boolean ehAutenticacao(HttpServletRequest request) {
+		return HttpMethod.POST.matches(request.getMethod())
+				&& request.getRequestURI().substring(request.getContextPath().length()).equals(AUTENTICACAO);
+	}
+	
+}
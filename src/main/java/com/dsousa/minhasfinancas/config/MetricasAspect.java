@@ -0,0 +1,94 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Mede toda chamada aos serviços e repositórios: um timer por classe,
+ * método e resultado, com histograma para o Prometheus, que calcula os
+ * percentis agregando as instâncias. A contagem do timer é o número de
+ * chamadas; com resultado=erro, o de falhas. Os timers são registrados uma
+ * vez e guardados, já que o aspecto roda em toda chamada.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricasAspect {
+
+	static final String METRICA = "financas.metodo";
+	
+	private static final String PACOTE = "com.dsousa.minhasfinancas";
+	
+	private final MeterRegistry registry;
+	
+	private final Map<Class<?>, String> nomes = new ConcurrentHashMap<>();
+	
+	private final Map<Chave, Timer> timers = new ConcurrentHashMap<>();
+	
+	@Value
+	private static class Chave {
+		
+		String classe;
+		String metodo;
+		String excecao;
+		
+	}
+	
+	@Around("(execution(* com.dsousa.minhasfinancas.service.impl..*(..)) "
+			+ "|| execution(* org.springframework.data.repository.Repository+.*(..)) "
+			+ "|| execution(* com.dsousa.minhasfinancas.model.repository..*(..))) "
+			// as implementações customizadas já são medidas pela interface do repositório
+			+ "&& !within(com.dsousa.minhasfinancas.model.repository.*Impl)")
+	public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+		long inicio = System.nanoTime();
+		String excecao = "nenhuma";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			excecao = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			timers.computeIfAbsent(new Chave(nomeDaClasse(joinPoint), joinPoint.getSignature().getName(), excecao), this::registrar)
+				.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	private Timer registrar(Chave chave) {
+		return Timer.builder(METRICA)
+				.tag("classe", chave.getClasse())
+				.tag("metodo", chave.getMetodo())
+				.tag("resultado", "nenhuma".equals(chave.getExcecao()) ? "sucesso" : "erro")
+				.tag("excecao", chave.getExcecao())
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+	
+	// repositórios são proxies do Spring Data: o nome útil é o da interface do projeto
+	private String nomeDaClasse(ProceedingJoinPoint joinPoint) {
+		return nomes.computeIfAbsent(joinPoint.getThis().getClass(), tipoProxy -> {
+			Class<?> alvo = AopUtils.getTargetClass(joinPoint.getTarget());
+			if(alvo.getName().startsWith(PACOTE)) {
+				return alvo.getSimpleName();
+			}
+			return ClassUtils.getAllInterfacesForClassAsSet(tipoProxy).stream()
+					.filter(interfaceProxy -> interfaceProxy.getName().startsWith(PACOTE))
+					.map(Class::getSimpleName)
+					.findFirst()
+					.orElse(alvo.getSimpleName());
+		});
+	}
+	
+}
@@ -0,0 +1,38 @@
+package com.dsousa.minhasfinancas.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+@Configuration
+public class MetricasConfig {
+
+	/**
+	 * Envolve o DataSource com o datasource-proxy para medir o tempo de cada
+	 * comando JDBC ({@link MetricasJdbcListener}).
+	 */
+	@Bean
+	public static BeanPostProcessor metricasJdbcPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		return new BeanPostProcessor() {
+			
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String nome) {
+				if(bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(nome, (DataSource) bean)
+							.listener(new MetricasJdbcListener(registry))
+							.build();
+				}
+				return bean;
+			}
+			
+		};
+	}
+	
+}
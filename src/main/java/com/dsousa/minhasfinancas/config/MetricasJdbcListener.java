@@ -0,0 +1,65 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/**
+ * Tempo de cada execução JDBC, por tipo de comando, lote e resultado, com
+ * histograma. Os poucos timers possíveis são registrados uma vez e guardados.
+ */
+public class MetricasJdbcListener implements QueryExecutionListener {
+
+	static final String METRICA = "financas.jdbc";
+	
+	private static final String INICIO = "inicio";
+	
+	// resolvido na primeira consulta: o DataSource é criado antes do registry
+	private final ObjectProvider<MeterRegistry> registry;
+	
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	
+	public MetricasJdbcListener(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		execInfo.addCustomValue(INICIO, System.nanoTime());
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		MeterRegistry meterRegistry = registry.getIfAvailable();
+		Long inicio = execInfo.getCustomValue(INICIO, Long.class);
+		if(meterRegistry == null || inicio == null) {
+			return;
+		}
+		
+		String tipo = queryInfoList.isEmpty()
+				? "other"
+				: QueryUtils.getQueryType(queryInfoList.get(0).getQuery()).name().toLowerCase();
+		
+		String lote = String.valueOf(execInfo.isBatch());
+		String resultado = execInfo.isSuccess() ? "sucesso" : "erro";
+		
+		timers.computeIfAbsent(tipo + '|' + lote + '|' + resultado, chave -> Timer.builder(METRICA)
+				.tag("tipo", tipo)
+				.tag("lote", lote)
+				.tag("resultado", resultado)
+				.publishPercentileHistogram()
+				.register(meterRegistry))
+			.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+	}
+	
+}
@@ -0,0 +1,97 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.jdbc.DataSourcePoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.metadata.HikariDataSourcePoolMetadata;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Réplica de leitura, ligada só quando financas.datasource.replica.jdbc-url é
+ * informada. O pool primário continua em spring.datasource.* e o da réplica
+ * fica em financas.datasource.replica.* (propriedades do Hikari). O Flyway
+ * migra apenas o primário; a réplica recebe o esquema pela replicação.
+ * <p>
+ * Os dois pools não são beans: com mais de um DataSource no contexto o
+ * inicializador do Spring Boot e o Flyway não teriam como escolher sem ciclo.
+ */
+@Configuration
+@ConditionalOnProperty("financas.datasource.replica.jdbc-url")
+public class ReplicaConfig implements DisposableBean {
+
+	private HikariDataSource primario;
+	
+	private HikariDataSource replica;
+	
+	@Bean
+	public AderenciaEscrita aderenciaEscrita(@Value("${financas.datasource.replica.aderencia-segundos:5}") long segundos) {
+		return new AderenciaEscrita(Duration.ofSeconds(segundos));
+	}
+	
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties propriedades, Environment environment,
+			AderenciaEscrita aderencia,
+			@Value("${financas.datasource.replica.espera-apos-falha-segundos:30}") long espera,
+			ObjectProvider<MeterRegistry> registry) {
+		
+		Binder binder = Binder.get(environment);
+		primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+		
+		replica = new HikariDataSource();
+		// réplica fora do ar na subida não impede a aplicação de subir
+		replica.setInitializationFailTimeout(-1);
+		replica.setConnectionTimeout(2000);
+		replica.setPoolName("replica");
+		binder.bind("financas.datasource.replica", Bindable.ofInstance(replica));
+		
+		return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica, aderencia,
+				Duration.ofSeconds(espera), registry::getIfAvailable));
+	}
+	
+	/**
+	 * Métricas jdbc.connections.* dos dois pools, que o Spring Boot só
+	 * registra sozinho para DataSources que são beans.
+	 */
+	@Bean
+	public MeterBinder metricasPools(DataSource dataSource) {
+		return registry -> {
+			new DataSourcePoolMetrics(primario, Collections.singleton(ds -> new HikariDataSourcePoolMetadata((HikariDataSource) ds)),
+					"primario", Tags.empty()).bindTo(registry);
+			new DataSourcePoolMetrics(replica, Collections.singleton(ds -> new HikariDataSourcePoolMetadata((HikariDataSource) ds)),
+					"replica", Tags.empty()).bindTo(registry);
+		};
+	}
+	
+	@Override
+	public void destroy() {
+		if(primario != null) {
+			primario.close();
+		}
+		if(replica != null) {
+			replica.close();
+		}
+	}
+	
+}
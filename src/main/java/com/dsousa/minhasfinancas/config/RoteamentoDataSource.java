@@ -0,0 +1,109 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Envia as transações somente leitura para a réplica e o resto para o
+ * primário. Precisa ficar atrás de um LazyConnectionDataSourceProxy: o
+ * readOnly da transação só é conhecido depois que ela começa, e o proxy só
+ * pede a conexão no primeiro comando.
+ * <p>
+ * A leitura vai ao primário quando o usuário da requisição escreveu dentro da
+ * janela de {@link AderenciaEscrita} ou quando a réplica falhou ao entregar
+ * uma conexão há menos que o tempo de espera.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+	private static final Logger log = LoggerFactory.getLogger(RoteamentoDataSource.class);
+	
+	static final String METRICA = "financas.datasource.replica";
+	
+	enum Destino {
+		PRIMARIO,
+		REPLICA
+	}
+	
+	private final DataSource primario;
+	
+	private final DataSource replica;
+	
+	private final AderenciaEscrita aderencia;
+	
+	private final long esperaNanos;
+	
+	// resolvido no uso: o DataSource é criado antes do registry
+	private final Supplier<MeterRegistry> registry;
+	
+	private volatile long replicaIndisponivelAte = System.nanoTime();
+	
+	public RoteamentoDataSource(DataSource primario, DataSource replica, AderenciaEscrita aderencia,
+			Duration esperaAposFalha, Supplier<MeterRegistry> registry) {
+		this.primario = primario;
+		this.replica = replica;
+		this.aderencia = aderencia;
+		this.esperaNanos = esperaAposFalha.toNanos();
+		this.registry = registry;
+		
+		Map<Object, Object> destinos = new HashMap<>();
+		destinos.put(Destino.PRIMARIO, primario);
+		destinos.put(Destino.REPLICA, replica);
+		setTargetDataSources(destinos);
+		setDefaultTargetDataSource(primario);
+		afterPropertiesSet();
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				|| System.nanoTime() - replicaIndisponivelAte < 0
+				|| aderencia.escreveuRecentemente(ContextoUsuario.obter())) {
+			return Destino.PRIMARIO;
+		}
+		return Destino.REPLICA;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		if(determineCurrentLookupKey() == Destino.PRIMARIO) {
+			return primario.getConnection();
+		}
+		try {
+			Connection conexao = replica.getConnection();
+			contar("sucesso");
+			return conexao;
+		} catch (SQLException e) {
+			replicaIndisponivelAte = System.nanoTime() + esperaNanos;
+			contar("falha");
+			log.warn("Réplica indisponível, leituras vão ao primário pelos próximos {} s: {}",
+					Duration.ofNanos(esperaNanos).getSeconds(), e.getMessage());
+			return primario.getConnection();
+		}
+	}
+	
+	boolean replicaDisponivel() {
+		return System.nanoTime() - replicaIndisponivelAte >= 0;
+	}
+	
+	// só as leituras na réplica: o primário é tocado já na subida, antes do registry
+	private void contar(String resultado) {
+		MeterRegistry meterRegistry = registry.get();
+		if(meterRegistry != null) {
+			meterRegistry.counter(METRICA, "resultado", resultado).increment();
+		}
+	}
+	
+}
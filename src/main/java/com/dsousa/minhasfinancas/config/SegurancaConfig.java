@@ -0,0 +1,21 @@
+package com.dsousa.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class SegurancaConfig {
+
+	/**
+	 * BCrypt com custo configurável: cada incremento dobra o tempo de
+	 * verificação de uma senha.
+	 */
+	@Bean
+	public PasswordEncoder passwordEncoder(@Value("${seguranca.senha.custo:10}") int custo) {
+		return new BCryptPasswordEncoder(custo);
+	}
+	
+}
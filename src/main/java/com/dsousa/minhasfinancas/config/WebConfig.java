@@ -0,0 +1,52 @@
+package com.dsousa.minhasfinancas.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Interceptadores dos handlers da API.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+	private final LimiteRequisicoesInterceptor limite;
+	
+	public WebConfig(
+			@Value("${financas.limite.habilitado:true}") boolean limiteHabilitado,
+			@Value("${financas.limite.usuario.capacidade:100}") int capacidadeUsuario,
+			@Value("${financas.limite.usuario.por-segundo:50}") double porSegundoUsuario,
+			@Value("${financas.limite.autenticacao.capacidade:10}") int capacidadeAutenticacao,
+			@Value("${financas.limite.autenticacao.por-segundo:1}") double porSegundoAutenticacao,
+			ObjectProvider<MeterRegistry> registry) {
+		
+		if(!limiteHabilitado) {
+			this.limite = null;
+			return;
+		}
+		LimiteRequisicoes<Object> porUsuario = new LimiteRequisicoes<>(capacidadeUsuario, porSegundoUsuario, System::nanoTime);
+		LimiteRequisicoes<String> autenticacao = new LimiteRequisicoes<>(capacidadeAutenticacao, porSegundoAutenticacao, System::nanoTime);
+		MeterRegistry meterRegistry = registry.getIfAvailable();
+		if(meterRegistry != null) {
+			Gauge.builder("financas.limite.baldes", porUsuario, LimiteRequisicoes::quantidadeBaldes)
+				.tag("tipo", "usuario").register(meterRegistry);
+			Gauge.builder("financas.limite.baldes", autenticacao, LimiteRequisicoes::quantidadeBaldes)
+				.tag("tipo", "autenticacao").register(meterRegistry);
+		}
+		this.limite = new LimiteRequisicoesInterceptor(porUsuario, autenticacao, meterRegistry);
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		if(limite != null) {
+			registry.addInterceptor(limite).addPathPatterns("/api/**");
+		}
+		registry.addInterceptor(new ContextoUsuarioInterceptor()).addPathPatterns("/api/**");
+	}
+	
+}
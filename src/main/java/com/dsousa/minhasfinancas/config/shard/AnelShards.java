@@ -0,0 +1,39 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hash consistente dos usuários nos shards, com nós virtuais. Ao passar de N
+ * para N+1 shards, só cerca de 1/(N+1) dos usuários muda de lugar, todos
+ * para o shard novo.
+ */
+final class AnelShards {
+
+	private static final int NOS_VIRTUAIS = 128;
+	
+	private final TreeMap<Long, Integer> anel = new TreeMap<>();
+	
+	AnelShards(int quantidade) {
+		for(int shard = 0; shard < quantidade; shard++) {
+			long base = misturar(shard + 1L);
+			for(int no = 0; no < NOS_VIRTUAIS; no++) {
+				anel.put(misturar(base + no), shard);
+			}
+		}
+	}
+	
+	int shardDe(long idUsuario) {
+		Map.Entry<Long, Integer> no = anel.ceilingEntry(misturar(idUsuario));
+		return (no != null ? no : anel.firstEntry()).getValue();
+	}
+	
+	// finalizador do SplitMix64: ids sequenciais se espalham pelo anel todo
+	private static long misturar(long valor) {
+		long x = valor + 0x9E3779B97F4A7C15L;
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+	
+}
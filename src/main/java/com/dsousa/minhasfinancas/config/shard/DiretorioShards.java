@@ -0,0 +1,127 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Onde estão os dados de cada usuário: tabela financas.diretorio_shard do
+ * shard 0, com cache curto em memória. Um usuário entra no diretório na
+ * primeira chamada que o envolve: no shard 0 se já tem lançamentos lá (dados
+ * de antes dos shards), senão no shard do hash consistente. Nos outros shards
+ * ele ganha só a linha em financas.usuario que a chave estrangeira exige e a
+ * linha de saldo zerada; nome, e-mail e senha ficam no shard 0.
+ */
+public class DiretorioShards {
+
+	@Getter
+	@AllArgsConstructor
+	public static class Localizacao {
+		
+		private final int shard;
+		private final boolean emMigracao;
+		
+	}
+	
+	private static final Localizacao PRINCIPAL = new Localizacao(0, false);
+	
+	private final Shards shards;
+	
+	private final JdbcTemplate principal;
+	
+	private final Cache<Long, Localizacao> cache;
+	
+	public DiretorioShards(Shards shards, Duration validadeCache) {
+		this.shards = shards;
+		this.principal = new JdbcTemplate(shards.dataSource(0));
+		this.cache = Caffeine.newBuilder()
+				.expireAfterWrite(validadeCache)
+				.maximumSize(100_000)
+				.build();
+	}
+	
+	public Localizacao localizar(Long idUsuario) {
+		Localizacao localizacao = cache.get(idUsuario, this::carregar);
+		return localizacao == null ? PRINCIPAL : localizacao;
+	}
+	
+	/**
+	 * Grava o shard do usuário. Outras instâncias só veem a mudança quando o
+	 * cache delas expira.
+	 */
+	public void definir(Long idUsuario, int shard, boolean emMigracao) {
+		principal.update("update financas.diretorio_shard set shard = ?, em_migracao = ? where id_usuario = ?",
+				shard, emMigracao, idUsuario);
+		cache.invalidate(idUsuario);
+	}
+	
+	List<Long> listarUsuarios() {
+		return principal.queryForList("select id_usuario from financas.diretorio_shard order by id_usuario", Long.class);
+	}
+	
+	private Localizacao carregar(Long idUsuario) {
+		Localizacao registrada = consultar(idUsuario);
+		if(registrada != null) {
+			return registrada;
+		}
+		
+		// usuário inexistente não é registrado: a escrita falha pela chave estrangeira do shard 0
+		if(principal.queryForObject("select count(*) from financas.usuario where id = ?", Integer.class, idUsuario) == 0) {
+			return null;
+		}
+		
+		Integer temLancamentos = principal.queryForObject(
+				"select case when exists (select 1 from financas.lancamento where id_usuario = ?) then 1 else 0 end",
+				Integer.class, idUsuario);
+		int shard = temLancamentos == 1 ? 0 : shards.shardPorHash(idUsuario);
+		if(shard != 0) {
+			criarUsuario(shard, idUsuario);
+			// sem lançamentos, o saldo criado no cadastro no shard 0 é só zeros
+			principal.update("delete from financas.saldo where id_usuario = ?", idUsuario);
+		}
+		
+		try {
+			principal.update("insert into financas.diretorio_shard (id_usuario, shard, em_migracao) values (?, ?, ?)",
+					idUsuario, shard, false);
+			return new Localizacao(shard, false);
+		} catch (DuplicateKeyException e) {
+			// outra instância registrou antes
+			return consultar(idUsuario);
+		}
+	}
+	
+	private Localizacao consultar(Long idUsuario) {
+		List<Localizacao> registradas = principal.query(
+				"select shard, em_migracao from financas.diretorio_shard where id_usuario = ?",
+				(rs, linha) -> new Localizacao(rs.getInt(1), rs.getBoolean(2)), idUsuario);
+		return registradas.isEmpty() ? null : registradas.get(0);
+	}
+	
+	void criarUsuario(int shard, Long idUsuario) {
+		JdbcTemplate jdbc = new JdbcTemplate(shards.dataSource(shard));
+		if(jdbc.queryForObject("select count(*) from financas.usuario where id = ?", Integer.class, idUsuario) == 0) {
+			try {
+				jdbc.update("insert into financas.usuario (id) values (?)", idUsuario);
+			} catch (DuplicateKeyException e) {
+				// criada em paralelo
+			}
+		}
+		if(jdbc.queryForObject("select count(*) from financas.saldo where id_usuario = ?", Integer.class, idUsuario) == 0) {
+			try {
+				jdbc.update("insert into financas.saldo (id_usuario, receitas_efetivadas, receitas_pendentes, receitas_canceladas,"
+						+ " despesas_efetivadas, despesas_pendentes, despesas_canceladas, versao) values (?, 0, 0, 0, 0, 0, 0, 0)", idUsuario);
+			} catch (DuplicateKeyException e) {
+				// criada em paralelo
+			}
+		}
+	}
+	
+}
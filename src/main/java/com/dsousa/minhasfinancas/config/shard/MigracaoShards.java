@@ -0,0 +1,163 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Move os dados de um usuário entre shards, com o usuário marcado em
+ * migração (escritas recusadas) do começo ao fim:
+ * <ol>
+ * <li>marca e espera os caches do diretório expirarem, para todas as instâncias pararem de escrever;</li>
+ * <li>copia as tabelas do usuário para o destino numa transação, apagando antes o que uma tentativa anterior deixou;</li>
+ * <li>aponta o diretório para o destino e espera de novo, até ninguém mais ler da origem;</li>
+ * <li>apaga os dados da origem.</li>
+ * </ol>
+ * Interrompida em qualquer ponto, basta rodar de novo. Os ids dos lançamentos
+ * são mantidos: cada shard gera ids numa faixa própria.
+ */
+public class MigracaoShards {
+
+	private static final Logger log = LoggerFactory.getLogger(MigracaoShards.class);
+	
+	// na ordem de cópia; a remoção segue a ordem inversa por causa da chave estrangeira
+	static final List<String> TABELAS = Collections.unmodifiableList(
+			Arrays.asList("lancamento", "lancamento_termo", "saldo", "resumo_mensal",
+					"lancamento_arquivado", "ano_arquivado", "recorrencia"));
+	
+	private static final int TAMANHO_BLOCO = 500;
+	
+	private final Shards shards;
+	
+	private final DiretorioShards diretorio;
+	
+	private final Duration espera;
+	
+	public MigracaoShards(Shards shards, DiretorioShards diretorio, Duration espera) {
+		this.shards = shards;
+		this.diretorio = diretorio;
+		this.espera = espera;
+	}
+	
+	public void mover(Long idUsuario, int destino) {
+		if(destino < 0 || destino >= shards.quantidade()) {
+			throw new IllegalArgumentException("Shard inexistente: " + destino);
+		}
+		int origem = diretorio.localizar(idUsuario).getShard();
+		if(origem == destino) {
+			diretorio.definir(idUsuario, destino, false);
+			return;
+		}
+		
+		log.info("Movendo o usuário {} do shard {} para o {}", idUsuario, origem, destino);
+		diretorio.definir(idUsuario, origem, true);
+		aguardar();
+		
+		if(destino != 0) {
+			diretorio.criarUsuario(destino, idUsuario);
+		}
+		emTransacao(destino, jdbc -> {
+			remover(jdbc, idUsuario);
+			JdbcTemplate jdbcOrigem = new JdbcTemplate(shards.dataSource(origem));
+			TABELAS.forEach(tabela -> copiar(jdbcOrigem, jdbc, tabela, idUsuario));
+		});
+		
+		diretorio.definir(idUsuario, destino, false);
+		aguardar();
+		
+		emTransacao(origem, jdbc -> {
+			remover(jdbc, idUsuario);
+			if(origem != 0) {
+				jdbc.update("delete from financas.usuario where id = ?", idUsuario);
+			}
+		});
+		log.info("Usuário {} movido para o shard {}", idUsuario, destino);
+	}
+	
+	/**
+	 * Move para o shard do hash consistente quem está em outro lugar, por
+	 * exemplo depois de acrescentar um shard.
+	 */
+	public int rebalancear() {
+		int movidos = 0;
+		for(Long idUsuario : diretorio.listarUsuarios()) {
+			int destino = shards.shardPorHash(idUsuario);
+			if(diretorio.localizar(idUsuario).getShard() != destino) {
+				mover(idUsuario, destino);
+				movidos++;
+			}
+		}
+		return movidos;
+	}
+	
+	private void copiar(JdbcTemplate origem, JdbcTemplate destino, String tabela, Long idUsuario) {
+		List<Object[]> bloco = new ArrayList<>();
+		String[] insert = new String[1];
+		origem.query("select * from financas." + tabela + " where id_usuario = ?", rs -> {
+			ResultSetMetaData metadados = rs.getMetaData();
+			int colunas = metadados.getColumnCount();
+			if(insert[0] == null) {
+				insert[0] = insert(tabela, metadados);
+			}
+			Object[] linha = new Object[colunas];
+			for(int i = 0; i < colunas; i++) {
+				linha[i] = rs.getObject(i + 1);
+			}
+			bloco.add(linha);
+			if(bloco.size() == TAMANHO_BLOCO) {
+				destino.batchUpdate(insert[0], bloco);
+				bloco.clear();
+			}
+		}, idUsuario);
+		if(!bloco.isEmpty()) {
+			destino.batchUpdate(insert[0], bloco);
+		}
+	}
+	
+	private static String insert(String tabela, ResultSetMetaData metadados) throws SQLException {
+		StringBuilder colunas = new StringBuilder();
+		StringBuilder valores = new StringBuilder();
+		for(int i = 1; i <= metadados.getColumnCount(); i++) {
+			if(i > 1) {
+				colunas.append(", ");
+				valores.append(", ");
+			}
+			colunas.append(metadados.getColumnName(i));
+			valores.append('?');
+		}
+		return "insert into financas." + tabela + " (" + colunas + ") values (" + valores + ")";
+	}
+	
+	private static void remover(JdbcTemplate jdbc, Long idUsuario) {
+		for(int i = TABELAS.size() - 1; i >= 0; i--) {
+			jdbc.update("delete from financas." + TABELAS.get(i) + " where id_usuario = ?", idUsuario);
+		}
+	}
+	
+	private void emTransacao(int shard, Consumer<JdbcTemplate> trabalho) {
+		JdbcTemplate jdbc = new JdbcTemplate(shards.dataSource(shard));
+		new TransactionTemplate(new DataSourceTransactionManager(shards.dataSource(shard)))
+			.executeWithoutResult(status -> trabalho.accept(jdbc));
+	}
+	
+	private void aguardar() {
+		try {
+			Thread.sleep(espera.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Migração interrompida", e);
+		}
+	}
+	
+}
@@ -0,0 +1,204 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.config.ContextoUsuario;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+
+/**
+ * Escolhe o shard das chamadas aos serviços {@link PorUsuario} antes da
+ * transação abrir (por isso a maior precedência). O usuário vem do parâmetro
+ * {@link IdUsuario}, dos lançamentos ou recorrências recebidos ou do
+ * {@link ContextoUsuario}; sem nenhum deles a chamada vai ao shard 0. Chamadas aninhadas, como os
+ * listeners dentro da transação da escrita, ficam no shard de quem chamou.
+ * Escritas de um usuário em migração são recusadas. Com uma coleção de ids
+ * no parâmetro {@link IdUsuario}, o método roda uma vez em cada shard
+ * envolvido, só com os ids dele, e os mapas devolvidos são unidos.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardAspect {
+
+	static final String EM_MIGRACAO = "Os dados do usuário estão sendo movidos, tente novamente em instantes.";
+	
+	private final Shards shards;
+	
+	private final DiretorioShards diretorio;
+	
+	// posição do parâmetro @IdUsuario de cada método, ou -1
+	private final Map<Method, Integer> parametros = new ConcurrentHashMap<>();
+	
+	public ShardAspect(Shards shards, DiretorioShards diretorio) {
+		this.shards = shards;
+		this.diretorio = diretorio;
+	}
+	
+	@Around("execution(public * *(..)) && (@within(com.dsousa.minhasfinancas.service.PorUsuario) "
+			+ "|| @annotation(com.dsousa.minhasfinancas.service.PorUsuario))")
+	public Object rotear(ProceedingJoinPoint joinPoint) throws Throwable {
+		if(ShardAtual.obter() != null) {
+			return joinPoint.proceed();
+		}
+		
+		Method metodo = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(),
+				AopUtils.getTargetClass(joinPoint.getTarget()));
+		PorUsuario anotacao = AnnotatedElementUtils.findMergedAnnotation(metodo, PorUsuario.class);
+		boolean procurarEmTodos = anotacao != null && anotacao.procurarEmTodos();
+		
+		int posicao = parametros.computeIfAbsent(metodo, ShardAspect::posicaoIdUsuario);
+		if(posicao >= 0 && joinPoint.getArgs()[posicao] instanceof Collection) {
+			return dividirPorShard(joinPoint, posicao);
+		}
+		
+		Long idUsuario = obterIdUsuario(metodo, joinPoint.getArgs());
+		if(idUsuario == null && procurarEmTodos) {
+			return procurarEmTodos(joinPoint);
+		}
+		
+		int shard = 0;
+		if(idUsuario != null) {
+			DiretorioShards.Localizacao localizacao = diretorio.localizar(idUsuario);
+			if(localizacao.isEmMigracao() && !procurarEmTodos && escreve(metodo)) {
+				throw new RegraNegocioException(EM_MIGRACAO);
+			}
+			shard = localizacao.getShard();
+		}
+		return executar(shard, joinPoint);
+	}
+	
+	private Object procurarEmTodos(ProceedingJoinPoint joinPoint) throws Throwable {
+		Object resultado = Optional.empty();
+		for(int shard = 0; shard < shards.quantidade(); shard++) {
+			resultado = executar(shard, joinPoint);
+			if(!(resultado instanceof Optional) || ((Optional<?>) resultado).isPresent()) {
+				return resultado;
+			}
+		}
+		return resultado;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Object dividirPorShard(ProceedingJoinPoint joinPoint, int posicao) throws Throwable {
+		Map<Integer, List<Long>> idsPorShard = new TreeMap<>();
+		for(Object idUsuario : (Collection<?>) joinPoint.getArgs()[posicao]) {
+			idsPorShard.computeIfAbsent(diretorio.localizar((Long) idUsuario).getShard(), shard -> new ArrayList<>())
+				.add((Long) idUsuario);
+		}
+		if(idsPorShard.isEmpty()) {
+			return executar(0, joinPoint);
+		}
+		
+		Map<Object, Object> resultado = new LinkedHashMap<>();
+		for(Map.Entry<Integer, List<Long>> doShard : idsPorShard.entrySet()) {
+			Object[] argumentos = joinPoint.getArgs().clone();
+			argumentos[posicao] = doShard.getValue();
+			ShardAtual.definir(doShard.getKey());
+			try {
+				resultado.putAll((Map<Object, Object>) joinPoint.proceed(argumentos));
+			} finally {
+				ShardAtual.limpar();
+			}
+		}
+		return resultado;
+	}
+	
+	private Object executar(int shard, ProceedingJoinPoint joinPoint) throws Throwable {
+		ShardAtual.definir(shard);
+		try {
+			return joinPoint.proceed();
+		} finally {
+			ShardAtual.limpar();
+		}
+	}
+	
+	private Long obterIdUsuario(Method metodo, Object[] argumentos) {
+		int posicao = parametros.computeIfAbsent(metodo, ShardAspect::posicaoIdUsuario);
+		if(posicao >= 0 && argumentos[posicao] != null) {
+			return (Long) argumentos[posicao];
+		}
+		for(Object argumento : argumentos) {
+			if(argumento instanceof Lancamento) {
+				Long idUsuario = idUsuario((Lancamento) argumento);
+				if(idUsuario != null) {
+					return idUsuario;
+				}
+			} else if(argumento instanceof Recorrencia) {
+				Recorrencia recorrencia = (Recorrencia) argumento;
+				if(recorrencia.getUsuario() != null && recorrencia.getUsuario().getId() != null) {
+					return recorrencia.getUsuario().getId();
+				}
+			} else if(argumento instanceof Collection) {
+				Long idUsuario = idUsuarioDoLote((Collection<?>) argumento);
+				if(idUsuario != null) {
+					return idUsuario;
+				}
+			}
+		}
+		return ContextoUsuario.obter();
+	}
+	
+	// um lote roda numa transação só, logo num shard só
+	private Long idUsuarioDoLote(Collection<?> lote) {
+		Long primeiro = null;
+		int shard = -1;
+		for(Object item : lote) {
+			Long idUsuario = item instanceof Lancamento ? idUsuario((Lancamento) item) : null;
+			if(idUsuario == null) {
+				continue;
+			}
+			int shardDoItem = diretorio.localizar(idUsuario).getShard();
+			if(primeiro == null) {
+				primeiro = idUsuario;
+				shard = shardDoItem;
+			} else if(shardDoItem != shard) {
+				throw new RegraNegocioException("O lote tem lançamentos de usuários em bancos diferentes; envie um lote por usuário.");
+			}
+		}
+		return primeiro;
+	}
+	
+	private static Long idUsuario(Lancamento lancamento) {
+		return lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
+	}
+	
+	private static int posicaoIdUsuario(Method metodo) {
+		Annotation[][] anotacoes = metodo.getParameterAnnotations();
+		for(int i = 0; i < anotacoes.length; i++) {
+			for(Annotation anotacao : anotacoes[i]) {
+				if(anotacao instanceof IdUsuario) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+	
+	private static boolean escreve(Method metodo) {
+		Transactional transacao = AnnotatedElementUtils.findMergedAnnotation(metodo, Transactional.class);
+		return transacao == null || !transacao.readOnly();
+	}
+	
+}
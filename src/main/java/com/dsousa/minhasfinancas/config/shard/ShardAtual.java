@@ -0,0 +1,42 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard da chamada em andamento, definido pelo {@link ShardAspect} antes de a
+ * transação abrir e lido pelo {@link ShardDataSource} ao pedir a conexão.
+ */
+public final class ShardAtual {
+
+	private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+	
+	private ShardAtual() {
+	}
+	
+	public static Integer obter() {
+		return SHARD.get();
+	}
+	
+	/**
+	 * Executa a chamada inteira no shard informado. Serve às varreduras que
+	 * não pertencem a um usuário, como a geração de recorrências; os
+	 * serviços chamados dentro dela ficam no mesmo shard.
+	 */
+	public static <T> T executar(int shard, Supplier<T> chamada) {
+		definir(shard);
+		try {
+			return chamada.get();
+		} finally {
+			limpar();
+		}
+	}
+	
+	static void definir(int shard) {
+		SHARD.set(shard);
+	}
+	
+	static void limpar() {
+		SHARD.remove();
+	}
+	
+}
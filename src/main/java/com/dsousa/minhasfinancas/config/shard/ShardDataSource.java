@@ -0,0 +1,30 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Entrega a conexão do {@link ShardAtual}; fora de um serviço por usuário,
+ * a do shard 0, que também guarda os usuários e o diretório.
+ */
+public class ShardDataSource extends AbstractRoutingDataSource {
+
+	public ShardDataSource(Shards shards) {
+		Map<Object, Object> destinos = new HashMap<>();
+		for(int i = 0; i < shards.quantidade(); i++) {
+			destinos.put(i, shards.dataSource(i));
+		}
+		setTargetDataSources(destinos);
+		setDefaultTargetDataSource(shards.dataSource(0));
+		afterPropertiesSet();
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer shard = ShardAtual.obter();
+		return shard == null ? 0 : shard;
+	}
+	
+}
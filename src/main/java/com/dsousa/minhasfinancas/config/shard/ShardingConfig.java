@@ -0,0 +1,123 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.jdbc.DataSourcePoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.boot.jdbc.metadata.HikariDataSourcePoolMetadata;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Lançamentos e dados derivados divididos por usuário entre vários bancos,
+ * ligado quando financas.shards.adicionais[0].jdbc-url é informada. O shard 0
+ * é o spring.datasource, que continua com os usuários e o diretório; os
+ * demais vêm de financas.shards.adicionais[n] (propriedades do Hikari) e são
+ * migrados aqui pelo Flyway, com o esquema completo e a faixa de ids própria
+ * de db/shard. Não combina com a réplica de leitura.
+ * <p>
+ * Como na réplica, os pools não são beans, para o Spring Boot e o Flyway
+ * enxergarem um DataSource só.
+ */
+@Configuration
+@ConditionalOnProperty("financas.shards.adicionais[0].jdbc-url")
+public class ShardingConfig implements DisposableBean {
+
+	// 2^40 ids por shard; o Hibernate reserva blocos de ids de qualquer shard, mas os blocos nunca se repetem
+	static final long FAIXA_IDS = 1L << 40;
+	
+	private final List<HikariDataSource> pools = new ArrayList<>();
+	
+	@Bean
+	public Shards shards(DataSourceProperties propriedades, FlywayProperties flyway, Environment environment) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource principal = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(principal));
+		principal.setPoolName("shard-0");
+		pools.add(principal);
+		
+		List<HikariConfig> adicionais = binder.bind("financas.shards.adicionais", Bindable.listOf(HikariConfig.class)).get();
+		for(HikariConfig configuracao : adicionais) {
+			int shard = pools.size();
+			configuracao.setPoolName("shard-" + shard);
+			HikariDataSource pool = new HikariDataSource(configuracao);
+			pools.add(pool);
+			migrar(pool, shard, flyway);
+		}
+		return new Shards(pools);
+	}
+	
+	@Bean
+	@Primary
+	public DataSource dataSource(Shards shards) {
+		return new ShardDataSource(shards);
+	}
+	
+	@Bean
+	public DiretorioShards diretorioShards(Shards shards,
+			@Value("${financas.shards.cache-diretorio-segundos:5}") long validade) {
+		return new DiretorioShards(shards, Duration.ofSeconds(validade));
+	}
+	
+	@Bean
+	public ShardAspect shardAspect(Shards shards, DiretorioShards diretorio) {
+		return new ShardAspect(shards, diretorio);
+	}
+	
+	@Bean
+	public MigracaoShards migracaoShards(Shards shards, DiretorioShards diretorio,
+			// um segundo a mais que o cache, para transações já abertas terminarem
+			@Value("${financas.shards.espera-migracao-segundos:6}") long espera) {
+		return new MigracaoShards(shards, diretorio, Duration.ofSeconds(espera));
+	}
+	
+	@Bean
+	public MeterBinder metricasShards(Shards shards) {
+		return registry -> {
+			for(int i = 0; i < pools.size(); i++) {
+				new DataSourcePoolMetrics(pools.get(i), Collections.singleton(ds -> new HikariDataSourcePoolMetadata((HikariDataSource) ds)),
+						"shard-" + i, Tags.empty()).bindTo(registry);
+			}
+		};
+	}
+	
+	@Override
+	public void destroy() {
+		pools.forEach(HikariDataSource::close);
+	}
+	
+	private static void migrar(HikariDataSource pool, int shard, FlywayProperties flyway) {
+		String banco = DatabaseDriver.fromJdbcUrl(pool.getJdbcUrl()).getId();
+		Flyway.configure()
+			.dataSource(pool)
+			.locations("classpath:db/migration/" + banco, "classpath:db/shard/" + banco)
+			.schemas(flyway.getSchemas().toArray(new String[0]))
+			.baselineOnMigrate(flyway.isBaselineOnMigrate())
+			.baselineVersion(flyway.getBaselineVersion())
+			.placeholders(Collections.singletonMap("inicioIds", String.valueOf(shard * FAIXA_IDS + 1)))
+			.load()
+			.migrate();
+	}
+	
+}
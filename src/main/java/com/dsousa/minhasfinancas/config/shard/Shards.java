@@ -0,0 +1,38 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Os bancos de lançamentos, na ordem da configuração: o 0 é o
+ * spring.datasource e os seguintes vêm de financas.shards.adicionais.
+ */
+public class Shards {
+
+	private final List<DataSource> dataSources;
+	
+	private final AnelShards anel;
+	
+	public Shards(List<? extends DataSource> dataSources) {
+		this.dataSources = new ArrayList<>(dataSources);
+		this.anel = new AnelShards(dataSources.size());
+	}
+	
+	public int quantidade() {
+		return dataSources.size();
+	}
+	
+	public DataSource dataSource(int shard) {
+		return dataSources.get(shard);
+	}
+	
+	/**
+	 * Shard que o hash consistente dá ao usuário; o diretório pode dizer outro.
+	 */
+	public int shardPorHash(long idUsuario) {
+		return anel.shardDe(idUsuario);
+	}
+	
+}
@@ -0,0 +1,109 @@
+package com.dsousa.minhasfinancas.manutencao;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.dsousa.minhasfinancas.config.shard.ShardAtual;
+import com.dsousa.minhasfinancas.config.shard.Shards;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.service.RecorrenciaService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gera os lançamentos das recorrências vencidas de todos os usuários em uma
+ * passada em segundo plano: as recorrências são lidas em blocos pela chave
+ * (id) e cada bloco é gerado e confirmado em sua própria transação. Rodar de
+ * novo depois de uma falha só continua de onde parou. Um bloco que falha é
+ * refeito com uma transação por recorrência: só as que falham de novo ficam
+ * para a próxima passada, e a geração segue com os blocos seguintes. Com
+ * shards, cada shard é percorrido separadamente.
+ * <p>
+ * A geração roda em todas as instâncias; o bloqueio com skip locked das
+ * recorrências divide os blocos entre elas.
+ */
+@Component
+@RequiredArgsConstructor
+public class GeracaoRecorrencias {
+
+	private static final Logger log = LoggerFactory.getLogger(GeracaoRecorrencias.class);
+	
+	static final int TAMANHO_BLOCO = 200;
+	
+	private final RecorrenciaService recorrenciaService;
+	
+	private final ObjectProvider<Shards> shards;
+	
+	@Scheduled(cron = "${financas.recorrencias.cron:0 30 0 * * *}")
+	public void gerarVencidas() {
+		gerar(YearMonth.now());
+	}
+	
+	public int gerar(YearMonth ate) {
+		int competencia = Recorrencia.competencia(ate.getYear(), ate.getMonthValue());
+		long inicio = System.nanoTime();
+		
+		Shards todos = shards.getIfAvailable();
+		int blocos = 0;
+		if(todos == null) {
+			blocos = gerarBlocos(competencia);
+		} else {
+			for(int shard = 0; shard < todos.quantidade(); shard++) {
+				blocos += ShardAtual.executar(shard, () -> gerarBlocos(competencia));
+			}
+		}
+		
+		log.info("Recorrências geradas até {} em {} blocos ({} ms)", ate, blocos, (System.nanoTime() - inicio) / 1_000_000);
+		return blocos;
+	}
+	
+	private int gerarBlocos(int competencia) {
+		int blocos = 0;
+		Long ultimoId = 0L;
+		try {
+			while(true) {
+				Long fimDoBloco;
+				try {
+					fimDoBloco = recorrenciaService.gerarBloco(ultimoId, competencia, TAMANHO_BLOCO);
+				} catch (RuntimeException e) {
+					log.error("Falha no bloco de recorrências depois do id {} no shard {}; gerando uma a uma",
+							ultimoId, ShardAtual.obter(), e);
+					fimDoBloco = gerarUmaAUma(ultimoId, competencia);
+				}
+				if(fimDoBloco == null) {
+					return blocos;
+				}
+				blocos++;
+				ultimoId = fimDoBloco;
+			}
+		} catch (RuntimeException e) {
+			// sem nem listar o bloco (ex.: banco fora), não há como seguir neste shard
+			log.error("Geração de recorrências interrompida no shard {} depois do id {}", ShardAtual.obter(), ultimoId, e);
+			return blocos;
+		}
+	}
+	
+	/**
+	 * Refaz o bloco que começa depois de {@code ultimoId}, uma recorrência
+	 * por transação, e devolve o último id dele (nulo se não há mais vencidas).
+	 */
+	private Long gerarUmaAUma(Long ultimoId, int competencia) {
+		List<Long> ids = recorrenciaService.listarIdsVencidas(ultimoId, competencia, TAMANHO_BLOCO);
+		for(Long id : ids) {
+			try {
+				// bloco de uma só recorrência, começando nela
+				recorrenciaService.gerarBloco(id - 1, competencia, 1);
+			} catch (RuntimeException e) {
+				log.error("Recorrência {} não gerada no shard {}", id, ShardAtual.obter(), e);
+			}
+		}
+		return ids.isEmpty() ? null : ids.get(ids.size() - 1);
+	}
+	
+}
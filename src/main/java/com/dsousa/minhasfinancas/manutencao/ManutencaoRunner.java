@@ -0,0 +1,146 @@
+package com.dsousa.minhasfinancas.manutencao;
+
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.dsousa.minhasfinancas.config.shard.MigracaoShards;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
+import com.dsousa.minhasfinancas.service.ArquivoService;
+import com.dsousa.minhasfinancas.service.IndiceBuscaService;
+import com.dsousa.minhasfinancas.service.ResumoMensalService;
+import com.dsousa.minhasfinancas.service.SaldoService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comandos de manutenção executados na inicialização da aplicação, por exemplo:
+ * java -jar minhasfinancas.jar --reconstruir-saldos --reindexar-lancamentos --reconstruir-resumos
+ * <p>
+ * --arquivar-lancamentos[=&lt;anos em aberto&gt;] move para o arquivo os lançamentos
+ * dos anos fechados, mantendo em aberto o ano corrente e o anterior por padrão.
+ * --gerar-recorrencias gera na hora os lançamentos das recorrências vencidas.
+ * <p>
+ * Com shards: --mover-usuario=&lt;id&gt;:&lt;shard&gt; move os dados de um usuário e
+ * --rebalancear-shards leva cada usuário ao shard do hash consistente.
+ */
+@Component
+@RequiredArgsConstructor
+public class ManutencaoRunner implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(ManutencaoRunner.class);
+	
+	private static final int ANOS_EM_ABERTO = 2;
+	
+	private final UsuarioRepository usuarioRepository;
+	
+	private final SaldoService saldoService;
+	
+	private final IndiceBuscaService indiceBuscaService;
+	
+	private final ResumoMensalService resumoMensalService;
+	
+	private final ArquivoService arquivoService;
+	
+	private final GeracaoRecorrencias geracaoRecorrencias;
+	
+	private final ObjectProvider<MigracaoShards> migracaoShards;
+	
+	@Override
+	public void run(ApplicationArguments args) {
+		if(args.containsOption("reconstruir-saldos")) {
+			reconstruirSaldos();
+		}
+		
+		if(args.containsOption("reindexar-lancamentos")) {
+			reindexarLancamentos();
+		}
+		
+		if(args.containsOption("reconstruir-resumos")) {
+			reconstruirResumos();
+		}
+		
+		if(args.containsOption("arquivar-lancamentos")) {
+			List<String> valores = args.getOptionValues("arquivar-lancamentos");
+			arquivarLancamentos(valores.isEmpty() ? ANOS_EM_ABERTO : Integer.parseInt(valores.get(0)));
+		}
+		
+		if(args.containsOption("gerar-recorrencias")) {
+			geracaoRecorrencias.gerar(YearMonth.now());
+		}
+		
+		if(args.containsOption("mover-usuario")) {
+			args.getOptionValues("mover-usuario").forEach(this::moverUsuario);
+		}
+		
+		if(args.containsOption("rebalancear-shards")) {
+			rebalancearShards();
+		}
+	}
+	
+	private void reconstruirSaldos() {
+		List<Long> usuarios = usuarioRepository.listarIds();
+		log.info("Reconstruindo o saldo de {} usuários", usuarios.size());
+		
+		// uma transação por usuário, para não manter bloqueios durante toda a carga
+		usuarios.forEach(saldoService::reconstruir);
+		
+		log.info("Saldos reconstruídos");
+	}
+	
+	private void reindexarLancamentos() {
+		List<Long> usuarios = usuarioRepository.listarIds();
+		log.info("Reindexando os lançamentos de {} usuários", usuarios.size());
+		usuarios.forEach(indiceBuscaService::reindexar);
+		log.info("Lançamentos reindexados");
+	}
+	
+	private void reconstruirResumos() {
+		List<Long> usuarios = usuarioRepository.listarIds();
+		log.info("Reconstruindo o resumo mensal de {} usuários", usuarios.size());
+		usuarios.forEach(resumoMensalService::reconstruir);
+		log.info("Resumos mensais reconstruídos");
+	}
+	
+	private void arquivarLancamentos(int anosEmAberto) {
+		int anoLimite = Year.now().getValue() - Math.max(1, anosEmAberto) + 1;
+		List<Long> usuarios = usuarioRepository.listarIds();
+		log.info("Arquivando os lançamentos anteriores a {} de {} usuários", anoLimite, usuarios.size());
+		
+		long arquivados = 0;
+		for(Long idUsuario : usuarios) {
+			arquivados += arquivoService.arquivar(idUsuario, anoLimite);
+		}
+		log.info("{} lançamentos arquivados", arquivados);
+	}
+	
+	private void moverUsuario(String usuarioEShard) {
+		String[] partes = usuarioEShard.split(":");
+		if(partes.length != 2) {
+			throw new IllegalArgumentException("Use --mover-usuario=<id>:<shard>");
+		}
+		obterMigracao().mover(Long.valueOf(partes[0]), Integer.parseInt(partes[1]));
+	}
+	
+	private void rebalancearShards() {
+		log.info("Rebalanceando os usuários entre os shards");
+		int movidos = obterMigracao().rebalancear();
+		log.info("{} usuários movidos", movidos);
+	}
+	
+	private MigracaoShards obterMigracao() {
+		MigracaoShards migracao = migracaoShards.getIfAvailable();
+		if(migracao == null) {
+			throw new IllegalStateException("Não há shards configurados (financas.shards.adicionais)");
+		}
+		return migracao;
+	}
+	
+}
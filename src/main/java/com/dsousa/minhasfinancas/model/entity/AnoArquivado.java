@@ -0,0 +1,48 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ano de um usuário cujos lançamentos foram para o arquivo. Anos até o
+ * maior arquivado ficam fechados para escrita.
+ */
+@Entity
+@Table(name = "ano_arquivado", schema = "financas")
+@IdClass(AnoArquivado.Chave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnoArquivado {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Id
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Column(name = "quantidade")
+	private Long quantidade;
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Chave implements Serializable {
+		
+		private Long idUsuario;
+		private Integer ano;
+		
+	}
+	
+}
@@ -8,25 +8,38 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+/**
+ * Atualizações gravam apenas as colunas alteradas (ex.: só o status).
+ */
 @Entity
 @Table(name = "lancamento", schema = "financas")
+@DynamicUpdate
 @Data
 @Builder
 @AllArgsConstructor
@@ -35,7 +48,12 @@ public class Lancamento {
 
 	@Id
 	@Column
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+	@GenericGenerator(name = "lancamento_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "schema", value = "financas"),
+			@Parameter(name = "sequence_name", value = "lancamento_seq"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private Long id;
 	
 	@Column
@@ -48,7 +66,7 @@ public class Lancamento {
 	private Integer ano;
 	
 	@JoinColumn(name = "id_usuario")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Usuario usuario;
 	
 	@Column
@@ -65,6 +83,41 @@ public class Lancamento {
 	@Column(name = "status")
 	@Enumerated(EnumType.STRING)
 	private StatusLancamento status;
-
+	
+	/**
+	 * Recorrência que gerou o lançamento, se houver.
+	 */
+	@Column(name = "id_recorrencia")
+	private Long idRecorrencia;
+	
+	/**
+	 * Cópia do estado lido do banco, usada pelo serviço para calcular a
+	 * diferença aplicada às tabelas derivadas (ex.: saldo) em uma atualização.
+	 */
+	@Transient
+	@JsonIgnore
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Lancamento estadoPersistido;
+	
+	@PostLoad
+	public void registrarEstadoPersistido() {
+		this.estadoPersistido = copiar();
+	}
+	
+	public Lancamento copiar() {
+		return Lancamento.builder()
+				.id(id)
+				.descricao(descricao)
+				.mes(mes)
+				.ano(ano)
+				.usuario(usuario)
+				.valor(valor)
+				.dataCadastro(dataCadastro)
+				.tipo(tipo)
+				.status(status)
+				.idRecorrencia(idRecorrencia)
+				.build();
+	}
 		
 }
@@ -0,0 +1,88 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lançamento de um ano já fechado, guardado fora da tabela de lançamentos.
+ * Mantém o id original e nunca é alterado; só é lido quando a busca pede
+ * um ano arquivado.
+ */
+@Entity
+@Table(name = "lancamento_arquivado", schema = "financas")
+@Immutable
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LancamentoArquivado {
+
+	@Id
+	@Column
+	private Long id;
+	
+	@Column
+	private String descricao;
+	
+	@Column
+	private Integer mes;
+	
+	@Column
+	private Integer ano;
+	
+	@JoinColumn(name = "id_usuario")
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Usuario usuario;
+	
+	@Column
+	private BigDecimal valor;
+	
+	@Column(name = "data_cadastro")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataCadastro;
+	
+	@Column(name = "tipo", length = 20)
+	@Enumerated(EnumType.STRING)
+	private TipoLancamento tipo;
+	
+	@Column(name = "status", length = 20)
+	@Enumerated(EnumType.STRING)
+	private StatusLancamento status;
+	
+	public Lancamento paraLancamento() {
+		return Lancamento.builder()
+				.id(id)
+				.descricao(descricao)
+				.mes(mes)
+				.ano(ano)
+				.usuario(usuario)
+				.valor(valor)
+				.dataCadastro(dataCadastro)
+				.tipo(tipo)
+				.status(status)
+				.build();
+	}
+	
+}
@@ -0,0 +1,66 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.springframework.data.domain.Persistable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada do índice invertido de busca: um termo normalizado da descrição
+ * de um lançamento. A chave começa pelo usuário, então toda busca fica
+ * restrita às entradas de um único usuário.
+ */
+@Entity
+@Table(name = "lancamento_termo", schema = "financas")
+@IdClass(LancamentoTermo.Chave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LancamentoTermo implements Persistable<LancamentoTermo.Chave> {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Id
+	@Column(name = "termo", length = 60)
+	private String termo;
+	
+	@Id
+	@Column(name = "id_lancamento")
+	private Long idLancamento;
+	
+	@Override
+	public Chave getId() {
+		return new Chave(idUsuario, termo, idLancamento);
+	}
+	
+	/**
+	 * Termos só são inseridos ou removidos, nunca alterados.
+	 */
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Chave implements Serializable {
+		
+		private Long idUsuario;
+		private String termo;
+		private Long idLancamento;
+		
+	}
+	
+}
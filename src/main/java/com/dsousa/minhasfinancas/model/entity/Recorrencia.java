@@ -0,0 +1,109 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.dsousa.minhasfinancas.model.enumered.FrequenciaRecorrencia;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Modelo de um lançamento que se repete a cada {@link FrequenciaRecorrencia}.
+ * Competências são meses contados como ano * 12 + mes - 1; a próxima
+ * competência a gerar fica nula quando a recorrência se encerra.
+ */
+@Entity
+@Table(name = "recorrencia", schema = "financas")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Recorrencia {
+
+	@Id
+	@Column
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recorrencia_seq")
+	@GenericGenerator(name = "recorrencia_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "schema", value = "financas"),
+			@Parameter(name = "sequence_name", value = "recorrencia_seq"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
+	private Long id;
+	
+	@Column
+	private String descricao;
+	
+	@JoinColumn(name = "id_usuario")
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Usuario usuario;
+	
+	@Column
+	private BigDecimal valor;
+	
+	@Column(name = "tipo", length = 20)
+	@Enumerated(EnumType.STRING)
+	private TipoLancamento tipo;
+	
+	@Column(name = "frequencia", length = 20)
+	@Enumerated(EnumType.STRING)
+	private FrequenciaRecorrencia frequencia;
+	
+	@Column(name = "competencia_inicio")
+	private Integer competenciaInicio;
+	
+	@Column(name = "competencia_fim")
+	private Integer competenciaFim;
+	
+	@Column(name = "proxima_competencia")
+	private Integer proximaCompetencia;
+	
+	public static int competencia(int ano, int mes) {
+		return ano * 12 + mes - 1;
+	}
+	
+	public static int ano(int competencia) {
+		return competencia / 12;
+	}
+	
+	public static int mes(int competencia) {
+		return competencia % 12 + 1;
+	}
+	
+	/**
+	 * Lançamento pendente desta recorrência na competência informada.
+	 */
+	public Lancamento gerarLancamento(int competencia) {
+		return Lancamento.builder()
+				.descricao(descricao)
+				.mes(mes(competencia))
+				.ano(ano(competencia))
+				.usuario(usuario)
+				.valor(valor)
+				.dataCadastro(LocalDate.now())
+				.tipo(tipo)
+				.status(StatusLancamento.PENDENTE)
+				.idRecorrencia(id)
+				.build();
+	}
+	
+}
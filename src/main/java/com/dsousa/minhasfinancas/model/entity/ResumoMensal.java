@@ -0,0 +1,81 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total e quantidade dos lançamentos de um usuário em um mês, por tipo e
+ * status. A chave começa pelo usuário e pelo período, então o relatório de
+ * um intervalo de anos é uma leitura contígua da chave primária.
+ */
+@Entity
+@Table(name = "resumo_mensal", schema = "financas")
+@IdClass(ResumoMensal.Chave.class)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoMensal {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Id
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Id
+	@Column(name = "mes")
+	private Integer mes;
+	
+	@Id
+	@Column(name = "tipo", length = 20)
+	@Enumerated(EnumType.STRING)
+	private TipoLancamento tipo;
+	
+	@Id
+	@Column(name = "status", length = 20)
+	@Enumerated(EnumType.STRING)
+	private StatusLancamento status;
+	
+	@Column(name = "valor")
+	private BigDecimal valor;
+	
+	@Column(name = "quantidade")
+	private Long quantidade;
+	
+	public Chave getChave() {
+		return new Chave(idUsuario, ano, mes, tipo, status);
+	}
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Chave implements Serializable {
+		
+		private Long idUsuario;
+		private Integer ano;
+		private Integer mes;
+		private TipoLancamento tipo;
+		private StatusLancamento status;
+		
+	}
+	
+}
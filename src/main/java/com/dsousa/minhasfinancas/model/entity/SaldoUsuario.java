@@ -0,0 +1,68 @@
+package com.dsousa.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "saldo", schema = "financas")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SaldoUsuario {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "receitas_efetivadas")
+	private BigDecimal receitasEfetivadas;
+	
+	@Column(name = "receitas_pendentes")
+	private BigDecimal receitasPendentes;
+	
+	@Column(name = "receitas_canceladas")
+	private BigDecimal receitasCanceladas;
+	
+	@Column(name = "despesas_efetivadas")
+	private BigDecimal despesasEfetivadas;
+	
+	@Column(name = "despesas_pendentes")
+	private BigDecimal despesasPendentes;
+	
+	@Column(name = "despesas_canceladas")
+	private BigDecimal despesasCanceladas;
+	
+	/**
+	 * Incrementada a cada escrita em lançamentos do usuário, mesmo as que não
+	 * mudam os totais; é a base do ETag das consultas do usuário.
+	 */
+	@Column(name = "versao")
+	private Long versao;
+	
+	/**
+	 * Linha de um usuário sem lançamentos, criada junto com o usuário.
+	 */
+	public static SaldoUsuario zerado(Long idUsuario) {
+		return SaldoUsuario.builder()
+				.idUsuario(idUsuario)
+				.receitasEfetivadas(BigDecimal.ZERO)
+				.receitasPendentes(BigDecimal.ZERO)
+				.receitasCanceladas(BigDecimal.ZERO)
+				.despesasEfetivadas(BigDecimal.ZERO)
+				.despesasPendentes(BigDecimal.ZERO)
+				.despesasCanceladas(BigDecimal.ZERO)
+				.versao(0L)
+				.build();
+	}
+	
+}
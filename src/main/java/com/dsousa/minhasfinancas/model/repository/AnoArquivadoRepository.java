@@ -0,0 +1,22 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.model.entity.AnoArquivado;
+
+public interface AnoArquivadoRepository extends JpaRepository<AnoArquivado, AnoArquivado.Chave> {
+
+	@Query(value = " select a.ano from AnoArquivado a where a.idUsuario = :idUsuario order by a.ano ")
+	List<Integer> listarAnos(@Param("idUsuario") Long idUsuario);
+	
+	/**
+	 * Maior ano arquivado do usuário, ou nulo quando nada foi arquivado.
+	 */
+	@Query(value = " select max(a.ano) from AnoArquivado a where a.idUsuario = :idUsuario ")
+	Integer obterUltimoAno(@Param("idUsuario") Long idUsuario);
+	
+}
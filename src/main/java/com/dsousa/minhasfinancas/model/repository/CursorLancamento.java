@@ -0,0 +1,46 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Posição de uma página na ordenação (ano, mes, id) dos lançamentos.
+ * Trafega para o cliente como um token opaco em base64.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorLancamento {
+
+	private final Integer ano;
+	private final Integer mes;
+	private final Long id;
+	
+	public static CursorLancamento de(LancamentoDTO lancamento) {
+		return new CursorLancamento(lancamento.getAno(), lancamento.getMes(), lancamento.getId());
+	}
+	
+	public static CursorLancamento decodificar(String token) {
+		if(token == null || token.trim().isEmpty()) {
+			return null;
+		}
+		
+		try {
+			String[] partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+			return new CursorLancamento(Integer.valueOf(partes[0]), Integer.valueOf(partes[1]), Long.valueOf(partes[2]));
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new RegraNegocioException("Cursor de paginação inválido.");
+		}
+	}
+	
+	public String codificar() {
+		String valor = ano + ":" + mes + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+	}
+	
+}
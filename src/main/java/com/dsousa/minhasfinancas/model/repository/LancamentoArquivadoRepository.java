@@ -0,0 +1,57 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.LancamentoArquivado;
+import com.dsousa.minhasfinancas.model.entity.ResumoMensal;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+
+public interface LancamentoArquivadoRepository extends JpaRepository<LancamentoArquivado, Long> {
+
+	/**
+	 * Copia para o arquivo, com um único insert ... select no banco, os
+	 * lançamentos do usuário no ano informado que ainda estão na tabela de
+	 * lançamentos. Devolve a quantidade copiada.
+	 */
+	@Modifying
+	@Query(value = " insert into LancamentoArquivado (id, descricao, mes, ano, usuario, valor, dataCadastro, tipo, status) "
+			+ " select l.id, l.descricao, l.mes, l.ano, l.usuario, l.valor, l.dataCadastro, l.tipo, l.status "
+			+ " from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano ")
+	int copiarAno(@Param("idUsuario") Long idUsuario, @Param("ano") Integer ano);
+	
+	/**
+	 * Mesma agregação de {@link LancamentoRepository#obterTotaisPorUsuario},
+	 * sobre os lançamentos arquivados.
+	 */
+	@Query(value = " select new com.dsousa.minhasfinancas.api.DTO.SaldoDTO( "
+			+ " sum(case when l.tipo = :receita and l.status = :efetivado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :receita and (l.status = :pendente or l.status is null) then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :receita and l.status = :cancelado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and l.status = :efetivado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and (l.status = :pendente or l.status is null) then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and l.status = :cancelado then l.valor else 0 end)) "
+			+ " from LancamentoArquivado l where l.usuario.id = :idUsuario ")
+	SaldoDTO obterTotaisPorUsuario(@Param("idUsuario") Long idUsuario,
+			@Param("receita") TipoLancamento receita, @Param("despesa") TipoLancamento despesa,
+			@Param("efetivado") StatusLancamento efetivado, @Param("pendente") StatusLancamento pendente,
+			@Param("cancelado") StatusLancamento cancelado);
+	
+	default SaldoDTO obterSaldoPorUsuario(Long idUsuario) {
+		return obterTotaisPorUsuario(idUsuario, TipoLancamento.RECEITA, TipoLancamento.DESPESA,
+				StatusLancamento.EFETIVADO, StatusLancamento.PENDENTE, StatusLancamento.CANCELADO);
+	}
+	
+	@Query(value = " select new com.dsousa.minhasfinancas.model.entity.ResumoMensal( "
+			+ " l.usuario.id, l.ano, l.mes, l.tipo, l.status, sum(l.valor), count(l)) "
+			+ " from LancamentoArquivado l where l.usuario.id = :idUsuario "
+			+ " group by l.usuario.id, l.ano, l.mes, l.tipo, l.status ")
+	List<ResumoMensal> obterResumoMensalPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+}
@@ -1,17 +1,88 @@
 package com.dsousa.minhasfinancas.model.repository;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.ResumoMensal;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long>{
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, LancamentoRepositoryCustom {
 
-	@Query(value = " select sum(l.valor) from Lancamento l join l.usuario u where u.id = :idUsuario and l.tipo= :tipo group by u ")
-	BigDecimal obterSaldoPorTipoLancamentoEUsuario(@Param("idUsuario") Long idUsuario, @Param("tipo") TipoLancamento tipo);
+	List<Lancamento> findByUsuarioId(Long idUsuario);
+	
+	/**
+	 * Lançamento lido com bloqueio, para que atualizações concorrentes do
+	 * mesmo lançamento calculem a diferença do saldo uma de cada vez.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query(value = " select l from Lancamento l where l.id = :id ")
+	Optional<Lancamento> obterParaAtualizacao(@Param("id") Long id);
+	
+	/**
+	 * Colunas do lançamento lidas com bloqueio e sem carregar a entidade nem
+	 * o usuário, para a troca de status calcular a diferença das tabelas
+	 * derivadas antes do update.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query(value = " select new com.dsousa.minhasfinancas.api.DTO.LancamentoDTO( "
+			+ " l.id, l.descricao, l.mes, l.ano, l.valor, l.usuario.id, l.tipo, l.status) "
+			+ " from Lancamento l where l.id = :id ")
+	Optional<LancamentoDTO> obterParaAtualizacaoDeStatus(@Param("id") Long id);
+	
+	@Modifying
+	@Query(value = " update Lancamento l set l.status = :status where l.id = :id and l.usuario.id = :idUsuario ")
+	int atualizarStatus(@Param("id") Long id, @Param("idUsuario") Long idUsuario, @Param("status") StatusLancamento status);
+	
+	/**
+	 * Agrega, em uma única leitura dos lançamentos do usuário, o total de cada
+	 * combinação de tipo e status. Lançamentos sem status contam como pendentes.
+	 */
+	@Query(value = " select new com.dsousa.minhasfinancas.api.DTO.SaldoDTO( "
+			+ " sum(case when l.tipo = :receita and l.status = :efetivado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :receita and (l.status = :pendente or l.status is null) then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :receita and l.status = :cancelado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and l.status = :efetivado then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and (l.status = :pendente or l.status is null) then l.valor else 0 end), "
+			+ " sum(case when l.tipo = :despesa and l.status = :cancelado then l.valor else 0 end)) "
+			+ " from Lancamento l where l.usuario.id = :idUsuario ")
+	SaldoDTO obterTotaisPorUsuario(@Param("idUsuario") Long idUsuario,
+			@Param("receita") TipoLancamento receita, @Param("despesa") TipoLancamento despesa,
+			@Param("efetivado") StatusLancamento efetivado, @Param("pendente") StatusLancamento pendente,
+			@Param("cancelado") StatusLancamento cancelado);
+	
+	default SaldoDTO obterSaldoPorUsuario(Long idUsuario) {
+		return obterTotaisPorUsuario(idUsuario, TipoLancamento.RECEITA, TipoLancamento.DESPESA,
+				StatusLancamento.EFETIVADO, StatusLancamento.PENDENTE, StatusLancamento.CANCELADO);
+	}
+	
+	/**
+	 * Total e quantidade dos lançamentos do usuário por mês, tipo e status,
+	 * usados na reconstrução do resumo mensal. O status pode vir nulo.
+	 */
+	@Query(value = " select new com.dsousa.minhasfinancas.model.entity.ResumoMensal( "
+			+ " l.usuario.id, l.ano, l.mes, l.tipo, l.status, sum(l.valor), count(l)) "
+			+ " from Lancamento l where l.usuario.id = :idUsuario "
+			+ " group by l.usuario.id, l.ano, l.mes, l.tipo, l.status ")
+	List<ResumoMensal> obterResumoMensalPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = " select distinct l.ano from Lancamento l "
+			+ " where l.usuario.id = :idUsuario and l.ano < :anoLimite order by l.ano ")
+	List<Integer> listarAnosAnteriores(@Param("idUsuario") Long idUsuario, @Param("anoLimite") Integer anoLimite);
+	
+	@Modifying
+	@Query(value = " delete from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano ")
+	int removerPorAno(@Param("idUsuario") Long idUsuario, @Param("ano") Integer ano);
 	
 }
@@ -0,0 +1,44 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+
+public interface LancamentoRepositoryCustom {
+
+	/**
+	 * Busca até {@code limite} lançamentos do usuário do filtro em ordem de
+	 * (ano, mes, id), começando logo após o cursor informado (ou do início
+	 * quando nulo). Não executa contagem e projeta apenas as colunas do
+	 * lançamento, sem carregar o usuário.
+	 */
+	List<LancamentoDTO> buscarPagina(Lancamento filtro, CursorLancamento cursor, int limite);
+	
+	/**
+	 * Mesma busca de {@link #buscarPagina}, sobre os lançamentos arquivados.
+	 */
+	List<LancamentoDTO> buscarPaginaArquivada(Lancamento filtro, CursorLancamento cursor, int limite);
+	
+	/**
+	 * Percorre todos os lançamentos do usuário em ordem de (ano, mes, id)
+	 * sem carregá-los de uma vez: as linhas são lidas do cursor JDBC em
+	 * blocos de {@code tamanhoBloco} e cada entidade é desanexada depois de
+	 * entregue ao consumidor. Deve ser chamado dentro de uma transação.
+	 */
+	void percorrerPorUsuario(Long idUsuario, int tamanhoBloco, Consumer<Lancamento> consumidor);
+	
+	/**
+	 * Mesmo percurso de {@link #percorrerPorUsuario}, sobre os lançamentos
+	 * arquivados, entregues como {@link Lancamento}.
+	 */
+	void percorrerArquivadosPorUsuario(Long idUsuario, int tamanhoBloco, Consumer<Lancamento> consumidor);
+	
+	/**
+	 * Envia ao banco as escritas pendentes e esvazia o contexto de
+	 * persistência, para que cargas grandes não acumulem entidades gerenciadas.
+	 */
+	void descarregar();
+	
+}
@@ -0,0 +1,114 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.jpa.QueryHints;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.LancamentoArquivado;
+
+public class LancamentoRepositoryImpl implements LancamentoRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public List<LancamentoDTO> buscarPagina(Lancamento filtro, CursorLancamento cursor, int limite) {
+		return buscarPagina(Lancamento.class, filtro, cursor, limite);
+	}
+	
+	@Override
+	public List<LancamentoDTO> buscarPaginaArquivada(Lancamento filtro, CursorLancamento cursor, int limite) {
+		return buscarPagina(LancamentoArquivado.class, filtro, cursor, limite);
+	}
+	
+	private List<LancamentoDTO> buscarPagina(Class<?> entidade, Lancamento filtro, CursorLancamento cursor, int limite) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDTO> query = cb.createQuery(LancamentoDTO.class);
+		Root<?> root = query.from(entidade);
+		
+		Path<Integer> ano = root.get("ano");
+		Path<Integer> mes = root.get("mes");
+		Path<Long> id = root.get("id");
+		
+		List<Predicate> predicados = new ArrayList<>();
+		predicados.add(cb.equal(root.get("usuario").get("id"), filtro.getUsuario().getId()));
+		
+		if(filtro.getDescricao() != null) {
+			predicados.add(cb.like(cb.lower(root.get("descricao")), "%" + filtro.getDescricao().toLowerCase() + "%"));
+		}
+		if(filtro.getAno() != null) {
+			predicados.add(cb.equal(ano, filtro.getAno()));
+		}
+		if(filtro.getMes() != null) {
+			predicados.add(cb.equal(mes, filtro.getMes()));
+		}
+		if(filtro.getTipo() != null) {
+			predicados.add(cb.equal(root.get("tipo"), filtro.getTipo()));
+		}
+		if(filtro.getStatus() != null) {
+			predicados.add(cb.equal(root.get("status"), filtro.getStatus()));
+		}
+		
+		if(cursor != null) {
+			predicados.add(cb.or(
+					cb.greaterThan(ano, cursor.getAno()),
+					cb.and(cb.equal(ano, cursor.getAno()), cb.greaterThan(mes, cursor.getMes())),
+					cb.and(cb.equal(ano, cursor.getAno()), cb.equal(mes, cursor.getMes()), cb.greaterThan(id, cursor.getId()))));
+		}
+		
+		query.select(cb.construct(LancamentoDTO.class, id, root.get("descricao"), mes, ano, root.get("valor"),
+					root.get("usuario").get("id"), root.get("tipo"), root.get("status")))
+			.where(predicados.toArray(new Predicate[0]))
+			.orderBy(cb.asc(ano), cb.asc(mes), cb.asc(id));
+		
+		return entityManager.createQuery(query)
+				.setMaxResults(limite)
+				.getResultList();
+	}
+	
+	@Override
+	public void percorrerPorUsuario(Long idUsuario, int tamanhoBloco, Consumer<Lancamento> consumidor) {
+		percorrer(" select l from Lancamento l where l.usuario.id = :idUsuario order by l.ano, l.mes, l.id ",
+				Lancamento.class, idUsuario, tamanhoBloco, consumidor);
+	}
+	
+	@Override
+	public void percorrerArquivadosPorUsuario(Long idUsuario, int tamanhoBloco, Consumer<Lancamento> consumidor) {
+		percorrer(" select l from LancamentoArquivado l where l.usuario.id = :idUsuario order by l.ano, l.mes, l.id ",
+				LancamentoArquivado.class, idUsuario, tamanhoBloco, arquivado -> consumidor.accept(arquivado.paraLancamento()));
+	}
+	
+	private <T> void percorrer(String jpql, Class<T> entidade, Long idUsuario, int tamanhoBloco, Consumer<T> consumidor) {
+		try (Stream<T> lancamentos = entityManager.createQuery(jpql, entidade)
+				.setParameter("idUsuario", idUsuario)
+				.setHint(QueryHints.HINT_FETCH_SIZE, tamanhoBloco)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.getResultStream()) {
+			
+			lancamentos.forEach(lancamento -> {
+				consumidor.accept(lancamento);
+				entityManager.detach(lancamento);
+			});
+		}
+	}
+	
+	@Override
+	public void descarregar() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+	
+}
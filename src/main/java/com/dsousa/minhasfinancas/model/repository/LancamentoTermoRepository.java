@@ -0,0 +1,40 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.model.entity.LancamentoTermo;
+
+public interface LancamentoTermoRepository extends JpaRepository<LancamentoTermo, LancamentoTermo.Chave> {
+
+	@Modifying
+	@Query(value = " delete from LancamentoTermo t where t.idLancamento in :idsLancamento ")
+	void removerPorLancamentos(@Param("idsLancamento") Collection<Long> idsLancamento);
+	
+	@Modifying
+	@Query(value = " delete from LancamentoTermo t where t.idUsuario = :idUsuario ")
+	void removerPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Modifying
+	@Query(value = " delete from LancamentoTermo t where t.idUsuario = :idUsuario and t.idLancamento in "
+			+ " (select l.id from Lancamento l where l.usuario.id = :idUsuario and l.ano = :ano) ")
+	void removerPorAno(@Param("idUsuario") Long idUsuario, @Param("ano") Integer ano);
+	
+	/**
+	 * Ids dos lançamentos do usuário que contêm algum dos termos, do que
+	 * contém mais termos para o que contém menos.
+	 */
+	@Query(value = " select t.idLancamento from LancamentoTermo t, Lancamento l "
+			+ " where l.id = t.idLancamento and t.idUsuario = :idUsuario and t.termo in :termos "
+			+ " and (:ano is null or l.ano = :ano) and (:mes is null or l.mes = :mes) "
+			+ " group by t.idLancamento order by count(t.termo) desc, t.idLancamento desc ")
+	List<Long> pesquisar(@Param("idUsuario") Long idUsuario, @Param("termos") Collection<String> termos,
+			@Param("ano") Integer ano, @Param("mes") Integer mes, Pageable pageable);
+	
+}
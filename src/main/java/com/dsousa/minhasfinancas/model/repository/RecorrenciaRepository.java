@@ -0,0 +1,42 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+
+public interface RecorrenciaRepository extends JpaRepository<Recorrencia, Long> {
+
+	List<Recorrencia> findByUsuarioIdOrderById(Long idUsuario);
+	
+	/**
+	 * Próximo bloco de recorrências com competência vencida, em ordem de id a
+	 * partir de {@code ultimoId}. As linhas ficam bloqueadas até o fim da
+	 * transação e as já bloqueadas por outra geração são puladas (skip locked,
+	 * nos bancos que suportam), então duas instâncias não pegam o mesmo bloco.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = AvailableSettings.JPA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+	@Query(value = " select r from Recorrencia r "
+			+ " where r.id > :ultimoId and r.proximaCompetencia <= :competencia order by r.id ")
+	List<Recorrencia> listarVencidas(@Param("ultimoId") Long ultimoId, @Param("competencia") Integer competencia, Pageable pageable);
+	
+	/**
+	 * Ids do mesmo bloco de {@link #listarVencidas}, sem bloqueio.
+	 */
+	@Query(value = " select r.id from Recorrencia r "
+			+ " where r.id > :ultimoId and r.proximaCompetencia <= :competencia order by r.id ")
+	List<Long> listarIdsVencidas(@Param("ultimoId") Long ultimoId, @Param("competencia") Integer competencia, Pageable pageable);
+	
+}
@@ -0,0 +1,26 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.model.entity.ResumoMensal;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensal.Chave> {
+
+	@Query(value = " select new com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO(r.ano, r.mes, r.tipo, r.status, r.valor, r.quantidade) "
+			+ " from ResumoMensal r where r.idUsuario = :idUsuario "
+			+ " and (:anoInicio is null or r.ano >= :anoInicio) and (:anoFim is null or r.ano <= :anoFim) "
+			+ " order by r.ano, r.mes, r.tipo, r.status ")
+	List<ResumoMensalDTO> listarPorUsuario(@Param("idUsuario") Long idUsuario,
+			@Param("anoInicio") Integer anoInicio, @Param("anoFim") Integer anoFim);
+	
+	@Modifying
+	@Query(value = " delete from ResumoMensal r where r.idUsuario = :idUsuario ")
+	void removerPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+}
@@ -0,0 +1,23 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.dsousa.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query(value = " select s from SaldoUsuario s where s.idUsuario = :idUsuario ")
+	Optional<SaldoUsuario> obterParaAtualizacao(@Param("idUsuario") Long idUsuario);
+	
+	@Query(value = " select s.versao from SaldoUsuario s where s.idUsuario = :idUsuario ")
+	Optional<Long> obterVersao(@Param("idUsuario") Long idUsuario);
+	
+}
@@ -1,15 +1,52 @@
 package com.dsousa.minhasfinancas.model.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.dsousa.minhasfinancas.config.CacheConfig;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	
 	boolean existsByEmail(String email);
 	
+	@Cacheable(cacheNames = CacheConfig.USUARIOS_POR_EMAIL, key = "#p0", unless = "#result == null")
 	Optional<Usuario> findByEmail(String email);
+	
+	@Override
+	@Cacheable(cacheNames = CacheConfig.USUARIOS, key = "#p0", unless = "#result == null")
+	Optional<Usuario> findById(Long id);
+	
+	/**
+	 * Invalida as duas entradas do usuário gravado; a próxima leitura busca
+	 * o estado atual no banco.
+	 */
+	@Override
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#result.id"),
+			@CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_EMAIL, key = "#result.email", condition = "#result.email != null")
+	})
+	<S extends Usuario> S save(S usuario);
+	
+	@Override
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#result.id"),
+			@CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_EMAIL, key = "#result.email", condition = "#result.email != null")
+	})
+	<S extends Usuario> S saveAndFlush(S usuario);
+	
+	@Query(value = " select u.id from Usuario u order by u.id ")
+	List<Long> listarIds();
+	
+	@Query(value = " select u.id from Usuario u where u.id in :ids ")
+	List<Long> listarIdsExistentes(@Param("ids") Collection<Long> ids);
 
 }
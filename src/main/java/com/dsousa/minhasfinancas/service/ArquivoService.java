@@ -0,0 +1,7 @@
+package com.dsousa.minhasfinancas.service;
+
+public interface ArquivoService {
+
+	int arquivar(Long idUsuario, int anoLimite);
+	
+}
@@ -0,0 +1,18 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Parâmetro com o id do usuário dono dos dados, usado para escolher o shard
+ * nos serviços {@link PorUsuario}. Numa coleção de ids, o método precisa
+ * devolver um Map, já que roda uma vez por shard.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface IdUsuario {
+}
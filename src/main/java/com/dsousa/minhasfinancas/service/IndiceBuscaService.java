@@ -0,0 +1,16 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.List;
+
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+public interface IndiceBuscaService {
+
+	List<Lancamento> pesquisar(Long idUsuario, String texto, Integer ano, Integer mes, int limite);
+	
+	void atualizar(LancamentosAlteradosEvent evento);
+	
+	void reindexar(Long idUsuario);
+	
+}
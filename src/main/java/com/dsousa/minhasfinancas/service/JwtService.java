@@ -0,0 +1,20 @@
+package com.dsousa.minhasfinancas.service;
+
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+
+import io.jsonwebtoken.Claims;
+
+public interface JwtService {
+
+	String gerarToken(Usuario usuario);
+	
+	/**
+	 * Verifica assinatura e expiração do token.
+	 * 
+	 * @throws io.jsonwebtoken.JwtException quando o token não é válido
+	 */
+	Claims obterClaims(String token);
+	
+	Long obterIdUsuario(String token);
+	
+}
@@ -1,9 +1,16 @@
 package com.dsousa.minhasfinancas.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
@@ -12,18 +19,36 @@ public interface LancamentoService {
 
 	Lancamento salvar(Lancamento lancamento);
 	
+	ResultadoLoteDTO salvarLote(List<Lancamento> lancamentos);
+	
 	Lancamento atualizar(Lancamento lancamento);
 	
+	Optional<Lancamento> atualizarParcialmente(Long id, Long idUsuario, Lancamento alteracoes);
+	
 	void deletar(Lancamento lancamento);
 	
 	List<Lancamento> buscar(Lancamento lancamentoFiltro);
 	
+	PaginaDTO<LancamentoDTO> buscar(Lancamento lancamentoFiltro, String cursor, Integer tamanho);
+	
+	List<Lancamento> pesquisar(Lancamento lancamentoFiltro, String texto, Integer tamanho);
+	
+	void exportar(Long idUsuario, Consumer<Lancamento> consumidor);
+	
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 	
+	Optional<Lancamento> atualizarStatus(Long id, Long idUsuario, StatusLancamento status);
+	
 	void validarLancamento(Lancamento lancamento);
 	
 	Optional<Lancamento> buscarPorId(Long id);
 	
 	BigDecimal obterSaldoPorUsuario(Long id);
 	
+	SaldoDTO obterSaldoDetalhadoPorUsuario(Long id);
+	
+	Map<Long, SaldoDTO> obterSaldosPorUsuarios(Collection<Long> ids);
+	
+	long obterVersaoPorUsuario(Long id);
+	
 }
@@ -0,0 +1,26 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Serviço (ou método) cujos dados ficam no shard do usuário. Com shards
+ * configurados, a chamada roda no shard do usuário indicado por
+ * {@link IdUsuario}, pelo usuário dos lançamentos recebidos ou pelo usuário
+ * da requisição; sem shards não muda nada.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface PorUsuario {
+
+	/**
+	 * Sem usuário conhecido, procura em cada shard até o resultado (um
+	 * Optional) vir preenchido.
+	 */
+	boolean procurarEmTodos() default false;
+	
+}
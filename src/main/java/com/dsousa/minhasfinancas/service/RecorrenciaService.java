@@ -0,0 +1,24 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+
+public interface RecorrenciaService {
+
+	Recorrencia salvar(Recorrencia recorrencia);
+	
+	void deletar(Recorrencia recorrencia);
+	
+	List<Recorrencia> buscarPorUsuario(Long idUsuario);
+	
+	Optional<Recorrencia> buscarPorId(Long id);
+	
+	void validar(Recorrencia recorrencia);
+	
+	Long gerarBloco(Long ultimoId, int competencia, int tamanhoBloco);
+	
+	List<Long> listarIdsVencidas(Long ultimoId, int competencia, int tamanhoBloco);
+	
+}
@@ -0,0 +1,16 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.List;
+
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+public interface ResumoMensalService {
+
+	List<ResumoMensalDTO> obterPorUsuario(Long idUsuario, Integer anoInicio, Integer anoFim);
+	
+	void atualizar(LancamentosAlteradosEvent evento);
+	
+	void reconstruir(Long idUsuario);
+	
+}
@@ -0,0 +1,21 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+public interface SaldoService {
+
+	SaldoDTO obterPorUsuario(Long idUsuario);
+	
+	Map<Long, SaldoDTO> obterPorUsuarios(Collection<Long> idsUsuarios);
+	
+	long obterVersao(Long idUsuario);
+	
+	void atualizar(LancamentosAlteradosEvent evento);
+	
+	void reconstruir(Long idUsuario);
+	
+}
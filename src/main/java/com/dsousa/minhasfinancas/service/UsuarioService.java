@@ -1,6 +1,8 @@
 package com.dsousa.minhasfinancas.service;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 import com.dsousa.minhasfinancas.model.entity.Usuario;
 
@@ -14,6 +16,15 @@ public interface UsuarioService {
 	
 	Optional<Usuario> obterPorId(Long id);
 	
+	/**
+	 * Referência ao usuário sem consultar o banco, para associar a um
+	 * lançamento. Um id inexistente só é detectado na gravação.
+	 */
+	Usuario obterReferencia(Long id);
+	
+	/** Quais dos ids informados existem, em uma única consulta. */
+	Set<Long> obterIdsExistentes(Collection<Long> ids);
+	
 	
 	
 }
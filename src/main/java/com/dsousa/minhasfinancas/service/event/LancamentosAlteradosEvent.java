@@ -0,0 +1,56 @@
+package com.dsousa.minhasfinancas.service.event;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado pelo LancamentoService dentro da transação de cada escrita, com
+ * uma alteração por lançamento afetado (várias em uma inclusão em lote).
+ * O estado anterior é nulo na criação e o atual é nulo na exclusão.
+ * {@code saldos} recebe, do SaldoService, o saldo a que a escrita levou
+ * cada usuário envolvido, com a nova versão.
+ */
+@Getter
+public class LancamentosAlteradosEvent {
+
+	public enum Operacao {
+		CRIACAO,
+		ATUALIZACAO,
+		EXCLUSAO
+	}
+	
+	@Getter
+	@AllArgsConstructor
+	public static class Alteracao {
+		
+		private final Operacao operacao;
+		private final Lancamento anterior;
+		private final Lancamento atual;
+		
+	}
+	
+	private final List<Alteracao> alteracoes;
+	
+	private final Map<Long, SaldoDTO> saldos = new HashMap<>();
+	
+	public LancamentosAlteradosEvent(List<Alteracao> alteracoes) {
+		this.alteracoes = alteracoes;
+	}
+	
+	public static LancamentosAlteradosEvent de(Operacao operacao, Lancamento anterior, Lancamento atual) {
+		return new LancamentosAlteradosEvent(Collections.singletonList(new Alteracao(operacao, anterior, atual)));
+	}
+	
+	public void registrarSaldo(Long idUsuario, SaldoDTO saldo) {
+		saldos.put(idUsuario, saldo);
+	}
+	
+}
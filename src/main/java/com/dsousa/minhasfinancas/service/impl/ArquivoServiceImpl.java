@@ -0,0 +1,79 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.model.entity.AnoArquivado;
+import com.dsousa.minhasfinancas.model.entity.SaldoUsuario;
+import com.dsousa.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoTermoRepository;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.dsousa.minhasfinancas.service.ArquivoService;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+
+/**
+ * Move os lançamentos dos anos fechados para a tabela lancamento_arquivado,
+ * deixando a tabela de lançamentos e o índice de busca só com os anos em
+ * aberto. O saldo e o resumo mensal não mudam: os totais dos anos arquivados
+ * continuam lá e o resumo mensal passa a ser o resumo desses anos.
+ */
+@Service
+@PorUsuario
+public class ArquivoServiceImpl implements ArquivoService {
+
+	private LancamentoRepository lancamentoRepository;
+	
+	private LancamentoArquivadoRepository arquivadoRepository;
+	
+	private AnoArquivadoRepository anoArquivadoRepository;
+	
+	private LancamentoTermoRepository termoRepository;
+	
+	private SaldoUsuarioRepository saldoRepository;
+	
+	public ArquivoServiceImpl(LancamentoRepository lancamentoRepository, LancamentoArquivadoRepository arquivadoRepository,
+			AnoArquivadoRepository anoArquivadoRepository, LancamentoTermoRepository termoRepository,
+			SaldoUsuarioRepository saldoRepository) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.arquivadoRepository = arquivadoRepository;
+		this.anoArquivadoRepository = anoArquivadoRepository;
+		this.termoRepository = termoRepository;
+		this.saldoRepository = saldoRepository;
+	}
+	
+	/**
+	 * Arquiva os lançamentos do usuário anteriores a {@code anoLimite}, um
+	 * ano por vez, com insert ... select e delete no próprio banco. Rodar de
+	 * novo recolhe o que tiver sido gravado depois em um ano já arquivado.
+	 */
+	@Override
+	@Transactional
+	public int arquivar(@IdUsuario Long idUsuario, int anoLimite) {
+		// mesmo bloqueio das escritas, para nenhum lançamento do ano mudar no meio da cópia;
+		// a versão muda como em qualquer escrita, já que a listagem do usuário muda
+		SaldoUsuario saldo = saldoRepository.obterParaAtualizacao(idUsuario).orElse(null);
+		
+		int total = 0;
+		for(Integer ano : lancamentoRepository.listarAnosAnteriores(idUsuario, anoLimite)) {
+			int quantidade = arquivadoRepository.copiarAno(idUsuario, ano);
+			termoRepository.removerPorAno(idUsuario, ano);
+			lancamentoRepository.removerPorAno(idUsuario, ano);
+			
+			AnoArquivado anoArquivado = anoArquivadoRepository.findById(new AnoArquivado.Chave(idUsuario, ano))
+					.orElseGet(() -> new AnoArquivado(idUsuario, ano, 0L));
+			anoArquivado.setQuantidade(anoArquivado.getQuantidade() + quantidade);
+			anoArquivadoRepository.save(anoArquivado);
+			total += quantidade;
+		}
+		
+		if(saldo != null && total > 0) {
+			saldo.setVersao(saldo.getVersao() + 1);
+			saldoRepository.save(saldo);
+		}
+		return total;
+	}
+	
+}
@@ -0,0 +1,166 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.LancamentoTermo;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoTermoRepository;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.IndiceBuscaService;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+
+/**
+ * Índice invertido das descrições dos lançamentos. Os termos são gravados
+ * sem acentos e em minúsculas, de forma que "Manutenção" e "manutencao"
+ * resultem no mesmo termo, e a busca é uma consulta de igualdade servida
+ * pela chave primária (id_usuario, termo, id_lancamento).
+ */
+@Service
+@PorUsuario
+public class IndiceBuscaServiceImpl implements IndiceBuscaService {
+
+	static final int TAMANHO_MAXIMO_TERMO = 60;
+	
+	static final int TAMANHO_BLOCO_REINDEXACAO = 500;
+	
+	private static final Set<String> PALAVRAS_IGNORADAS = new HashSet<>(Arrays.asList(
+			"de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos", "para", "por", "com", "um", "uma"));
+	
+	private LancamentoTermoRepository repository;
+	
+	private LancamentoRepository lancamentoRepository;
+	
+	public IndiceBuscaServiceImpl(LancamentoTermoRepository repository, LancamentoRepository lancamentoRepository) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Lancamento> pesquisar(@IdUsuario Long idUsuario, String texto, Integer ano, Integer mes, int limite) {
+		Set<String> termos = extrairTermos(texto);
+		if(termos.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		List<Long> ids = repository.pesquisar(idUsuario, termos, ano, mes, PageRequest.of(0, limite));
+		Map<Long, Lancamento> lancamentos = lancamentoRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(Lancamento::getId, Function.identity()));
+		
+		return ids.stream().map(lancamentos::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	@Override
+	@Order(1)
+	@EventListener
+	@Transactional
+	public void atualizar(LancamentosAlteradosEvent evento) {
+		List<Long> remover = new ArrayList<>();
+		List<LancamentoTermo> incluir = new ArrayList<>();
+		
+		for(Alteracao alteracao : evento.getAlteracoes()) {
+			Lancamento anterior = alteracao.getAnterior();
+			Lancamento atual = alteracao.getAtual();
+			
+			if(anterior != null && atual != null
+					&& Objects.equals(anterior.getDescricao(), atual.getDescricao())
+					&& Objects.equals(anterior.getUsuario().getId(), atual.getUsuario().getId())) {
+				continue;
+			}
+			
+			if(anterior != null) {
+				remover.add(anterior.getId());
+			}
+			
+			if(atual != null) {
+				incluir.addAll(termos(atual));
+			}
+		}
+		
+		if(!remover.isEmpty()) {
+			repository.removerPorLancamentos(remover);
+		}
+		repository.saveAll(incluir);
+	}
+
+	/**
+	 * Percorre os lançamentos do usuário em fluxo e grava os termos em blocos,
+	 * limpando o contexto de persistência entre eles, para a memória não
+	 * crescer com a quantidade de lançamentos.
+	 */
+	@Override
+	@Transactional
+	public void reindexar(@IdUsuario Long idUsuario) {
+		repository.removerPorUsuario(idUsuario);
+		
+		List<LancamentoTermo> bloco = new ArrayList<>();
+		lancamentoRepository.percorrerPorUsuario(idUsuario, TAMANHO_BLOCO_REINDEXACAO, lancamento -> {
+			bloco.addAll(termos(lancamento));
+			if(bloco.size() >= TAMANHO_BLOCO_REINDEXACAO) {
+				descarregarBloco(bloco);
+			}
+		});
+		descarregarBloco(bloco);
+	}
+	
+	// os inserts saem agrupados em lotes JDBC (hibernate.jdbc.batch_size)
+	private void descarregarBloco(List<LancamentoTermo> bloco) {
+		if(!bloco.isEmpty()) {
+			repository.saveAll(bloco);
+			lancamentoRepository.descarregar();
+			bloco.clear();
+		}
+	}
+	
+	private List<LancamentoTermo> termos(Lancamento lancamento) {
+		Long idUsuario = lancamento.getUsuario().getId();
+		return extrairTermos(lancamento.getDescricao()).stream()
+				.map(termo -> new LancamentoTermo(idUsuario, termo, lancamento.getId()))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Separa o texto em termos sem acentuação, em minúsculas e sem
+	 * repetição, descartando termos de uma letra e preposições comuns.
+	 */
+	public static Set<String> extrairTermos(String texto) {
+		Set<String> termos = new LinkedHashSet<>();
+		if(texto == null) {
+			return termos;
+		}
+		
+		String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.toLowerCase(Locale.ROOT);
+		
+		for(String termo : normalizado.split("[^a-z0-9]+")) {
+			if(termo.length() > 1 && !PALAVRAS_IGNORADAS.contains(termo)) {
+				termos.add(termo.length() > TAMANHO_MAXIMO_TERMO ? termo.substring(0, TAMANHO_MAXIMO_TERMO) : termo);
+			}
+		}
+		
+		return termos;
+	}
+	
+}
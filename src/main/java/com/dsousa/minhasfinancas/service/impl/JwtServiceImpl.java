@@ -0,0 +1,72 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.service.JwtService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+@Service
+public class JwtServiceImpl implements JwtService {
+
+	static final String CLAIM_ID_USUARIO = "userid";
+	
+	static final String CLAIM_NOME = "nome";
+	
+	// HS512 pede uma chave do tamanho do hash
+	static final int TAMANHO_MINIMO_CHAVE = 64;
+	
+	private final long expiracaoMinutos;
+	
+	// decodificada uma única vez; a verificação é feita a cada requisição
+	private final byte[] chaveAssinatura;
+	
+	public JwtServiceImpl(
+			@Value("${jwt.expiracao}") long expiracaoMinutos,
+			@Value("${jwt.chave-assinatura}") String chaveAssinatura) {
+		this.expiracaoMinutos = expiracaoMinutos;
+		this.chaveAssinatura = chaveAssinatura == null || chaveAssinatura.trim().isEmpty()
+				? new byte[0] : Base64.getDecoder().decode(chaveAssinatura.trim());
+		if(this.chaveAssinatura.length < TAMANHO_MINIMO_CHAVE) {
+			throw new IllegalStateException("A chave de assinatura do JWT (JWT_CHAVE_ASSINATURA) deve ter ao menos "
+					+ TAMANHO_MINIMO_CHAVE + " bytes em base64");
+		}
+	}
+
+	@Override
+	public String gerarToken(Usuario usuario) {
+		Date expiracao = Date.from(Instant.now().plus(expiracaoMinutos, ChronoUnit.MINUTES));
+		
+		return Jwts.builder()
+				.setSubject(usuario.getEmail())
+				.setExpiration(expiracao)
+				.claim(CLAIM_ID_USUARIO, usuario.getId())
+				.claim(CLAIM_NOME, usuario.getNome())
+				.signWith(SignatureAlgorithm.HS512, chaveAssinatura)
+				.compact();
+	}
+
+	@Override
+	public Claims obterClaims(String token) {
+		return Jwts.parser()
+				.setSigningKey(chaveAssinatura)
+				.parseClaimsJws(token)
+				.getBody();
+	}
+
+	@Override
+	public Long obterIdUsuario(String token) {
+		Number id = obterClaims(token).get(CLAIM_ID_USUARIO, Number.class);
+		return id == null ? null : id.longValue();
+	}
+
+}
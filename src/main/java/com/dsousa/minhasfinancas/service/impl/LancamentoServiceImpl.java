@@ -1,37 +1,142 @@
 package com.dsousa.minhasfinancas.service.impl;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO.ErroLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.IndiceBuscaService;
 import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+import com.dsousa.minhasfinancas.service.SaldoService;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Operacao;
+import com.dsousa.minhasfinancas.service.razao.RazaoMemoria;
+import com.dsousa.minhasfinancas.model.entity.AnoArquivado;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.CursorLancamento;
 import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.ResumoMensalRepository;
 
 @Service
+@PorUsuario
 public class LancamentoServiceImpl implements LancamentoService {
 	
+	public static final int TAMANHO_PAGINA_PADRAO = 100;
+	
+	public static final int TAMANHO_PAGINA_MAXIMO = 500;
+	
+	static final int TAMANHO_BLOCO_EXPORTACAO = 500;
+	
+	static final int TAMANHO_BLOCO_LOTE = 500;
+	
 	private LancamentoRepository repository;
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	private SaldoService saldoService;
+	
+	private IndiceBuscaService indiceBuscaService;
+	
+	private ApplicationEventPublisher publisher;
+	
+	private AnoArquivadoRepository anoArquivadoRepository;
+	
+	private ResumoMensalRepository resumoMensalRepository;
+	
+	private ObjectProvider<RazaoMemoria> razaoMemoria;
+	
+	public LancamentoServiceImpl(LancamentoRepository repository, SaldoService saldoService,
+			IndiceBuscaService indiceBuscaService, ApplicationEventPublisher publisher,
+			AnoArquivadoRepository anoArquivadoRepository,
+			ResumoMensalRepository resumoMensalRepository, ObjectProvider<RazaoMemoria> razaoMemoria) {
 		this.repository = repository;
+		this.saldoService = saldoService;
+		this.indiceBuscaService = indiceBuscaService;
+		this.publisher = publisher;
+		this.anoArquivadoRepository = anoArquivadoRepository;
+		this.resumoMensalRepository = resumoMensalRepository;
+		this.razaoMemoria = razaoMemoria;
 	}
 	
 	@Override
 	@Transactional
 	public Lancamento salvar(Lancamento lancamento) {
 		validarLancamento(lancamento);
-		return repository.save(lancamento);
+		verificarAnoAberto(lancamento, new HashMap<>());
+		Lancamento lancamentoSalvo = repository.save(lancamento);
+		publicar(Operacao.CRIACAO, null, lancamentoSalvo);
+		return lancamentoSalvo;
+	}
+
+	@Override
+	@Transactional
+	public ResultadoLoteDTO salvarLote(List<Lancamento> lancamentos) {
+		ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+		List<Alteracao> bloco = new ArrayList<>();
+		Map<Long, Optional<Integer>> ultimosAnosArquivados = new HashMap<>();
+		
+		for(int indice = 0; indice < lancamentos.size(); indice++) {
+			Lancamento lancamento = lancamentos.get(indice);
+			try {
+				validarLancamento(lancamento);
+				verificarAnoAberto(lancamento, ultimosAnosArquivados);
+			} catch (RegraNegocioException e) {
+				resultado.getErros().add(new ErroLoteDTO(indice, e.getMessage()));
+				continue;
+			}
+			
+			repository.save(lancamento);
+			bloco.add(new Alteracao(Operacao.CRIACAO, null, lancamento.copiar()));
+			
+			if(bloco.size() == TAMANHO_BLOCO_LOTE) {
+				resultado.setSalvos(resultado.getSalvos() + descarregarBloco(bloco));
+			}
+		}
+		
+		resultado.setSalvos(resultado.getSalvos() + descarregarBloco(bloco));
+		return resultado;
+	}
+	
+	/**
+	 * Os ids já vêm do otimizador pooled-lo, então os inserts do bloco só vão
+	 * ao banco aqui, agrupados em lotes JDBC (hibernate.jdbc.batch_size).
+	 */
+	private int descarregarBloco(List<Alteracao> bloco) {
+		int quantidade = bloco.size();
+		if(quantidade > 0) {
+			publisher.publishEvent(new LancamentosAlteradosEvent(new ArrayList<>(bloco)));
+			repository.descarregar();
+			bloco.clear();
+		}
+		return quantidade;
 	}
 
 	@Override
@@ -39,16 +144,63 @@ public class LancamentoServiceImpl implements LancamentoService {
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
 		validarLancamento(lancamento);
-		return repository.save(lancamento);
+		verificarAnoAberto(lancamento, new HashMap<>());
+		// o estado anterior vem da leitura com bloqueio, não do que foi lido antes sem ele
+		Lancamento anterior = repository.obterParaAtualizacao(lancamento.getId())
+				.map(Lancamento::getEstadoPersistido).orElse(null);
+		Lancamento lancamentoAtualizado = repository.save(lancamento);
+		publicar(Operacao.ATUALIZACAO, anterior, lancamentoAtualizado);
+		return lancamentoAtualizado;
+	}
+
+	/**
+	 * Aplica sobre o lançamento gerenciado apenas os campos não nulos de
+	 * {@code alteracoes}; o update sai do dirty checking com as colunas
+	 * alteradas. Lançamentos de outro usuário voltam sem alteração. A leitura
+	 * bloqueia o lançamento até o fim da transação.
+	 */
+	@Override
+	@Transactional
+	public Optional<Lancamento> atualizarParcialmente(Long id, @IdUsuario Long idUsuario, Lancamento alteracoes) {
+		return repository.obterParaAtualizacao(id).map(lancamento -> {
+			if(idUsuario != null && !idUsuario.equals(lancamento.getUsuario().getId())) {
+				return lancamento;
+			}
+			
+			if(alteracoes.getDescricao() != null) lancamento.setDescricao(alteracoes.getDescricao());
+			if(alteracoes.getMes() != null) lancamento.setMes(alteracoes.getMes());
+			if(alteracoes.getAno() != null) lancamento.setAno(alteracoes.getAno());
+			if(alteracoes.getValor() != null) lancamento.setValor(alteracoes.getValor());
+			if(alteracoes.getUsuario() != null) lancamento.setUsuario(alteracoes.getUsuario());
+			if(alteracoes.getTipo() != null) lancamento.setTipo(alteracoes.getTipo());
+			if(alteracoes.getStatus() != null) lancamento.setStatus(alteracoes.getStatus());
+			
+			// em outro mês o lançamento deixa de ser a ocorrência da recorrência
+			Lancamento anterior = lancamento.getEstadoPersistido();
+			if(anterior != null && (!Objects.equals(anterior.getAno(), lancamento.getAno()) || !Objects.equals(anterior.getMes(), lancamento.getMes()))) {
+				lancamento.setIdRecorrencia(null);
+			}
+			
+			validarLancamento(lancamento);
+			verificarAnoAberto(lancamento, new HashMap<>());
+			publicar(Operacao.ATUALIZACAO, lancamento.getEstadoPersistido(), lancamento);
+			return lancamento;
+		});
 	}
 
 	@Override
 	@Transactional
 	public void deletar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
-		repository.delete(lancamento);		
+		Lancamento anterior = lancamento.getEstadoPersistido() != null ? lancamento.getEstadoPersistido() : lancamento.copiar();
+		repository.delete(lancamento);
+		publicar(Operacao.EXCLUSAO, anterior, null);
 	}
 
+	/**
+	 * Só os lançamentos em aberto. A listagem da API, que inclui o arquivo,
+	 * é a paginada.
+	 */
 	@Override
 	@Transactional(readOnly = true)
 	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
@@ -59,12 +211,191 @@ public class LancamentoServiceImpl implements LancamentoService {
 		
 		return repository.findAll(example);
 	}
+	
+	/**
+	 * Filtro por um ano arquivado lê o detalhe do arquivo; sem filtro de ano,
+	 * os anos arquivados entram como uma linha de resumo por mês, tipo e
+	 * status antes dos lançamentos em aberto.
+	 * As linhas de resumo não têm id; no cursor elas ocupam posições negativas
+	 * do mês, antes de qualquer lançamento.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public PaginaDTO<LancamentoDTO> buscar(Lancamento lancamentoFiltro, String cursor, Integer tamanho) {
+		int limite = limitarTamanhoPagina(tamanho);
+		CursorLancamento posicao = CursorLancamento.decodificar(cursor);
+		
+		// busca um item a mais apenas para saber se existe próxima página
+		List<LancamentoDTO> lancamentos;
+		if(anoArquivado(lancamentoFiltro)) {
+			lancamentos = repository.buscarPaginaArquivada(lancamentoFiltro, posicao, limite + 1);
+		} else {
+			lancamentos = resumosArquivados(lancamentoFiltro).stream()
+					.filter(resumo -> posicao == null || depoisDoCursor(resumo, posicao))
+					.limit(limite + 1)
+					.map(resumo -> new LancamentoDTO(null, descricaoResumo(resumo), resumo.getMes(), resumo.getAno(),
+							resumo.getValor(), lancamentoFiltro.getUsuario().getId(), resumo.getTipo(), resumo.getStatus()))
+					.collect(Collectors.toList());
+			if(lancamentos.size() <= limite) {
+				lancamentos.addAll(buscarPaginaEmAberto(lancamentoFiltro, posicao, limite + 1 - lancamentos.size()));
+			}
+		}
+		
+		if(lancamentos.size() <= limite) {
+			return new PaginaDTO<>(lancamentos, null);
+		}
+		
+		List<LancamentoDTO> pagina = new ArrayList<>(lancamentos.subList(0, limite));
+		LancamentoDTO ultimo = pagina.get(limite - 1);
+		CursorLancamento proximo = ultimo.getId() != null ? CursorLancamento.de(ultimo)
+				: new CursorLancamento(ultimo.getAno(), ultimo.getMes(),
+						posicaoResumo(TipoLancamento.valueOf(ultimo.getTipo()), StatusLancamento.valueOf(ultimo.getStatus())));
+		return new PaginaDTO<>(pagina, proximo.codificar());
+	}
+	
+	/**
+	 * Com financas.razao.habilitado, os lançamentos em aberto saem das colunas
+	 * em memória do usuário; o banco só é consultado quando elas não estão na
+	 * versão atual.
+	 */
+	private List<LancamentoDTO> buscarPaginaEmAberto(Lancamento filtro, CursorLancamento posicao, int limite) {
+		RazaoMemoria razao = razaoMemoria == null ? null : razaoMemoria.getIfAvailable();
+		if(razao != null && filtro.getUsuario() != null && filtro.getUsuario().getId() != null) {
+			List<LancamentoDTO> pagina = razao.buscarPagina(filtro, posicao, limite);
+			if(pagina != null) {
+				return pagina;
+			}
+		}
+		return repository.buscarPagina(filtro, posicao, limite);
+	}
+	
+	private boolean anoArquivado(Lancamento filtro) {
+		return filtro.getUsuario() != null && filtro.getUsuario().getId() != null && filtro.getAno() != null
+				&& anoArquivadoRepository.existsById(new AnoArquivado.Chave(filtro.getUsuario().getId(), filtro.getAno()));
+	}
+	
+	/**
+	 * Resumo mensal dos anos arquivados que atende ao filtro, na ordem do
+	 * cursor. Vazio quando o filtro tem ano (aberto) ou trechos de descrição
+	 * e valor, que o resumo não guarda.
+	 */
+	private List<ResumoMensalDTO> resumosArquivados(Lancamento filtro) {
+		if(filtro.getUsuario() == null || filtro.getUsuario().getId() == null || filtro.getAno() != null
+				|| filtro.getDescricao() != null || filtro.getValor() != null) {
+			return Collections.emptyList();
+		}
+		
+		Long idUsuario = filtro.getUsuario().getId();
+		List<Integer> anos = anoArquivadoRepository.listarAnos(idUsuario);
+		if(anos.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		return resumoMensalRepository.listarPorUsuario(idUsuario, anos.get(0), anos.get(anos.size() - 1)).stream()
+				.filter(resumo -> anos.contains(resumo.getAno()))
+				.filter(resumo -> filtro.getMes() == null || filtro.getMes().equals(resumo.getMes()))
+				.filter(resumo -> filtro.getTipo() == null || filtro.getTipo() == resumo.getTipo())
+				.filter(resumo -> filtro.getStatus() == null || filtro.getStatus() == resumo.getStatus())
+				.sorted(Comparator.comparing(ResumoMensalDTO::getAno)
+						.thenComparing(ResumoMensalDTO::getMes)
+						.thenComparingLong(resumo -> posicaoResumo(resumo.getTipo(), resumo.getStatus())))
+				.collect(Collectors.toList());
+	}
+	
+	private static boolean depoisDoCursor(ResumoMensalDTO resumo, CursorLancamento cursor) {
+		int comparacao = resumo.getAno().compareTo(cursor.getAno());
+		if(comparacao == 0) {
+			comparacao = resumo.getMes().compareTo(cursor.getMes());
+		}
+		return comparacao > 0 || (comparacao == 0 && posicaoResumo(resumo.getTipo(), resumo.getStatus()) > cursor.getId());
+	}
+	
+	private static long posicaoResumo(TipoLancamento tipo, StatusLancamento status) {
+		int quantidadeStatus = StatusLancamento.values().length;
+		return (long) tipo.ordinal() * quantidadeStatus + status.ordinal() - (long) TipoLancamento.values().length * quantidadeStatus;
+	}
+	
+	private static String descricaoResumo(ResumoMensalDTO resumo) {
+		return "Resumo de " + resumo.getQuantidade() + " lançamento(s) arquivado(s)";
+	}
+	
+	/**
+	 * Anos até o último arquivado do usuário não recebem escritas, já que os
+	 * lançamentos deles estão no arquivo. O último ano de cada usuário fica
+	 * em {@code ultimosAnosArquivados} para o lote consultar uma vez só.
+	 */
+	private void verificarAnoAberto(Lancamento lancamento, Map<Long, Optional<Integer>> ultimosAnosArquivados) {
+		if(lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null || lancamento.getAno() == null) {
+			return;
+		}
+		
+		Optional<Integer> ultimoAno = ultimosAnosArquivados.computeIfAbsent(lancamento.getUsuario().getId(),
+				idUsuario -> Optional.ofNullable(anoArquivadoRepository.obterUltimoAno(idUsuario)));
+		if(ultimoAno.isPresent() && lancamento.getAno() <= ultimoAno.get()) {
+			throw new RegraNegocioException("Os lançamentos de " + lancamento.getAno() + " estão arquivados e não podem ser alterados.");
+		}
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Lancamento> pesquisar(Lancamento lancamentoFiltro, String texto, Integer tamanho) {
+		return indiceBuscaService.pesquisar(lancamentoFiltro.getUsuario().getId(), texto,
+				lancamentoFiltro.getAno(), lancamentoFiltro.getMes(), limitarTamanhoPagina(tamanho));
+	}
+	
+	/**
+	 * Todo o histórico do usuário: primeiro os anos arquivados, depois os
+	 * lançamentos em aberto, cada parte em ordem de (ano, mes, id).
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void exportar(@IdUsuario Long idUsuario, Consumer<Lancamento> consumidor) {
+		repository.percorrerArquivadosPorUsuario(idUsuario, TAMANHO_BLOCO_EXPORTACAO, consumidor);
+		repository.percorrerPorUsuario(idUsuario, TAMANHO_BLOCO_EXPORTACAO, consumidor);
+	}
+	
+	private int limitarTamanhoPagina(Integer tamanho) {
+		return tamanho == null ? TAMANHO_PAGINA_PADRAO : Math.max(1, Math.min(tamanho, TAMANHO_PAGINA_MAXIMO));
+	}
 
 	@Override
 	public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
 		lancamento.setStatus(status);
 		atualizar(lancamento);
 	}
+	
+	/**
+	 * Troca de status sem carregar a entidade: lê com bloqueio só as colunas
+	 * do lançamento e grava com um único update da coluna status. Lançamentos
+	 * de outro usuário voltam sem alteração.
+	 */
+	@Override
+	@Transactional
+	public Optional<Lancamento> atualizarStatus(Long id, @IdUsuario Long idUsuario, StatusLancamento status) {
+		return repository.obterParaAtualizacaoDeStatus(id).map(dto -> {
+			Lancamento anterior = Lancamento.builder()
+					.id(dto.getId())
+					.descricao(dto.getDescricao())
+					.mes(dto.getMes())
+					.ano(dto.getAno())
+					.valor(dto.getValor())
+					.usuario(Usuario.builder().id(dto.getIdUsuario()).build())
+					.tipo(dto.getTipo() == null ? null : TipoLancamento.valueOf(dto.getTipo()))
+					.status(dto.getStatus() == null ? null : StatusLancamento.valueOf(dto.getStatus()))
+					.build();
+			
+			if((idUsuario != null && !idUsuario.equals(dto.getIdUsuario())) || anterior.getStatus() == status) {
+				return anterior;
+			}
+			
+			repository.atualizarStatus(id, dto.getIdUsuario(), status);
+			
+			Lancamento atual = anterior.copiar();
+			atual.setStatus(status);
+			publicar(Operacao.ATUALIZACAO, anterior, atual);
+			return atual;
+		});
+	}
 
 	@Override
 	public void validarLancamento(Lancamento lancamento) {
@@ -96,20 +427,40 @@ public class LancamentoServiceImpl implements LancamentoService {
 	}
 
 	@Override
+	@PorUsuario(procurarEmTodos = true)
 	public Optional<Lancamento> buscarPorId(Long id) {
 		return repository.findById(id);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public BigDecimal obterSaldoPorUsuario(Long id) {
-		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.RECEITA);
-		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.DESPESA);
-		
-		if(receitas == null) receitas = BigDecimal.ZERO;
-		if(despesas == null) despesas = BigDecimal.ZERO;
-		
-		return receitas.subtract(despesas);
+	public BigDecimal obterSaldoPorUsuario(@IdUsuario Long id) {
+		return obterSaldoDetalhadoPorUsuario(id).getSaldo();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public SaldoDTO obterSaldoDetalhadoPorUsuario(@IdUsuario Long id) {
+		return saldoService.obterPorUsuario(id);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, SaldoDTO> obterSaldosPorUsuarios(@IdUsuario Collection<Long> ids) {
+		return saldoService.obterPorUsuarios(ids);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public long obterVersaoPorUsuario(@IdUsuario Long id) {
+		return saldoService.obterVersao(id);
+	}
+	
+	private void publicar(Operacao operacao, Lancamento anterior, Lancamento atual) {
+		publisher.publishEvent(LancamentosAlteradosEvent.de(operacao, anterior, atual == null ? null : atual.copiar()));
+		if(atual != null) {
+			atual.registrarEstadoPersistido();
+		}
 	}
 
 }
@@ -0,0 +1,146 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.model.repository.RecorrenciaRepository;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+import com.dsousa.minhasfinancas.service.RecorrenciaService;
+
+@Service
+@PorUsuario
+public class RecorrenciaServiceImpl implements RecorrenciaService {
+
+	private static final Logger log = LoggerFactory.getLogger(RecorrenciaServiceImpl.class);
+	
+	private RecorrenciaRepository repository;
+	
+	private LancamentoService lancamentoService;
+	
+	public RecorrenciaServiceImpl(RecorrenciaRepository repository, LancamentoService lancamentoService) {
+		this.repository = repository;
+		this.lancamentoService = lancamentoService;
+	}
+	
+	/**
+	 * A primeira competência a gerar é a de início, mesmo que já tenha
+	 * passado: a próxima geração cria os lançamentos em atraso.
+	 */
+	@Override
+	@Transactional
+	public Recorrencia salvar(Recorrencia recorrencia) {
+		validar(recorrencia);
+		recorrencia.setProximaCompetencia(recorrencia.getCompetenciaInicio());
+		return repository.save(recorrencia);
+	}
+	
+	@Override
+	@Transactional
+	public void deletar(Recorrencia recorrencia) {
+		Objects.requireNonNull(recorrencia.getId());
+		repository.delete(recorrencia);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Recorrencia> buscarPorUsuario(@IdUsuario Long idUsuario) {
+		return repository.findByUsuarioIdOrderById(idUsuario);
+	}
+	
+	@Override
+	@PorUsuario(procurarEmTodos = true)
+	public Optional<Recorrencia> buscarPorId(Long id) {
+		return repository.findById(id);
+	}
+	
+	@Override
+	public void validar(Recorrencia recorrencia) {
+		
+		if(recorrencia.getDescricao() == null || recorrencia.getDescricao().trim().equals("")) {
+			throw new RegraNegocioException("Informe uma descrição válida.");
+		}
+		
+		if(recorrencia.getUsuario() == null || recorrencia.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um Usuário");
+		}
+		
+		if(recorrencia.getValor() == null || recorrencia.getValor().compareTo(BigDecimal.ZERO) < 1) {
+			throw new RegraNegocioException("Informe um valor válido.");
+		}
+		
+		if(recorrencia.getTipo() == null) {
+			throw new RegraNegocioException("Informe um tipo de lançamento.");
+		}
+		
+		if(recorrencia.getFrequencia() == null) {
+			throw new RegraNegocioException("Informe a frequência da recorrência.");
+		}
+		
+		if(recorrencia.getCompetenciaInicio() == null) {
+			throw new RegraNegocioException("Informe o mês e o ano de início.");
+		}
+		
+		if(recorrencia.getCompetenciaFim() != null && recorrencia.getCompetenciaFim() < recorrencia.getCompetenciaInicio()) {
+			throw new RegraNegocioException("O fim da recorrência deve ser posterior ao início.");
+		}
+		
+	}
+	
+	/**
+	 * Gera, numa única transação, os lançamentos de todas as competências
+	 * vencidas até {@code competencia} do próximo bloco de recorrências e
+	 * avança a próxima competência de cada uma. Os lançamentos saem em lotes
+	 * JDBC pelo {@link LancamentoService#salvarLote}; se a transação cai, nem
+	 * os lançamentos nem o avanço ficam gravados, e a chave única
+	 * (id_recorrencia, ano, mes) barra qualquer geração repetida. Devolve o
+	 * id da última recorrência do bloco, ou nulo quando não há mais vencidas.
+	 */
+	@Override
+	@Transactional
+	public Long gerarBloco(Long ultimoId, int competencia, int tamanhoBloco) {
+		List<Recorrencia> vencidas = repository.listarVencidas(ultimoId, competencia, PageRequest.of(0, tamanhoBloco));
+		if(vencidas.isEmpty()) {
+			return null;
+		}
+		
+		List<Lancamento> lancamentos = new ArrayList<>();
+		for(Recorrencia recorrencia : vencidas) {
+			Integer fim = recorrencia.getCompetenciaFim();
+			int ultima = fim == null ? competencia : Math.min(competencia, fim);
+			int proxima = recorrencia.getProximaCompetencia();
+			for(; proxima <= ultima; proxima += recorrencia.getFrequencia().getMeses()) {
+				lancamentos.add(recorrencia.gerarLancamento(proxima));
+			}
+			recorrencia.setProximaCompetencia(fim != null && proxima > fim ? null : proxima);
+		}
+		
+		// lançamentos recusados (ex.: ano arquivado) ficam para trás, sem travar a recorrência
+		ResultadoLoteDTO resultado = lancamentoService.salvarLote(lancamentos);
+		resultado.getErros().forEach(erro -> log.warn("Lançamento da recorrência {} não gerado: {}",
+				lancamentos.get(erro.getIndice()).getIdRecorrencia(), erro.getMensagem()));
+		
+		return vencidas.get(vencidas.size() - 1).getId();
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Long> listarIdsVencidas(Long ultimoId, int competencia, int tamanhoBloco) {
+		return repository.listarIdsVencidas(ultimoId, competencia, PageRequest.of(0, tamanhoBloco));
+	}
+	
+}
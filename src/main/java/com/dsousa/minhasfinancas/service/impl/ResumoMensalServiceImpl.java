@@ -0,0 +1,160 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.ResumoMensal;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+import com.dsousa.minhasfinancas.service.ResumoMensalService;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+
+/**
+ * Mantém a tabela resumo_mensal, com o total e a quantidade de lançamentos
+ * de cada usuário por mês, tipo e status, atualizada na mesma transação das
+ * escritas. Roda depois do SaldoServiceImpl, cujo bloqueio na linha de saldo
+ * já serializa as escritas de um mesmo usuário; linhas que ficam sem
+ * lançamentos são removidas. Lançamentos sem status contam como pendentes.
+ */
+@Service
+@PorUsuario
+public class ResumoMensalServiceImpl implements ResumoMensalService {
+
+	private ResumoMensalRepository repository;
+	
+	private LancamentoRepository lancamentoRepository;
+	
+	private SaldoUsuarioRepository saldoRepository;
+	
+	private LancamentoArquivadoRepository arquivadoRepository;
+	
+	public ResumoMensalServiceImpl(ResumoMensalRepository repository, LancamentoRepository lancamentoRepository,
+			SaldoUsuarioRepository saldoRepository, LancamentoArquivadoRepository arquivadoRepository) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.saldoRepository = saldoRepository;
+		this.arquivadoRepository = arquivadoRepository;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<ResumoMensalDTO> obterPorUsuario(@IdUsuario Long idUsuario, Integer anoInicio, Integer anoFim) {
+		return repository.listarPorUsuario(idUsuario, anoInicio, anoFim);
+	}
+
+	@Override
+	@Order(2)
+	@EventListener
+	@Transactional
+	public void atualizar(LancamentosAlteradosEvent evento) {
+		Map<ResumoMensal.Chave, ResumoMensal> diferencas = new LinkedHashMap<>();
+		
+		for(Alteracao alteracao : evento.getAlteracoes()) {
+			Lancamento anterior = alteracao.getAnterior();
+			Lancamento atual = alteracao.getAtual();
+			
+			if(anterior != null && atual != null && mesmaContribuicao(anterior, atual)) {
+				continue;
+			}
+			
+			if(anterior != null) {
+				acumular(diferencas, anterior, anterior.getValor().negate(), -1);
+			}
+			
+			if(atual != null) {
+				acumular(diferencas, atual, atual.getValor(), 1);
+			}
+		}
+		
+		diferencas.forEach((chave, diferenca) -> {
+			if(diferenca.getQuantidade() == 0 && diferenca.getValor().signum() == 0) {
+				return;
+			}
+			
+			ResumoMensal resumo = repository.findById(chave).orElse(null);
+			if(resumo == null) {
+				if(diferenca.getQuantidade() > 0) {
+					repository.save(diferenca);
+				}
+				return;
+			}
+			
+			resumo.setQuantidade(resumo.getQuantidade() + diferenca.getQuantidade());
+			resumo.setValor(resumo.getValor().add(diferenca.getValor()));
+			if(resumo.getQuantidade() <= 0) {
+				repository.delete(resumo);
+			}
+		});
+	}
+
+	@Override
+	@Transactional
+	public void reconstruir(@IdUsuario Long idUsuario) {
+		// mesmo bloqueio das escritas, para nenhuma alteração se perder no meio da reconstrução
+		saldoRepository.obterParaAtualizacao(idUsuario);
+		
+		Map<ResumoMensal.Chave, ResumoMensal> resumos = new LinkedHashMap<>();
+		List<ResumoMensal> parciais = new ArrayList<>(lancamentoRepository.obterResumoMensalPorUsuario(idUsuario));
+		parciais.addAll(arquivadoRepository.obterResumoMensalPorUsuario(idUsuario));
+		for(ResumoMensal parcial : parciais) {
+			if(parcial.getStatus() == null) {
+				parcial.setStatus(StatusLancamento.PENDENTE);
+			}
+			resumos.merge(parcial.getChave(), parcial, (resumo, outro) -> {
+				resumo.setValor(resumo.getValor().add(outro.getValor()));
+				resumo.setQuantidade(resumo.getQuantidade() + outro.getQuantidade());
+				return resumo;
+			});
+		}
+		
+		repository.removerPorUsuario(idUsuario);
+		repository.flush();
+		repository.saveAll(resumos.values());
+	}
+	
+	private void acumular(Map<ResumoMensal.Chave, ResumoMensal> diferencas, Lancamento lancamento, BigDecimal valor, long quantidade) {
+		StatusLancamento status = lancamento.getStatus() == null ? StatusLancamento.PENDENTE : lancamento.getStatus();
+		ResumoMensal.Chave chave = new ResumoMensal.Chave(lancamento.getUsuario().getId(),
+				lancamento.getAno(), lancamento.getMes(), lancamento.getTipo(), status);
+		
+		ResumoMensal diferenca = diferencas.computeIfAbsent(chave, c -> ResumoMensal.builder()
+				.idUsuario(c.getIdUsuario())
+				.ano(c.getAno())
+				.mes(c.getMes())
+				.tipo(c.getTipo())
+				.status(c.getStatus())
+				.valor(BigDecimal.ZERO)
+				.quantidade(0L)
+				.build());
+		
+		diferenca.setValor(diferenca.getValor().add(valor));
+		diferenca.setQuantidade(diferenca.getQuantidade() + quantidade);
+	}
+	
+	private boolean mesmaContribuicao(Lancamento anterior, Lancamento atual) {
+		return Objects.equals(anterior.getUsuario().getId(), atual.getUsuario().getId())
+				&& Objects.equals(anterior.getAno(), atual.getAno())
+				&& Objects.equals(anterior.getMes(), atual.getMes())
+				&& anterior.getTipo() == atual.getTipo()
+				&& anterior.getStatus() == atual.getStatus()
+				&& anterior.getValor().compareTo(atual.getValor()) == 0;
+	}
+	
+}
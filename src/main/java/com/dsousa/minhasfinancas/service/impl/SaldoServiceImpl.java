@@ -0,0 +1,196 @@
+package com.dsousa.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.SaldoUsuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.dsousa.minhasfinancas.service.IdUsuario;
+import com.dsousa.minhasfinancas.service.PorUsuario;
+import com.dsousa.minhasfinancas.service.SaldoService;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+
+/**
+ * Mantém a tabela saldo, com os totais de cada usuário por tipo e status,
+ * atualizada na mesma transação das escritas de lançamentos. A linha do
+ * usuário, criada no cadastro, é lida com bloqueio em toda escrita, o que
+ * serializa as escritas concorrentes de um mesmo usuário, e sua versão é
+ * incrementada mesmo quando os totais não mudam.
+ */
+@Service
+@PorUsuario
+public class SaldoServiceImpl implements SaldoService {
+
+	private static final int RECEITAS_EFETIVADAS = 0;
+	private static final int RECEITAS_PENDENTES = 1;
+	private static final int RECEITAS_CANCELADAS = 2;
+	private static final int DESPESAS_EFETIVADAS = 3;
+	private static final int DESPESAS_PENDENTES = 4;
+	private static final int DESPESAS_CANCELADAS = 5;
+	
+	private SaldoUsuarioRepository repository;
+	
+	private LancamentoRepository lancamentoRepository;
+	
+	private LancamentoArquivadoRepository arquivadoRepository;
+	
+	public SaldoServiceImpl(SaldoUsuarioRepository repository, LancamentoRepository lancamentoRepository,
+			LancamentoArquivadoRepository arquivadoRepository) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.arquivadoRepository = arquivadoRepository;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public SaldoDTO obterPorUsuario(@IdUsuario Long idUsuario) {
+		return repository.findById(idUsuario)
+				.map(SaldoServiceImpl::paraDTO)
+				.orElseGet(() -> new SaldoDTO(null, null, null, null, null, null));
+	}
+	
+	/**
+	 * Saldos de vários usuários numa única leitura das linhas de saldo, na
+	 * ordem dos ids; usuários sem linha recebem saldo zero.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, SaldoDTO> obterPorUsuarios(@IdUsuario Collection<Long> idsUsuarios) {
+		Map<Long, SaldoDTO> encontrados = new LinkedHashMap<>();
+		repository.findAllById(idsUsuarios).forEach(saldo -> encontrados.put(saldo.getIdUsuario(), paraDTO(saldo)));
+		
+		Map<Long, SaldoDTO> saldos = new LinkedHashMap<>();
+		for(Long idUsuario : idsUsuarios) {
+			saldos.put(idUsuario, encontrados.getOrDefault(idUsuario, new SaldoDTO(null, null, null, null, null, null)));
+		}
+		return saldos;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public long obterVersao(@IdUsuario Long idUsuario) {
+		return repository.obterVersao(idUsuario).orElse(0L);
+	}
+
+	@Override
+	@Order(0)
+	@EventListener
+	@Transactional
+	public void atualizar(LancamentosAlteradosEvent evento) {
+		// diferenças acumuladas por usuário; o TreeMap faz os bloqueios
+		// sempre seguirem a ordem dos ids, evitando deadlocks entre lotes
+		Map<Long, BigDecimal[]> diferencas = new TreeMap<>();
+		
+		for(Alteracao alteracao : evento.getAlteracoes()) {
+			Lancamento anterior = alteracao.getAnterior();
+			Lancamento atual = alteracao.getAtual();
+			
+			if(anterior != null && atual != null && mesmaContribuicao(anterior, atual)) {
+				// os totais não mudam, mas a versão do usuário sim
+				diferencaDoUsuario(diferencas, atual.getUsuario().getId());
+				continue;
+			}
+			
+			if(anterior != null) {
+				acumular(diferencas, anterior, anterior.getValor().negate());
+			}
+			
+			if(atual != null) {
+				acumular(diferencas, atual, atual.getValor());
+			}
+		}
+		
+		diferencas.forEach((idUsuario, diferenca) -> {
+			SaldoUsuario saldo = obterParaAtualizacao(idUsuario);
+			saldo.setReceitasEfetivadas(saldo.getReceitasEfetivadas().add(diferenca[RECEITAS_EFETIVADAS]));
+			saldo.setReceitasPendentes(saldo.getReceitasPendentes().add(diferenca[RECEITAS_PENDENTES]));
+			saldo.setReceitasCanceladas(saldo.getReceitasCanceladas().add(diferenca[RECEITAS_CANCELADAS]));
+			saldo.setDespesasEfetivadas(saldo.getDespesasEfetivadas().add(diferenca[DESPESAS_EFETIVADAS]));
+			saldo.setDespesasPendentes(saldo.getDespesasPendentes().add(diferenca[DESPESAS_PENDENTES]));
+			saldo.setDespesasCanceladas(saldo.getDespesasCanceladas().add(diferenca[DESPESAS_CANCELADAS]));
+			saldo.setVersao(saldo.getVersao() + 1);
+			repository.save(saldo);
+			evento.registrarSaldo(idUsuario, paraDTO(saldo));
+		});
+	}
+
+	@Override
+	@Transactional
+	public void reconstruir(@IdUsuario Long idUsuario) {
+		SaldoUsuario saldo = obterParaAtualizacao(idUsuario);
+		// lançamentos arquivados continuam no saldo
+		SaldoDTO totais = lancamentoRepository.obterSaldoPorUsuario(idUsuario)
+				.somar(arquivadoRepository.obterSaldoPorUsuario(idUsuario));
+		
+		saldo.setReceitasEfetivadas(totais.getReceitasEfetivadas());
+		saldo.setReceitasPendentes(totais.getReceitasPendentes());
+		saldo.setReceitasCanceladas(totais.getReceitasCanceladas());
+		saldo.setDespesasEfetivadas(totais.getDespesasEfetivadas());
+		saldo.setDespesasPendentes(totais.getDespesasPendentes());
+		saldo.setDespesasCanceladas(totais.getDespesasCanceladas());
+		saldo.setVersao(saldo.getVersao() + 1);
+		
+		repository.save(saldo);
+	}
+	
+	private static SaldoDTO paraDTO(SaldoUsuario saldo) {
+		SaldoDTO dto = new SaldoDTO(saldo.getReceitasEfetivadas(), saldo.getReceitasPendentes(), saldo.getReceitasCanceladas(),
+				saldo.getDespesasEfetivadas(), saldo.getDespesasPendentes(), saldo.getDespesasCanceladas());
+		dto.setVersao(saldo.getVersao());
+		return dto;
+	}
+	
+	private void acumular(Map<Long, BigDecimal[]> diferencas, Lancamento lancamento, BigDecimal valor) {
+		BigDecimal[] diferenca = diferencaDoUsuario(diferencas, lancamento.getUsuario().getId());
+		
+		int indice = lancamento.getTipo() == TipoLancamento.RECEITA ? RECEITAS_EFETIVADAS : DESPESAS_EFETIVADAS;
+		if(lancamento.getStatus() == StatusLancamento.CANCELADO) {
+			indice += 2;
+		} else if(lancamento.getStatus() != StatusLancamento.EFETIVADO) {
+			indice += 1;
+		}
+		
+		diferenca[indice] = diferenca[indice].add(valor);
+	}
+	
+	private BigDecimal[] diferencaDoUsuario(Map<Long, BigDecimal[]> diferencas, Long idUsuario) {
+		return diferencas.computeIfAbsent(idUsuario, id -> {
+			BigDecimal[] zeros = new BigDecimal[6];
+			Arrays.fill(zeros, BigDecimal.ZERO);
+			return zeros;
+		});
+	}
+	
+	// a linha existe desde o cadastro (ou a carga inicial da migração), então o
+	// bloqueio sempre tem o que travar; sem ela, duas primeiras escritas
+	// concorrentes inseririam a mesma chave
+	private SaldoUsuario obterParaAtualizacao(Long idUsuario) {
+		return repository.obterParaAtualizacao(idUsuario)
+				.orElseGet(() -> SaldoUsuario.zerado(idUsuario));
+	}
+	
+	private boolean mesmaContribuicao(Lancamento anterior, Lancamento atual) {
+		return Objects.equals(anterior.getUsuario().getId(), atual.getUsuario().getId())
+				&& anterior.getTipo() == atual.getTipo()
+				&& anterior.getStatus() == atual.getStatus()
+				&& anterior.getValor().compareTo(atual.getValor()) == 0;
+	}
+	
+}
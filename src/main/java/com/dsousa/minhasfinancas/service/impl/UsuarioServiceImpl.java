@@ -1,13 +1,22 @@
 package com.dsousa.minhasfinancas.service.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.dsousa.minhasfinancas.exception.ErroAutenticacao;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.SaldoUsuario;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
 import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
 import com.dsousa.minhasfinancas.service.UsuarioService;
 
@@ -15,14 +24,24 @@ import com.dsousa.minhasfinancas.service.UsuarioService;
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
 
+	private static final Pattern PADRAO_BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+	
 	private UsuarioRepository repository;
 	
-	public UsuarioServiceImpl(UsuarioRepository repository) {
+	private PasswordEncoder encoder;
+	
+	private SaldoUsuarioRepository saldoRepository;
+	
+	public UsuarioServiceImpl(UsuarioRepository repository, PasswordEncoder encoder,
+			SaldoUsuarioRepository saldoRepository) {
 		super();
 		this.repository = repository;
+		this.encoder = encoder;
+		this.saldoRepository = saldoRepository;
 	}
 
 	@Override
+	@Transactional
 	public Usuario autenticar(String email, String senha) {
 		Optional<Usuario> usuario = repository.findByEmail(email);
 		
@@ -30,7 +49,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 			throw new ErroAutenticacao("Usuário não encontrado para o email informado.");
 		}
 		
-		if(!usuario.get().getSenha().equals(senha)) {
+		if(!senhaConfere(usuario.get(), senha)) {
 			throw new ErroAutenticacao("Senha inválida.");
 		}
 		return usuario.get();
@@ -39,8 +58,43 @@ public class UsuarioServiceImpl implements UsuarioService {
 	@Override
 	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
-		validarEmail(usuario.getEmail());
-		return repository.save(usuario);
+		if(usuario.getSenha() != null) {
+			usuario.setSenha(encoder.encode(usuario.getSenha()));
+		}
+		boolean novo = usuario.getId() == null;
+		// o índice único de email decide, sem consulta prévia e sem corrida entre dois cadastros
+		Usuario salvo;
+		try {
+			salvo = repository.saveAndFlush(usuario);
+		} catch (DataIntegrityViolationException e) {
+			throw new RegraNegocioException("Já existe um usuário cadastrado com esse email!");
+		}
+		// a linha de saldo nasce com o usuário: a primeira escrita de lançamentos
+		// já encontra o que bloquear
+		if(novo) {
+			saldoRepository.save(SaldoUsuario.zerado(salvo.getId()));
+		}
+		return salvo;
+	}
+	
+	/**
+	 * Senhas gravadas antes do hash ainda estão em texto puro: conferem por
+	 * igualdade e são convertidas para BCrypt no primeiro login.
+	 */
+	private boolean senhaConfere(Usuario usuario, String senha) {
+		String senhaGravada = usuario.getSenha();
+		if(senhaGravada == null || senha == null) {
+			return false;
+		}
+		if(PADRAO_BCRYPT.matcher(senhaGravada).matches()) {
+			return encoder.matches(senha, senhaGravada);
+		}
+		if(!senhaGravada.equals(senha)) {
+			return false;
+		}
+		usuario.setSenha(encoder.encode(senha));
+		repository.save(usuario);
+		return true;
 	}
 
 	@Override
@@ -57,6 +111,20 @@ public class UsuarioServiceImpl implements UsuarioService {
 		return repository.findById(id);
 	}
 	
+	@Override
+	public Usuario obterReferencia(Long id) {
+		return repository.getOne(id);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Set<Long> obterIdsExistentes(Collection<Long> ids) {
+		if(ids.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new HashSet<>(repository.listarIdsExistentes(ids));
+	}
+	
 	
 
 }
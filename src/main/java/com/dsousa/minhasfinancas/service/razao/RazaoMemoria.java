@@ -0,0 +1,111 @@
+package com.dsousa.minhasfinancas.service.razao;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.repository.CursorLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache do {@link RazaoUsuario} de cada usuário, carregado na primeira
+ * listagem e descartado pelo Caffeine quando a soma dos pesos passa de
+ * financas.razao.memoria-mb. Depois do commit de cada escrita, as alterações
+ * são aplicadas às colunas já carregadas, na ordem das versões do usuário.
+ * <p>
+ * Toda leitura confere a versão das colunas com a da tabela saldo: escritas
+ * de outras instâncias, reconstruções e arquivamentos não passam por aqui,
+ * e nesses casos as colunas são descartadas e a consulta vai ao banco.
+ */
+@Component
+@ConditionalOnProperty(name = "financas.razao.habilitado", havingValue = "true")
+public class RazaoMemoria {
+
+	static final int TAMANHO_BLOCO_CARGA = 1000;
+	
+	private final LancamentoRepository lancamentoRepository;
+	
+	private final SaldoUsuarioRepository saldoRepository;
+	
+	private final Cache<Long, RazaoUsuario> cache;
+	
+	public RazaoMemoria(LancamentoRepository lancamentoRepository, SaldoUsuarioRepository saldoRepository,
+			ObjectProvider<MeterRegistry> registry, @Value("${financas.razao.memoria-mb:64}") long memoriaMb) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.saldoRepository = saldoRepository;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(memoriaMb * 1024 * 1024)
+				.weigher((Long idUsuario, RazaoUsuario razao) -> razao.peso())
+				.recordStats()
+				.build();
+		// registrado aqui, e não como MeterBinder, para o bean não ser criado antes do Flyway;
+		// as tags são as das métricas dos caches do Spring, que o Prometheus exige iguais
+		registry.ifAvailable(metricas -> CaffeineCacheMetrics.monitor(metricas, cache, "razao",
+				"cacheManager", "razaoMemoria", "name", "razao"));
+	}
+	
+	/**
+	 * Página da listagem vinda das colunas em memória, ou vazio quando elas
+	 * não estão na versão atual do usuário (a chamada deve ir ao banco).
+	 * Precisa de uma transação aberta no shard do usuário.
+	 */
+	public List<LancamentoDTO> buscarPagina(Lancamento filtro, CursorLancamento cursor, int limite) {
+		RazaoUsuario razao = obter(filtro.getUsuario().getId());
+		return razao == null ? null : razao.buscar(filtro, cursor, limite);
+	}
+	
+	/**
+	 * Totais por tipo e status dos lançamentos em aberto que atendem ao
+	 * filtro, como em {@link RazaoUsuario#somar}; falso quando as colunas não
+	 * estão na versão atual.
+	 */
+	public boolean somar(Lancamento filtro, long[] totais) {
+		RazaoUsuario razao = obter(filtro.getUsuario().getId());
+		if(razao == null) {
+			return false;
+		}
+		razao.somar(filtro, totais);
+		return true;
+	}
+	
+	RazaoUsuario obter(Long idUsuario) {
+		long versao = saldoRepository.obterVersao(idUsuario).orElse(0L);
+		RazaoUsuario razao = cache.get(idUsuario, id -> carregar(id, versao));
+		if(razao.getVersao() != versao) {
+			cache.asMap().remove(idUsuario, razao);
+			return null;
+		}
+		return razao;
+	}
+	
+	@TransactionalEventListener
+	public void aplicar(LancamentosAlteradosEvent evento) {
+		evento.getSaldos().forEach((idUsuario, saldo) -> cache.asMap().computeIfPresent(idUsuario,
+				(id, razao) -> razao.aplicar(evento.getAlteracoes(), saldo.getVersao()) ? razao : null));
+	}
+	
+	public void descartar(Long idUsuario) {
+		cache.invalidate(idUsuario);
+	}
+	
+	// escritas que terminarem durante a carga chegam depois em aplicar e são reaplicadas pelo id
+	private RazaoUsuario carregar(Long idUsuario, long versao) {
+		RazaoUsuario razao = new RazaoUsuario(idUsuario, versao);
+		lancamentoRepository.percorrerPorUsuario(idUsuario, TAMANHO_BLOCO_CARGA, razao::acrescentar);
+		return razao;
+	}
+	
+}
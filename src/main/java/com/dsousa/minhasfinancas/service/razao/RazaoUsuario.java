@@ -0,0 +1,353 @@
+package com.dsousa.minhasfinancas.service.razao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.CursorLancamento;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+
+/**
+ * Lançamentos de um usuário em colunas de tipos primitivos, na ordem
+ * (ano, mes, id) da listagem: valor em centavos, competência como aaaamm,
+ * tipo e status como códigos de um byte e a descrição como índice de um
+ * dicionário do usuário. Filtros e somas percorrem os vetores sem criar
+ * objetos; só os itens devolvidos viram DTOs.
+ * <p>
+ * {@code versao} é a versão dos dados do usuário (coluna saldo.versao)
+ * refletida nas colunas. Leituras usam o bloqueio de leitura; as alterações,
+ * o de escrita.
+ */
+public final class RazaoUsuario {
+
+	private static final TipoLancamento[] TIPOS = TipoLancamento.values();
+	private static final StatusLancamento[] STATUS = StatusLancamento.values();
+	private static final byte SEM_VALOR = -1;
+	private static final int CAPACIDADE_INICIAL = 16;
+	
+	private final Long idUsuario;
+	
+	private final ReadWriteLock bloqueio = new ReentrantReadWriteLock();
+	
+	private long[] ids = new long[CAPACIDADE_INICIAL];
+	private int[] competencias = new int[CAPACIDADE_INICIAL];
+	private long[] centavos = new long[CAPACIDADE_INICIAL];
+	private byte[] tipos = new byte[CAPACIDADE_INICIAL];
+	private byte[] status = new byte[CAPACIDADE_INICIAL];
+	private int[] descricoes = new int[CAPACIDADE_INICIAL];
+	private int tamanho;
+	
+	// só cresce; descrições repetidas (aluguel, salário) ocupam uma entrada
+	private final List<String> dicionario = new ArrayList<>();
+	private final Map<String, Integer> indiceDicionario = new HashMap<>();
+	private long pesoDicionario;
+	
+	private long versao;
+	
+	public RazaoUsuario(Long idUsuario, long versao) {
+		this.idUsuario = idUsuario;
+		this.versao = versao;
+	}
+	
+	public Long getIdUsuario() {
+		return idUsuario;
+	}
+	
+	public long getVersao() {
+		bloqueio.readLock().lock();
+		try {
+			return versao;
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+	
+	public int tamanho() {
+		bloqueio.readLock().lock();
+		try {
+			return tamanho;
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Acrescenta no fim, para a carga que já chega na ordem (ano, mes, id).
+	 */
+	public void acrescentar(Lancamento lancamento) {
+		bloqueio.writeLock().lock();
+		try {
+			inserirEm(tamanho, lancamento);
+		} finally {
+			bloqueio.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Aplica as alterações de uma escrita que levou o usuário à versão
+	 * informada. Versões já refletidas são ignoradas; devolve falso quando
+	 * falta alguma versão intermediária, e as colunas devem ser descartadas.
+	 * Cada alteração remove o estado anterior e grava o atual pelo id, então
+	 * reaplicar uma escrita já presente nas colunas não muda nada.
+	 */
+	public boolean aplicar(List<Alteracao> alteracoes, long novaVersao) {
+		bloqueio.writeLock().lock();
+		try {
+			if(novaVersao <= versao) {
+				return true;
+			}
+			if(novaVersao != versao + 1) {
+				return false;
+			}
+			
+			for(Alteracao alteracao : alteracoes) {
+				Lancamento anterior = alteracao.getAnterior();
+				Lancamento atual = alteracao.getAtual();
+				if(anterior != null && anterior.getId() != null) {
+					remover(anterior);
+				}
+				if(atual != null && atual.getId() != null && pertence(atual)) {
+					remover(atual);
+					inserirEm(posicaoApos(competencia(atual), atual.getId()), atual);
+				}
+			}
+			versao = novaVersao;
+			return true;
+		} finally {
+			bloqueio.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Mesmo resultado de LancamentoRepository.buscarPagina: até
+	 * {@code limite} lançamentos que atendem ao filtro, em ordem de
+	 * (ano, mes, id), depois do cursor.
+	 */
+	public List<LancamentoDTO> buscar(Lancamento filtro, CursorLancamento cursor, int limite) {
+		bloqueio.readLock().lock();
+		try {
+			int inicio = 0;
+			int ultimaCompetencia = Integer.MAX_VALUE;
+			if(filtro.getAno() != null) {
+				int primeiroMes = filtro.getMes() == null ? 1 : filtro.getMes();
+				inicio = posicaoApos(filtro.getAno() * 100 + primeiroMes, Long.MIN_VALUE);
+				ultimaCompetencia = filtro.getAno() * 100 + (filtro.getMes() == null ? 12 : filtro.getMes());
+			}
+			if(cursor != null) {
+				inicio = Math.max(inicio, posicaoApos(competencia(cursor.getAno(), cursor.getMes()), cursor.getId()));
+			}
+			
+			boolean[] descricoesAceitas = descricoesAceitas(filtro.getDescricao());
+			int mes = filtro.getMes() == null ? -1 : filtro.getMes();
+			byte tipo = codigo(filtro.getTipo());
+			byte situacao = codigo(filtro.getStatus());
+			
+			List<LancamentoDTO> encontrados = new ArrayList<>(Math.min(limite, 64));
+			for(int i = inicio; i < tamanho && encontrados.size() < limite; i++) {
+				if(competencias[i] > ultimaCompetencia) {
+					break;
+				}
+				if(atende(i, descricoesAceitas, mes, tipo, situacao)) {
+					encontrados.add(paraDTO(i));
+				}
+			}
+			return encontrados;
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Soma, em {@code totais}, os centavos dos lançamentos que atendem ao
+	 * filtro, na posição tipo.ordinal() * 3 + status.ordinal() (sem status
+	 * conta como pendente). Não cria objetos além do filtro de descrição.
+	 */
+	public void somar(Lancamento filtro, long[] totais) {
+		bloqueio.readLock().lock();
+		try {
+			boolean[] descricoesAceitas = descricoesAceitas(filtro.getDescricao());
+			int ano = filtro.getAno() == null ? -1 : filtro.getAno();
+			int mes = filtro.getMes() == null ? -1 : filtro.getMes();
+			byte tipo = codigo(filtro.getTipo());
+			byte situacao = codigo(filtro.getStatus());
+			byte pendente = (byte) StatusLancamento.PENDENTE.ordinal();
+			
+			for(int i = 0; i < tamanho; i++) {
+				if((ano < 0 || competencias[i] / 100 == ano) && atende(i, descricoesAceitas, mes, tipo, situacao)
+						&& tipos[i] != SEM_VALOR) {
+					byte s = status[i] == SEM_VALOR ? pendente : status[i];
+					totais[tipos[i] * STATUS.length + s] += centavos[i];
+				}
+			}
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+	
+	public static SaldoDTO saldo(long[] totais) {
+		int receita = TipoLancamento.RECEITA.ordinal() * STATUS.length;
+		int despesa = TipoLancamento.DESPESA.ordinal() * STATUS.length;
+		int efetivado = StatusLancamento.EFETIVADO.ordinal();
+		int pendente = StatusLancamento.PENDENTE.ordinal();
+		int cancelado = StatusLancamento.CANCELADO.ordinal();
+		return new SaldoDTO(
+				BigDecimal.valueOf(totais[receita + efetivado], 2), BigDecimal.valueOf(totais[receita + pendente], 2),
+				BigDecimal.valueOf(totais[receita + cancelado], 2), BigDecimal.valueOf(totais[despesa + efetivado], 2),
+				BigDecimal.valueOf(totais[despesa + pendente], 2), BigDecimal.valueOf(totais[despesa + cancelado], 2));
+	}
+	
+	/**
+	 * Bytes ocupados pelos vetores e pelo dicionário, usado como peso no
+	 * orçamento de memória do cache.
+	 */
+	public int peso() {
+		bloqueio.readLock().lock();
+		try {
+			long bytes = 64 + (long) ids.length * (8 + 4 + 8 + 1 + 1 + 4) + pesoDicionario;
+			return (int) Math.min(Integer.MAX_VALUE, bytes);
+		} finally {
+			bloqueio.readLock().unlock();
+		}
+	}
+	
+	private boolean atende(int i, boolean[] descricoesAceitas, int mes, byte tipo, byte situacao) {
+		return (mes < 0 || competencias[i] % 100 == mes)
+				&& (tipo == SEM_VALOR || tipos[i] == tipo)
+				&& (situacao == SEM_VALOR || status[i] == situacao)
+				&& (descricoesAceitas == null || (descricoes[i] >= 0 && descricoesAceitas[descricoes[i]]));
+	}
+	
+	// o trecho é comparado uma vez com cada descrição distinta, não com cada lançamento
+	private boolean[] descricoesAceitas(String trecho) {
+		if(trecho == null) {
+			return null;
+		}
+		String procurado = trecho.toLowerCase();
+		boolean[] aceitas = new boolean[dicionario.size()];
+		for(int i = 0; i < aceitas.length; i++) {
+			aceitas[i] = dicionario.get(i).toLowerCase().contains(procurado);
+		}
+		return aceitas;
+	}
+	
+	private LancamentoDTO paraDTO(int i) {
+		return new LancamentoDTO(ids[i],
+				descricoes[i] < 0 ? null : dicionario.get(descricoes[i]),
+				competencias[i] % 100,
+				competencias[i] / 100,
+				BigDecimal.valueOf(centavos[i], 2),
+				idUsuario,
+				tipos[i] == SEM_VALOR ? null : TIPOS[tipos[i]],
+				status[i] == SEM_VALOR ? null : STATUS[status[i]]);
+	}
+	
+	private boolean pertence(Lancamento lancamento) {
+		return lancamento.getUsuario() != null && idUsuario.equals(lancamento.getUsuario().getId());
+	}
+	
+	// procura primeiro na posição do estado informado e só então varre as colunas pelo id
+	private void remover(Lancamento lancamento) {
+		long id = lancamento.getId();
+		int posicao = posicaoApos(competencia(lancamento), id) - 1;
+		if(posicao < 0 || ids[posicao] != id) {
+			posicao = -1;
+			for(int i = 0; i < tamanho && posicao < 0; i++) {
+				if(ids[i] == id) {
+					posicao = i;
+				}
+			}
+		}
+		
+		if(posicao < 0) {
+			return;
+		}
+		
+		int depois = tamanho - posicao - 1;
+		System.arraycopy(ids, posicao + 1, ids, posicao, depois);
+		System.arraycopy(competencias, posicao + 1, competencias, posicao, depois);
+		System.arraycopy(centavos, posicao + 1, centavos, posicao, depois);
+		System.arraycopy(tipos, posicao + 1, tipos, posicao, depois);
+		System.arraycopy(status, posicao + 1, status, posicao, depois);
+		System.arraycopy(descricoes, posicao + 1, descricoes, posicao, depois);
+		tamanho--;
+	}
+	
+	private void inserirEm(int posicao, Lancamento lancamento) {
+		if(tamanho == ids.length) {
+			int capacidade = ids.length + (ids.length >> 1);
+			ids = Arrays.copyOf(ids, capacidade);
+			competencias = Arrays.copyOf(competencias, capacidade);
+			centavos = Arrays.copyOf(centavos, capacidade);
+			tipos = Arrays.copyOf(tipos, capacidade);
+			status = Arrays.copyOf(status, capacidade);
+			descricoes = Arrays.copyOf(descricoes, capacidade);
+		}
+		
+		int depois = tamanho - posicao;
+		System.arraycopy(ids, posicao, ids, posicao + 1, depois);
+		System.arraycopy(competencias, posicao, competencias, posicao + 1, depois);
+		System.arraycopy(centavos, posicao, centavos, posicao + 1, depois);
+		System.arraycopy(tipos, posicao, tipos, posicao + 1, depois);
+		System.arraycopy(status, posicao, status, posicao + 1, depois);
+		System.arraycopy(descricoes, posicao, descricoes, posicao + 1, depois);
+		
+		ids[posicao] = lancamento.getId();
+		competencias[posicao] = competencia(lancamento);
+		centavos[posicao] = lancamento.getValor() == null ? 0
+				: lancamento.getValor().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+		tipos[posicao] = codigo(lancamento.getTipo());
+		status[posicao] = codigo(lancamento.getStatus());
+		descricoes[posicao] = indiceDescricao(lancamento.getDescricao());
+		tamanho++;
+	}
+	
+	private int indiceDescricao(String descricao) {
+		if(descricao == null) {
+			return -1;
+		}
+		return indiceDicionario.computeIfAbsent(descricao, nova -> {
+			dicionario.add(nova);
+			pesoDicionario += 48 + 2L * nova.length();
+			return dicionario.size() - 1;
+		});
+	}
+	
+	// primeira posição depois de (competencia, id) na ordem das colunas
+	private int posicaoApos(int competencia, long id) {
+		int baixo = 0;
+		int alto = tamanho;
+		while(baixo < alto) {
+			int meio = (baixo + alto) >>> 1;
+			if(competencias[meio] < competencia || (competencias[meio] == competencia && ids[meio] <= id)) {
+				baixo = meio + 1;
+			} else {
+				alto = meio;
+			}
+		}
+		return baixo;
+	}
+	
+	private static int competencia(Lancamento lancamento) {
+		return competencia(lancamento.getAno(), lancamento.getMes());
+	}
+	
+	private static int competencia(Integer ano, Integer mes) {
+		return (ano == null ? 0 : ano) * 100 + (mes == null ? 0 : mes);
+	}
+	
+	private static byte codigo(Enum<?> valor) {
+		return valor == null ? SEM_VALOR : (byte) valor.ordinal();
+	}
+	
+}
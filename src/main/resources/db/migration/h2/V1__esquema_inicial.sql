@@ -0,0 +1,26 @@
+-- Esquema como estava antes das migrações (antes gerado pelo ddl-auto=update).
+-- Tudo o que foi criado depois disso fica nas migrações seguintes.
+
+create schema if not exists financas;
+
+create table financas.usuario (
+	id bigint auto_increment not null,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255),
+	primary key (id)
+);
+
+create table financas.lancamento (
+	id bigint auto_increment not null,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint,
+	valor decimal(19,2),
+	data_cadastro timestamp,
+	tipo varchar(255),
+	status varchar(255),
+	primary key (id),
+	constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+);
@@ -0,0 +1,33 @@
+-- bancos vindos do auto_increment: a sequência começa depois do maior id
+create sequence financas.lancamento_seq start with 1 increment by 50;
+
+alter sequence financas.lancamento_seq restart with (select coalesce(max(id), 0) + 1 from financas.lancamento);
+
+-- saldo de cada usuário, mantido pelo SaldoServiceImpl
+create table financas.saldo (
+	id_usuario bigint not null,
+	receitas_efetivadas decimal(19,2),
+	receitas_pendentes decimal(19,2),
+	receitas_canceladas decimal(19,2),
+	despesas_efetivadas decimal(19,2),
+	despesas_pendentes decimal(19,2),
+	despesas_canceladas decimal(19,2),
+	primary key (id_usuario)
+);
+
+-- termos da busca por descrição, mantidos pelo IndiceBuscaServiceImpl
+create table financas.lancamento_termo (
+	id_usuario bigint not null,
+	termo varchar(60) not null,
+	id_lancamento bigint not null,
+	primary key (id_usuario, termo, id_lancamento)
+);
+
+-- listagem (usuario, ano, mes, id) e agregação do saldo (usuario, tipo, status, valor)
+create index idx_lancamento_usuario_periodo on financas.lancamento (id_usuario, ano, mes, id);
+create index idx_lancamento_usuario_saldo on financas.lancamento (id_usuario, tipo, status, valor);
+
+-- remoção dos termos de um lançamento
+create index idx_lancamento_termo_lancamento on financas.lancamento_termo (id_lancamento);
+
+alter table financas.usuario add constraint uk_usuario_email unique (email);
@@ -0,0 +1,24 @@
+-- modelos de lançamentos que se repetem (aluguel, salário); competências
+-- guardadas como ano * 12 + mes - 1 para o intervalo caber numa comparação
+create sequence financas.recorrencia_seq start with 1 increment by 50;
+
+create table financas.recorrencia (
+	id bigint not null,
+	id_usuario bigint not null,
+	descricao varchar(255),
+	valor decimal(19,2),
+	tipo varchar(20),
+	frequencia varchar(20),
+	competencia_inicio integer not null,
+	competencia_fim integer,
+	proxima_competencia integer,
+	primary key (id),
+	constraint fk_recorrencia_usuario foreign key (id_usuario) references financas.usuario (id)
+);
+
+create index idx_recorrencia_usuario on financas.recorrencia (id_usuario);
+
+-- cada competência de uma recorrência vira no máximo um lançamento, mesmo
+-- que a geração rode de novo depois de uma falha
+alter table financas.lancamento add column id_recorrencia bigint;
+create unique index uk_lancamento_recorrencia on financas.lancamento (id_recorrencia, ano, mes);
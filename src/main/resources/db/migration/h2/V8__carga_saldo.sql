@@ -0,0 +1,21 @@
+-- carga inicial do saldo a partir dos lançamentos existentes, em aberto e arquivados,
+-- com a mesma classificação do SaldoServiceImpl (fora RECEITA é despesa, sem status
+-- ou fora EFETIVADO e CANCELADO é pendente); usuários sem lançamentos ficam zerados
+insert into financas.saldo (id_usuario, receitas_efetivadas, receitas_pendentes, receitas_canceladas,
+		despesas_efetivadas, despesas_pendentes, despesas_canceladas, versao)
+	select u.id,
+		coalesce(sum(case when l.tipo = 'RECEITA' and l.status = 'EFETIVADO' then l.valor end), 0),
+		coalesce(sum(case when l.tipo = 'RECEITA' and coalesce(l.status, 'PENDENTE') not in ('EFETIVADO', 'CANCELADO') then l.valor end), 0),
+		coalesce(sum(case when l.tipo = 'RECEITA' and l.status = 'CANCELADO' then l.valor end), 0),
+		coalesce(sum(case when coalesce(l.tipo, 'DESPESA') <> 'RECEITA' and l.status = 'EFETIVADO' then l.valor end), 0),
+		coalesce(sum(case when coalesce(l.tipo, 'DESPESA') <> 'RECEITA' and coalesce(l.status, 'PENDENTE') not in ('EFETIVADO', 'CANCELADO') then l.valor end), 0),
+		coalesce(sum(case when coalesce(l.tipo, 'DESPESA') <> 'RECEITA' and l.status = 'CANCELADO' then l.valor end), 0),
+		0
+	from financas.usuario u
+	left join (
+		select id_usuario, tipo, status, valor from financas.lancamento
+		union all
+		select id_usuario, tipo, status, valor from financas.lancamento_arquivado
+	) l on l.id_usuario = u.id
+	where not exists (select 1 from financas.saldo s where s.id_usuario = u.id)
+	group by u.id;
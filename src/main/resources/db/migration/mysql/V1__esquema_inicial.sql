@@ -0,0 +1,25 @@
+-- Esquema como estava antes das migrações (antes gerado pelo ddl-auto=update).
+-- Bancos já existentes não executam este script: recebem a baseline na versão 1.
+-- Tudo o que foi criado depois disso fica nas migrações seguintes.
+
+create table financas.usuario (
+	id bigint not null auto_increment,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255),
+	primary key (id)
+) engine=InnoDB;
+
+create table financas.lancamento (
+	id bigint not null auto_increment,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint,
+	valor decimal(19,2),
+	data_cadastro datetime(6),
+	tipo varchar(255),
+	status varchar(255),
+	primary key (id),
+	constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+) engine=InnoDB;
@@ -0,0 +1,39 @@
+-- o MySQL não tem sequências; o Hibernate usa esta tabela no lugar.
+-- Bancos vindos do auto_increment: o gerador de ids começa depois do maior id.
+create table financas.lancamento_seq (
+	next_val bigint
+) engine=InnoDB;
+
+insert into financas.lancamento_seq
+	select coalesce(max(id), 0) + 1 from financas.lancamento;
+
+-- saldo de cada usuário, mantido pelo SaldoServiceImpl
+create table financas.saldo (
+	id_usuario bigint not null,
+	receitas_efetivadas decimal(19,2),
+	receitas_pendentes decimal(19,2),
+	receitas_canceladas decimal(19,2),
+	despesas_efetivadas decimal(19,2),
+	despesas_pendentes decimal(19,2),
+	despesas_canceladas decimal(19,2),
+	primary key (id_usuario)
+) engine=InnoDB;
+
+-- termos da busca por descrição, mantidos pelo IndiceBuscaServiceImpl
+create table financas.lancamento_termo (
+	id_usuario bigint not null,
+	termo varchar(60) not null,
+	id_lancamento bigint not null,
+	primary key (id_usuario, termo, id_lancamento)
+) engine=InnoDB;
+
+-- listagem (usuario, ano, mes, id) e agregação do saldo (usuario, tipo, status, valor);
+-- o primeiro também atende a chave estrangeira de id_usuario
+create index idx_lancamento_usuario_periodo on financas.lancamento (id_usuario, ano, mes, id);
+create index idx_lancamento_usuario_saldo on financas.lancamento (id_usuario, tipo, status, valor);
+
+-- remoção dos termos de um lançamento
+create index idx_lancamento_termo_lancamento on financas.lancamento_termo (id_lancamento);
+
+-- falha se já houver emails repetidos; eles precisam ser resolvidos antes
+alter table financas.usuario add constraint uk_usuario_email unique (email);
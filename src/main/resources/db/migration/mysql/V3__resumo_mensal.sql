@@ -0,0 +1,18 @@
+-- totais mensais por usuário, tipo e status, mantidos pelo ResumoMensalServiceImpl
+create table financas.resumo_mensal (
+	id_usuario bigint not null,
+	ano integer not null,
+	mes integer not null,
+	tipo varchar(20) not null,
+	status varchar(20) not null,
+	valor decimal(19,2) not null,
+	quantidade bigint not null,
+	primary key (id_usuario, ano, mes, tipo, status)
+);
+
+-- carga inicial a partir dos lançamentos existentes (sem status conta como pendente)
+insert into financas.resumo_mensal (id_usuario, ano, mes, tipo, status, valor, quantidade)
+	select id_usuario, ano, mes, tipo, coalesce(status, 'PENDENTE'), coalesce(sum(valor), 0), count(*)
+	from financas.lancamento
+	where id_usuario is not null and ano is not null and mes is not null and tipo is not null
+	group by id_usuario, ano, mes, tipo, coalesce(status, 'PENDENTE');
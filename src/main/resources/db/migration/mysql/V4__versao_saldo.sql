@@ -0,0 +1,2 @@
+-- versão dos dados de cada usuário, incrementada a cada escrita em lançamentos (ETag)
+alter table financas.saldo add column versao bigint default 0 not null;
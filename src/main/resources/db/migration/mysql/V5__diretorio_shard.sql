@@ -0,0 +1,7 @@
+-- shard de cada usuário quando os lançamentos estão divididos entre bancos (ShardingConfig)
+create table financas.diretorio_shard (
+	id_usuario bigint not null,
+	shard integer not null,
+	em_migracao boolean default false not null,
+	primary key (id_usuario)
+);
@@ -0,0 +1,27 @@
+-- Esquema como estava antes das migrações (antes gerado pelo ddl-auto=update).
+-- Bancos já existentes não executam este script: recebem a baseline na versão 1.
+-- Tudo o que foi criado depois disso fica nas migrações seguintes.
+
+create schema if not exists financas;
+
+create table financas.usuario (
+	id bigserial not null,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255),
+	primary key (id)
+);
+
+create table financas.lancamento (
+	id bigserial not null,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint,
+	valor numeric(19,2),
+	data_cadastro timestamp,
+	tipo varchar(255),
+	status varchar(255),
+	primary key (id),
+	constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+);
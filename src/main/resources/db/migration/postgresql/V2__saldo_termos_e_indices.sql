@@ -0,0 +1,34 @@
+-- bancos vindos do bigserial: a sequência começa depois do maior id
+create sequence financas.lancamento_seq start with 1 increment by 50;
+
+select setval('financas.lancamento_seq', (select coalesce(max(id), 0) + 1 from financas.lancamento), false);
+
+-- saldo de cada usuário, mantido pelo SaldoServiceImpl
+create table financas.saldo (
+	id_usuario bigint not null,
+	receitas_efetivadas numeric(19,2),
+	receitas_pendentes numeric(19,2),
+	receitas_canceladas numeric(19,2),
+	despesas_efetivadas numeric(19,2),
+	despesas_pendentes numeric(19,2),
+	despesas_canceladas numeric(19,2),
+	primary key (id_usuario)
+);
+
+-- termos da busca por descrição, mantidos pelo IndiceBuscaServiceImpl
+create table financas.lancamento_termo (
+	id_usuario bigint not null,
+	termo varchar(60) not null,
+	id_lancamento bigint not null,
+	primary key (id_usuario, termo, id_lancamento)
+);
+
+-- listagem (usuario, ano, mes, id) e agregação do saldo (usuario, tipo, status, valor)
+create index idx_lancamento_usuario_periodo on financas.lancamento (id_usuario, ano, mes, id);
+create index idx_lancamento_usuario_saldo on financas.lancamento (id_usuario, tipo, status, valor);
+
+-- remoção dos termos de um lançamento
+create index idx_lancamento_termo_lancamento on financas.lancamento_termo (id_lancamento);
+
+-- falha se já houver emails repetidos; eles precisam ser resolvidos antes
+alter table financas.usuario add constraint uk_usuario_email unique (email);
@@ -0,0 +1,24 @@
+-- lançamentos de anos fechados, movidos para cá pelo ArquivoServiceImpl; só são
+-- lidos quando uma busca pede um desses anos, então o único índice é o da busca
+create table financas.lancamento_arquivado (
+	id bigint not null,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint not null,
+	valor numeric(19,2),
+	data_cadastro timestamp,
+	tipo varchar(20),
+	status varchar(20),
+	primary key (id)
+);
+
+create index idx_lancamento_arquivado_periodo on financas.lancamento_arquivado (id_usuario, ano, mes, id);
+
+-- anos arquivados de cada usuário e quantos lançamentos foram para o arquivo
+create table financas.ano_arquivado (
+	id_usuario bigint not null,
+	ano integer not null,
+	quantidade bigint not null,
+	primary key (id_usuario, ano)
+);
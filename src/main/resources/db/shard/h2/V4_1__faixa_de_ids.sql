@@ -0,0 +1,3 @@
+-- só nos shards adicionais: ids de lançamento numa faixa própria, para
+-- continuarem únicos quando um usuário muda de shard
+alter sequence financas.lancamento_seq restart with ${inicioIds};
@@ -0,0 +1,3 @@
+-- só nos shards adicionais: ids de lançamento numa faixa própria, para
+-- continuarem únicos quando um usuário muda de shard
+update financas.lancamento_seq set next_val = ${inicioIds};
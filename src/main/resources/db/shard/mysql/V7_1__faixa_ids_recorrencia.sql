@@ -0,0 +1,2 @@
+-- só nos shards adicionais: ids de recorrência na mesma faixa dos lançamentos
+update financas.recorrencia_seq set next_val = ${inicioIds};
@@ -0,0 +1,2 @@
+-- só nos shards adicionais: ids de recorrência na mesma faixa dos lançamentos
+alter sequence financas.recorrencia_seq restart with ${inicioIds};
@@ -0,0 +1,54 @@
+package com.dsousa.minhasfinancas.api.DTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Tamanho dos payloads da listagem em cada formato; o tempo de serialização
+ * fica no FormatoRespostaBenchmark.
+ */
+public class LancamentosColunasDTOTest {
+
+	ObjectMapper json = new ObjectMapper();
+	
+	ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+	
+	@Test
+	public void deveGerarPayloadsMenoresQueAListaDeDtos() throws Exception {
+		List<LancamentoDTO> dtos = criarDtos(1000);
+		
+		int dtosJson = json.writeValueAsBytes(dtos).length;
+		int dtosCbor = cbor.writeValueAsBytes(dtos).length;
+		int colunasJson = json.writeValueAsBytes(new LancamentosColunasDTO(1L, dtos)).length;
+		int colunasCbor = cbor.writeValueAsBytes(new LancamentosColunasDTO(1L, dtos)).length;
+		
+		Assertions.assertThat(dtosCbor).isLessThan(dtosJson);
+		Assertions.assertThat(colunasJson).isLessThan(dtosJson / 2);
+		Assertions.assertThat(colunasCbor).isLessThan(colunasJson).isLessThan(dtosCbor);
+	}
+	
+	private List<LancamentoDTO> criarDtos(int quantidade) {
+		List<LancamentoDTO> dtos = new ArrayList<>(quantidade);
+		for(int i = 0; i < quantidade; i++) {
+			dtos.add(LancamentoDTO.builder()
+					.id((long) i)
+					.descricao("Lançamento " + i)
+					.mes(i % 12 + 1)
+					.ano(2020)
+					.valor(BigDecimal.valueOf(i, 2))
+					.idUsuario(1L)
+					.tipo(i % 3 == 0 ? "RECEITA" : "DESPESA")
+					.status("PENDENTE")
+					.build());
+		}
+		return dtos;
+	}
+	
+}
@@ -0,0 +1,343 @@
+package com.dsousa.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.JwtService;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.UsuarioService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Import(ExecutorRequisicoes.class)
+@WebMvcTest(controllers = LancamentoResource.class)
+@AutoConfigureMockMvc
+public class LancamentoResourceTest {
+
+	static final String API = "/api/lancamentos";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@MockBean
+	LancamentoService service;
+	
+	@MockBean
+	UsuarioService usuarioService;
+	
+	@MockBean
+	JwtService jwtService;
+	
+	@Test
+	public void deveSalvarUsandoReferenciaDoUsuarioERetornarODTO() throws Exception {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(usuario);
+		Mockito.when(service.salvar(Mockito.any(Lancamento.class))).thenReturn(criarLancamento(usuario, 1L, "Aluguel"));
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2019,\"valor\":10,\"idUsuario\":1,\"tipo\":\"RECEITA\"}"))
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andExpect(MockMvcResultMatchers.jsonPath("idUsuario").value(1))
+			.andExpect(MockMvcResultMatchers.jsonPath("usuario").doesNotExist());
+		
+		Mockito.verify(usuarioService, Mockito.never()).obterPorId(Mockito.anyLong());
+	}
+	
+	@Test
+	public void deveRetornarBadRequestQuandoOUsuarioNaoExisteNaGravacao() throws Exception {
+		Mockito.when(usuarioService.obterReferencia(99L)).thenReturn(Usuario.builder().id(99L).build());
+		Mockito.when(service.salvar(Mockito.any(Lancamento.class))).thenThrow(new DataIntegrityViolationException("fk"));
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2019,\"valor\":10,\"idUsuario\":99,\"tipo\":\"RECEITA\"}"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest())
+			.andExpect(MockMvcResultMatchers.content().string(LancamentoResource.USUARIO_NAO_ENCONTRADO));
+	}
+	
+	@Test
+	public void deveSalvarParaOUsuarioDoTokenQuandoOCorpoNaoInformaOUsuario() throws Exception {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(usuario);
+		Mockito.when(service.salvar(Mockito.any(Lancamento.class))).thenReturn(criarLancamento(usuario, 1L, "Aluguel"));
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2019,\"valor\":10,\"tipo\":\"RECEITA\"}"))
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andExpect(MockMvcResultMatchers.jsonPath("idUsuario").value(1));
+	}
+	
+	@Test
+	public void deveNegarGravacaoParaOutroUsuarioQuandoAutenticado() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"mes\":1,\"ano\":2019,\"valor\":10,\"idUsuario\":2,\"tipo\":\"RECEITA\"}"))
+			.andExpect(MockMvcResultMatchers.status().isForbidden());
+		
+		Mockito.verify(service, Mockito.never()).salvar(Mockito.any());
+	}
+	
+	@Test
+	public void deveAtualizarOStatusSemCarregarOLancamento() throws Exception {
+		Lancamento lancamento = criarLancamento(Usuario.builder().id(1L).build(), 5L, "Aluguel");
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(service.atualizarStatus(5L, 1L, StatusLancamento.EFETIVADO)).thenReturn(Optional.of(lancamento));
+		
+		executar(MockMvcRequestBuilders.put(API.concat("/5/atualiza-status"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"status\":\"EFETIVADO\"}"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("status").value("EFETIVADO"));
+		
+		Mockito.verify(service, Mockito.never()).buscarPorId(Mockito.anyLong());
+	}
+	
+	@Test
+	public void deveRetornarBadRequestParaStatusInvalido() throws Exception {
+		executar(MockMvcRequestBuilders.put(API.concat("/5/atualiza-status"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"status\":\"PAGO\"}"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verifyNoInteractions(service);
+	}
+	
+	@Test
+	public void deveNegarAtualizacaoDeStatusDeLancamentoDeOutroUsuario() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(service.atualizarStatus(5L, 1L, StatusLancamento.EFETIVADO))
+			.thenReturn(Optional.of(criarLancamento(Usuario.builder().id(2L).build(), 5L, "Aluguel")));
+		
+		executar(MockMvcRequestBuilders.put(API.concat("/5/atualiza-status"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"status\":\"EFETIVADO\"}"))
+			.andExpect(MockMvcResultMatchers.status().isForbidden());
+	}
+	
+	@Test
+	public void deveAtualizarParcialmenteApenasOsCamposInformados() throws Exception {
+		Lancamento lancamento = criarLancamento(Usuario.builder().id(1L).build(), 5L, "Condomínio");
+		Mockito.when(service.atualizarParcialmente(Mockito.eq(5L), Mockito.isNull(), Mockito.any(Lancamento.class)))
+			.thenReturn(Optional.of(lancamento));
+		
+		executar(MockMvcRequestBuilders.patch(API.concat("/5"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Condomínio\"}"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("descricao").value("Condomínio"));
+		
+		ArgumentCaptor<Lancamento> alteracoes = ArgumentCaptor.forClass(Lancamento.class);
+		Mockito.verify(service).atualizarParcialmente(Mockito.eq(5L), Mockito.isNull(), alteracoes.capture());
+		Assertions.assertThat(alteracoes.getValue().getDescricao()).isEqualTo("Condomínio");
+		Assertions.assertThat(alteracoes.getValue().getValor()).isNull();
+		Assertions.assertThat(alteracoes.getValue().getUsuario()).isNull();
+	}
+	
+	@Test
+	public void deveListarComETagDaVersaoDoUsuario() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(Usuario.builder().id(1L).build());
+		Mockito.when(service.obterVersaoPorUsuario(1L)).thenReturn(7L);
+		Mockito.when(service.buscar(Mockito.any(Lancamento.class), Mockito.isNull(), Mockito.isNull()))
+			.thenReturn(new PaginaDTO<>(Collections.emptyList(), null));
+		
+		executar(MockMvcRequestBuilders.get(API).header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-7\""));
+	}
+	
+	@Test
+	public void deveResponderNotModifiedSemConsultarOsLancamentos() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(service.obterVersaoPorUsuario(1L)).thenReturn(7L);
+		
+		executar(MockMvcRequestBuilders.get(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"1-7\""))
+			.andExpect(MockMvcResultMatchers.status().isNotModified())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-7\""));
+		
+		Mockito.verify(service, Mockito.never()).buscar(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
+	@Test
+	public void deveListarEmColunasQuandoOAcceptPedir() throws Exception {
+		prepararListagem();
+		
+		executar(MockMvcRequestBuilders.get(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.accept(LancamentoResource.FORMATO_COLUNAS))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(LancamentoResource.FORMATO_COLUNAS))
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+			.andExpect(MockMvcResultMatchers.jsonPath("idUsuario").value(1))
+			.andExpect(MockMvcResultMatchers.jsonPath("id[1]").value(2))
+			.andExpect(MockMvcResultMatchers.jsonPath("descricao[1]").value("Luz"))
+			.andExpect(MockMvcResultMatchers.jsonPath("[0]").doesNotExist());
+	}
+	
+	@Test
+	public void deveListarEmColunasAsLinhasDeResumoDosAnosArquivados() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(Usuario.builder().id(1L).build());
+		Mockito.when(service.buscar(Mockito.any(Lancamento.class), Mockito.isNull(), Mockito.isNull()))
+			.thenReturn(new PaginaDTO<>(Arrays.asList(
+					LancamentoDTO.builder().descricao("Resumo arquivado").ano(2018).mes(1).idUsuario(1L).build(),
+					LancamentoDTO.builder().id(2L).descricao("Luz").ano(2021).mes(1).idUsuario(1L).build()), null));
+		
+		executar(MockMvcRequestBuilders.get(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.accept(LancamentoResource.FORMATO_COLUNAS))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("id[0]").value(Matchers.nullValue()))
+			.andExpect(MockMvcResultMatchers.jsonPath("id[1]").value(2))
+			.andExpect(MockMvcResultMatchers.jsonPath("ano[0]").value(2018));
+	}
+	
+	@Test
+	public void deveListarEmCborQuandoOAcceptPedir() throws Exception {
+		prepararListagem();
+		
+		MvcResult resultado = executar(MockMvcRequestBuilders.get(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.accept(MediaType.APPLICATION_CBOR))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+			.andReturn();
+		
+		JsonNode lancamentos = new ObjectMapper(new CBORFactory()).readTree(resultado.getResponse().getContentAsByteArray());
+		Assertions.assertThat(lancamentos.get(1).get("descricao").asText()).isEqualTo("Luz");
+	}
+	
+	@Test
+	public void deveListarEmJsonQuandoOAcceptAceitaQualquerTipo() throws Exception {
+		prepararListagem();
+		
+		executar(MockMvcRequestBuilders.get(API)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.accept(MediaType.ALL))
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.jsonPath("[1].descricao").value("Luz"));
+	}
+	
+	private void prepararListagem() {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(usuario);
+		Mockito.when(service.buscar(Mockito.any(Lancamento.class), Mockito.isNull(), Mockito.isNull()))
+			.thenReturn(new PaginaDTO<>(Arrays.asList(
+					LancamentoDTO.builder().id(1L).descricao("Aluguel").idUsuario(1L).build(),
+					LancamentoDTO.builder().id(2L).descricao("Luz").idUsuario(1L).build()), null));
+	}
+	
+	@Test
+	public void deveExportarOsLancamentosEmCsv() throws Exception {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(usuarioService.obterPorId(1L)).thenReturn(Optional.of(usuario));
+		Mockito.doAnswer(invocacao -> {
+			Consumer<Lancamento> consumidor = invocacao.getArgument(1);
+			consumidor.accept(criarLancamento(usuario, 1L, "Aluguel, apto \"101\""));
+			consumidor.accept(criarLancamento(usuario, 2L, "Salário"));
+			return null;
+		}).when(service).exportar(Mockito.eq(1L), Mockito.any());
+		
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/export")).param("usuario", "1").param("format", "csv"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/csv"))
+			.andExpect(MockMvcResultMatchers.content().string(
+					"id,descricao,mes,ano,valor,tipo,status\n"
+					+ "1,\"Aluguel, apto \"\"101\"\"\",1,2019,10,RECEITA,PENDENTE\n"
+					+ "2,Salário,1,2019,10,RECEITA,PENDENTE\n"));
+	}
+	
+	@Test
+	public void deveExportarOsLancamentosEmNdjson() throws Exception {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(usuarioService.obterPorId(1L)).thenReturn(Optional.of(usuario));
+		Mockito.doAnswer(invocacao -> {
+			Consumer<Lancamento> consumidor = invocacao.getArgument(1);
+			consumidor.accept(criarLancamento(usuario, 1L, "Aluguel"));
+			return null;
+		}).when(service).exportar(Mockito.eq(1L), Mockito.any());
+		
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/export")).param("usuario", "1").param("format", "ndjson"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(org.hamcrest.Matchers.startsWith("{\"id\":1,\"descricao\":\"Aluguel\"")));
+	}
+	
+	@Test
+	public void deveRetornarBadRequestParaFormatoDeExportacaoInvalido() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/export")).param("usuario", "1").param("format", "xml"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verify(service, Mockito.never()).exportar(Mockito.any(), Mockito.any());
+	}
+	
+	private Lancamento criarLancamento(Usuario usuario, Long id, String descricao) {
+		return Lancamento.builder()
+				.id(id)
+				.descricao(descricao)
+				.mes(1)
+				.ano(2019)
+				.valor(BigDecimal.TEN)
+				.usuario(usuario)
+				.tipo(TipoLancamento.RECEITA)
+				.status(StatusLancamento.PENDENTE)
+				.build();
+	}
+	
+	// os handlers devolvem CompletableFuture: a resposta sai no despacho assíncrono
+	ResultActions executar(RequestBuilder requisicao) throws Exception {
+		MvcResult resultado = mvc.perform(requisicao)
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		return mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado));
+	}
+	
+}
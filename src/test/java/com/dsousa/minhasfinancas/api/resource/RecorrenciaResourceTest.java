@@ -0,0 +1,122 @@
+package com.dsousa.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.FrequenciaRecorrencia;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.JwtService;
+import com.dsousa.minhasfinancas.service.RecorrenciaService;
+import com.dsousa.minhasfinancas.service.UsuarioService;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Import(ExecutorRequisicoes.class)
+@WebMvcTest(controllers = RecorrenciaResource.class)
+@AutoConfigureMockMvc
+public class RecorrenciaResourceTest {
+
+	static final String API = "/api/recorrencias";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@MockBean
+	RecorrenciaService service;
+	
+	@MockBean
+	UsuarioService usuarioService;
+	
+	@MockBean
+	JwtService jwtService;
+	
+	@Test
+	public void deveSalvarAPartirDoMesEAnoDeInicio() throws Exception {
+		Usuario usuario = Usuario.builder().id(1L).build();
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(usuario);
+		Mockito.when(service.salvar(Mockito.any(Recorrencia.class))).thenAnswer(invocacao -> {
+			Recorrencia recorrencia = invocacao.getArgument(0);
+			recorrencia.setId(7L);
+			recorrencia.setProximaCompetencia(recorrencia.getCompetenciaInicio());
+			return recorrencia;
+		});
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"valor\":1000,\"idUsuario\":1,\"tipo\":\"DESPESA\","
+						+ "\"frequencia\":\"MENSAL\",\"mesInicio\":3,\"anoInicio\":2020}"))
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andExpect(MockMvcResultMatchers.jsonPath("id").value(7))
+			.andExpect(MockMvcResultMatchers.jsonPath("mesProximo").value(3))
+			.andExpect(MockMvcResultMatchers.jsonPath("anoProximo").value(2020));
+		
+		ArgumentCaptor<Recorrencia> salva = ArgumentCaptor.forClass(Recorrencia.class);
+		Mockito.verify(service).salvar(salva.capture());
+		Assertions.assertThat(salva.getValue().getCompetenciaInicio()).isEqualTo(Recorrencia.competencia(2020, 3));
+		Assertions.assertThat(salva.getValue().getCompetenciaFim()).isNull();
+	}
+	
+	@Test
+	public void deveRecusarMesInvalido() throws Exception {
+		Mockito.when(usuarioService.obterReferencia(1L)).thenReturn(Usuario.builder().id(1L).build());
+		
+		executar(MockMvcRequestBuilders.post(API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"Aluguel\",\"valor\":1000,\"idUsuario\":1,\"tipo\":\"DESPESA\","
+						+ "\"frequencia\":\"MENSAL\",\"mesInicio\":13,\"anoInicio\":2020}"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verify(service, Mockito.never()).salvar(Mockito.any());
+	}
+	
+	@Test
+	public void deveNegarExclusaoDeRecorrenciaDeOutroUsuario() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Recorrencia recorrencia = Recorrencia.builder()
+				.id(7L)
+				.usuario(Usuario.builder().id(2L).build())
+				.valor(BigDecimal.TEN)
+				.tipo(TipoLancamento.DESPESA)
+				.frequencia(FrequenciaRecorrencia.MENSAL)
+				.competenciaInicio(Recorrencia.competencia(2020, 1))
+				.build();
+		Mockito.when(service.buscarPorId(7L)).thenReturn(Optional.of(recorrencia));
+		
+		executar(MockMvcRequestBuilders.delete(API + "/7").header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+			.andExpect(MockMvcResultMatchers.status().isForbidden());
+		
+		Mockito.verify(service, Mockito.never()).deletar(Mockito.any());
+	}
+	
+	ResultActions executar(RequestBuilder requisicao) throws Exception {
+		MvcResult resultado = mvc.perform(requisicao)
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		return mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado));
+	}
+	
+}
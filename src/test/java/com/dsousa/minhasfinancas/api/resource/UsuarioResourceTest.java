@@ -1,5 +1,15 @@
 package com.dsousa.minhasfinancas.api.resource;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
@@ -7,26 +17,48 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
 import com.dsousa.minhasfinancas.api.DTO.UsuarioDTO;
+import com.dsousa.minhasfinancas.config.AcessoBackoffice;
+import com.dsousa.minhasfinancas.config.EventosUsuario;
+import com.dsousa.minhasfinancas.config.ExecutorRequisicoes;
+import com.dsousa.minhasfinancas.config.JwtTokenFilter;
 import com.dsousa.minhasfinancas.exception.ErroAutenticacao;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.service.JwtService;
 import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.ResumoMensalService;
 import com.dsousa.minhasfinancas.service.UsuarioService;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Operacao;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.MalformedJwtException;
+
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = UsuarioResource.class)
+@Import({ ExecutorRequisicoes.class, EventosUsuario.class, AcessoBackoffice.class })
+@WebMvcTest(controllers = UsuarioResource.class, properties = "financas.backoffice.usuarios=9")
 @AutoConfigureMockMvc
 public class UsuarioResourceTest {
 
@@ -42,6 +74,15 @@ public class UsuarioResourceTest {
 	@MockBean
 	LancamentoService lancamentoService;
 	
+	@MockBean
+	JwtService jwtService;
+	
+	@MockBean
+	ResumoMensalService resumoMensalService;
+	
+	@Autowired
+	EventosUsuario eventos;
+	
 	@Test
 	public void deveAutenticarUmUsuario() throws Exception {
 		
@@ -52,6 +93,7 @@ public class UsuarioResourceTest {
 		Usuario usuario = Usuario.builder().id(1L).email(email).senha(senha).build();
 		
 		Mockito.when(service.autenticar(email, senha)).thenReturn(usuario);
+		Mockito.when(jwtService.gerarToken(usuario)).thenReturn("token");
 		
 		String json = new ObjectMapper().writeValueAsString(usuarioDTO);
 		
@@ -60,14 +102,84 @@ public class UsuarioResourceTest {
 			.contentType(JSON)
 			.content(json);
 		
-		mvc.perform(request)
+		executar(request)
 		.andExpect(MockMvcResultMatchers.status().isOk())
 		.andExpect(MockMvcResultMatchers.jsonPath("id").value(usuario.getId()))
 		.andExpect(MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome()))
-		.andExpect(MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()));
+		.andExpect(MockMvcResultMatchers.jsonPath("email").value(usuario.getEmail()))
+		.andExpect(MockMvcResultMatchers.jsonPath("token").value("token"))
+		.andExpect(MockMvcResultMatchers.jsonPath("senha").doesNotExist());
 		
 	}
 	
+	@Test
+	public void deveObterOSaldoDoUsuarioDoTokenSemConsultarOUsuario() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(lancamentoService.obterSaldoDetalhadoPorUsuario(1L)).thenReturn(new SaldoDTO(null, null, null, null, null, null));
+		
+		executar(MockMvcRequestBuilders.get(API.concat("/1/saldo")).header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+		.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		Mockito.verify(service, Mockito.never()).obterPorId(Mockito.anyLong());
+	}
+	
+	@Test
+	public void deveResponderNotModifiedQuandoOSaldoNaoMudou() throws Exception {
+		SaldoDTO saldo = new SaldoDTO(null, null, null, null, null, null);
+		saldo.setVersao(3L);
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(lancamentoService.obterSaldoDetalhadoPorUsuario(1L)).thenReturn(saldo);
+		
+		executar(MockMvcRequestBuilders.get(API.concat("/1/saldo")).header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-3\""))
+		.andExpect(MockMvcResultMatchers.jsonPath("versao").doesNotExist());
+		
+		executar(MockMvcRequestBuilders.get(API.concat("/1/saldo"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token")
+				.header(HttpHeaders.IF_NONE_MATCH, "W/\"1-3\""))
+		.andExpect(MockMvcResultMatchers.status().isNotModified())
+		.andExpect(MockMvcResultMatchers.content().string(""));
+	}
+	
+	@Test
+	public void deveNegarOSaldoDeOutroUsuario() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		
+		executar(MockMvcRequestBuilders.get(API.concat("/2/saldo")).header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+		.andExpect(MockMvcResultMatchers.status().isForbidden());
+	}
+	
+	@Test
+	public void deveObterORelatorioMensalDoUsuarioDoToken() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("token")).thenReturn(1L);
+		Mockito.when(resumoMensalService.obterPorUsuario(1L, 2020, 2020)).thenReturn(Collections.singletonList(
+				new ResumoMensalDTO(2020, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.TEN, 2L)));
+		
+		executar(MockMvcRequestBuilders.get(API.concat("/1/relatorio?anoInicio=2020&anoFim=2020"))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$[0].mes").value(1))
+		.andExpect(MockMvcResultMatchers.jsonPath("$[0].tipo").value("RECEITA"))
+		.andExpect(MockMvcResultMatchers.jsonPath("$[0].valor").value(10));
+	}
+	
+	@Test
+	public void deveRetornarBadRequestParaIntervaloDeAnosInvertido() throws Exception {
+		executar(MockMvcRequestBuilders.get(API.concat("/1/relatorio?anoInicio=2021&anoFim=2020")))
+		.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verifyNoInteractions(resumoMensalService);
+	}
+	
+	@Test
+	public void deveRetornarUnauthorizedParaTokenInvalido() throws Exception {
+		Mockito.when(jwtService.obterIdUsuario("invalido")).thenThrow(new MalformedJwtException("invalido"));
+		
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/1/saldo")).header(HttpHeaders.AUTHORIZATION, "Bearer invalido"))
+		.andExpect(MockMvcResultMatchers.status().isUnauthorized());
+	}
+	
 	@Test
 	public void deveRetornarBadRequestAoObterErroDeAutenticar() throws Exception {
 		
@@ -84,7 +196,7 @@ public class UsuarioResourceTest {
 			.contentType(JSON)
 			.content(json);
 		
-		mvc.perform(request)
+		executar(request)
 		.andExpect(MockMvcResultMatchers.status().isBadRequest());
 		
 	}
@@ -107,7 +219,7 @@ public class UsuarioResourceTest {
 			.contentType(JSON)
 			.content(json);
 		
-		mvc.perform(request)
+		executar(request)
 		.andExpect(MockMvcResultMatchers.status().isCreated())
 		.andExpect(MockMvcResultMatchers.jsonPath("id").value(usuario.getId()))
 		.andExpect(MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome()))
@@ -132,9 +244,155 @@ public class UsuarioResourceTest {
 			.contentType(JSON)
 			.content(json);
 		
-		mvc.perform(request)
+		executar(request)
 		.andExpect(MockMvcResultMatchers.status().isBadRequest());
 		
 	}
 	
+	@Test
+	public void deveLimitarAsTentativasDeAutenticacaoPorIp() throws Exception {
+		Mockito.when(service.autenticar(Mockito.any(), Mockito.any())).thenThrow(ErroAutenticacao.class);
+		String json = new ObjectMapper().writeValueAsString(UsuarioDTO.builder().email("a@a.com").senha("x").build());
+		
+		for(int i = 0; i < 10; i++) {
+			executar(autenticarDe("10.0.0.9", json)).andExpect(MockMvcResultMatchers.status().isBadRequest());
+		}
+		
+		mvc.perform(autenticarDe("10.0.0.9", json))
+		.andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+		.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+		executar(autenticarDe("10.0.0.10", json)).andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+	
+	@Test
+	public void deveLimitarAsRequisicoesSemTokenPorIpMesmoTrocandoOUsuario() throws Exception {
+		int status = 0;
+		// o balde do IP esvazia em pouco mais de 100 requisições; um por usuário nunca esvaziaria
+		for(long id = 1; id <= 1000 && status != HttpStatus.TOO_MANY_REQUESTS.value(); id++) {
+			status = mvc.perform(MockMvcRequestBuilders.get(API.concat("/" + id + "/saldo")).with(requisicao -> {
+				requisicao.setRemoteAddr("10.0.0.20");
+				return requisicao;
+			})).andReturn().getResponse().getStatus();
+		}
+		
+		Assertions.assertThat(status).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+	}
+	
+	@Test
+	public void deveEnviarOSaldoAtualEAsAlteracoesPeloFluxoDeEventos() throws Exception {
+		Mockito.when(service.obterPorId(1L)).thenReturn(Optional.of(Usuario.builder().id(1L).build()));
+		Mockito.when(lancamentoService.obterSaldoDetalhadoPorUsuario(1L)).thenReturn(saldo(3, BigDecimal.TEN));
+		
+		MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get(API.concat("/1/eventos")).accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		
+		LancamentosAlteradosEvent evento = LancamentosAlteradosEvent.de(Operacao.CRIACAO, null,
+				Lancamento.builder().id(7L).usuario(Usuario.builder().id(1L).build()).build());
+		evento.registrarSaldo(1L, saldo(4, BigDecimal.valueOf(25)));
+		eventos.publicar(evento);
+		
+		// o envio roda no pool do EventosUsuario
+		String conteudo = "";
+		for(int tentativa = 0; tentativa < 100 && !conteudo.contains("\"versao\":4"); tentativa++) {
+			Thread.sleep(20);
+			conteudo = resultado.getResponse().getContentAsString();
+		}
+		
+		Assertions.assertThat(conteudo)
+			.contains("event:alteracao")
+			.contains("\"versao\":3,\"lancamentos\":[]")
+			.contains("\"versao\":4,\"lancamentos\":[{\"id\":7,\"operacao\":\"CRIACAO\"}]")
+			.contains("\"saldo\":25");
+	}
+	
+	@Test
+	public void deveObterOsSaldosDosUsuariosExistentes() throws Exception {
+		Mockito.when(service.obterIdsExistentes(Mockito.any())).thenReturn(new HashSet<>(Arrays.asList(1L, 3L)));
+		Map<Long, SaldoDTO> saldos = new LinkedHashMap<>();
+		saldos.put(1L, saldo(1, BigDecimal.TEN));
+		saldos.put(3L, saldo(1, BigDecimal.ONE));
+		Mockito.when(lancamentoService.obterSaldosPorUsuarios(Mockito.any())).thenReturn(saldos);
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(API.concat("/saldos"))
+			.accept(JSON)
+			.contentType(JSON)
+			.content("[1, 2, 3, 1]");
+		
+		executar(request)
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("['1'].saldo").value(10))
+		.andExpect(MockMvcResultMatchers.jsonPath("['3'].saldo").value(1));
+		
+		Mockito.verify(lancamentoService).obterSaldosPorUsuarios(new LinkedHashSet<>(Arrays.asList(1L, 3L)));
+	}
+	
+	@Test
+	public void naoDeveObterSaldosDeOutrosUsuariosComToken() throws Exception {
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(API.concat("/saldos"))
+			.requestAttr(JwtTokenFilter.ATRIBUTO_ID_USUARIO, 1L)
+			.accept(JSON)
+			.contentType(JSON)
+			.content("[1, 2]");
+		
+		executar(request)
+		.andExpect(MockMvcResultMatchers.status().isForbidden());
+		
+		Mockito.verifyNoInteractions(lancamentoService);
+	}
+	
+	@Test
+	public void deveObterSaldosDeVariosUsuariosComTokenDeRetaguarda() throws Exception {
+		Mockito.when(service.obterIdsExistentes(Mockito.any())).thenReturn(new HashSet<>(Arrays.asList(1L, 2L)));
+		Map<Long, SaldoDTO> saldos = new LinkedHashMap<>();
+		saldos.put(1L, saldo(1, BigDecimal.TEN));
+		saldos.put(2L, saldo(1, BigDecimal.ONE));
+		Mockito.when(lancamentoService.obterSaldosPorUsuarios(Mockito.any())).thenReturn(saldos);
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(API.concat("/saldos"))
+			.requestAttr(JwtTokenFilter.ATRIBUTO_ID_USUARIO, 9L)
+			.accept(JSON)
+			.contentType(JSON)
+			.content("[1, 2, 4]");
+		
+		executar(request)
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("['1'].saldo").value(10))
+		.andExpect(MockMvcResultMatchers.jsonPath("['2'].saldo").value(1));
+		
+		Mockito.verify(lancamentoService).obterSaldosPorUsuarios(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+	}
+	
+	@Test
+	public void naoDeveAbrirOFluxoDeEventosDeUmUsuarioInexistente() throws Exception {
+		Mockito.when(service.obterPorId(2L)).thenReturn(Optional.empty());
+		
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/2/eventos")).accept(MediaType.TEXT_EVENT_STREAM))
+		.andExpect(MockMvcResultMatchers.status().isNotFound());
+	}
+	
+	private static SaldoDTO saldo(long versao, BigDecimal receitasEfetivadas) {
+		SaldoDTO saldo = new SaldoDTO(receitasEfetivadas, null, null, null, null, null);
+		saldo.setVersao(versao);
+		return saldo;
+	}
+	
+	private MockHttpServletRequestBuilder autenticarDe(String ip, String json) {
+		return MockMvcRequestBuilders.post(API.concat("/autenticar"))
+				.contentType(JSON)
+				.content(json)
+				.with(requisicao -> {
+					requisicao.setRemoteAddr(ip);
+					return requisicao;
+				});
+	}
+	
+	// os handlers devolvem CompletableFuture: a resposta sai no despacho assíncrono
+	ResultActions executar(RequestBuilder requisicao) throws Exception {
+		MvcResult resultado = mvc.perform(requisicao)
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		return mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado));
+	}
+	
 }
@@ -0,0 +1,127 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.dsousa.minhasfinancas.api.DTO.AlteracoesUsuarioDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Operacao;
+
+public class EventosUsuarioTest {
+
+	// envios agendados que nunca rodam, como um cliente que parou de ler
+	List<Runnable> envios = new ArrayList<>();
+	
+	EventosUsuario eventos = new EventosUsuario(envios::add, 2, 60_000, 60_000, null);
+	
+	@Test
+	public void deveEncerrarSoAConexaoQueNaoAcompanhaAsEscritas() {
+		eventos.assinar(1L, () -> mensagemInicial(0));
+		eventos.assinar(2L, () -> mensagemInicial(0));
+		
+		eventos.publicar(evento(1L, 1));
+		Assertions.assertThat(eventos.conexoesAbertas()).isEqualTo(2);
+		
+		eventos.publicar(evento(1L, 2));
+		Assertions.assertThat(eventos.conexoesAbertas()).isEqualTo(1);
+		Assertions.assertThat(envios).hasSize(2);
+	}
+	
+	@Test
+	public void deveEncerrarAConexaoSeAMensagemInicialFalhar() {
+		Assertions.assertThatThrownBy(() -> eventos.assinar(1L, () -> {
+			throw new IllegalStateException("banco indisponível");
+		})).isInstanceOf(IllegalStateException.class);
+		
+		Assertions.assertThat(eventos.conexoesAbertas()).isZero();
+	}
+	
+	@Test
+	public void naoDeveEnviarBatimentoParaQuemTemMensagemNaFila() {
+		eventos.assinar(1L, () -> mensagemInicial(0));
+		
+		eventos.enviarBatimentos();
+		eventos.enviarBatimentos();
+		
+		Assertions.assertThat(eventos.conexoesAbertas()).isEqualTo(1);
+	}
+	
+	@Test
+	@Timeout(10)
+	public void deveEncerrarAConexaoPresaNoEnvioESubstituirAThread() throws Exception {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+		EventosUsuario eventos = new EventosUsuario(pool, 2, 60_000, 1, null);
+		CountDownLatch ocupado = new CountDownLatch(1);
+		pool.execute(() -> aguardar(ocupado));
+		try {
+			SseEmitter emitter = eventos.assinar(1L, () -> mensagemInicial(0));
+			// o send do emitter é sincronizado: segurar o monitor prende o envio como um cliente que não lê
+			synchronized(emitter) {
+				ocupado.countDown();
+				while(eventos.conexoesAbertas() > 0) {
+					Thread.sleep(5);
+					eventos.verificarEnvios();
+				}
+				Assertions.assertThat(pool.getMaximumPoolSize()).isEqualTo(2);
+				
+				// a outra conexão é atendida pela thread substituta
+				eventos.assinar(2L, () -> mensagemInicial(0));
+				while(pool.getCompletedTaskCount() < 2) {
+					Thread.sleep(5);
+				}
+				Assertions.assertThat(eventos.conexoesAbertas()).isEqualTo(1);
+			}
+			
+			// solto o envio preso, a thread substituta é devolvida
+			while(pool.getMaximumPoolSize() > 1) {
+				Thread.sleep(5);
+			}
+			Assertions.assertThat(pool.getCorePoolSize()).isEqualTo(1);
+		} finally {
+			eventos.destroy();
+		}
+	}
+	
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private static AlteracoesUsuarioDTO mensagemInicial(long versao) {
+		return new AlteracoesUsuarioDTO(versao, Collections.emptyList(), saldo(versao));
+	}
+	
+	private static LancamentosAlteradosEvent evento(Long idUsuario, long versao) {
+		LancamentosAlteradosEvent evento = LancamentosAlteradosEvent.de(Operacao.CRIACAO, null, Lancamento.builder()
+				.id(versao)
+				.usuario(Usuario.builder().id(idUsuario).build())
+				.valor(BigDecimal.ONE)
+				.build());
+		evento.registrarSaldo(idUsuario, saldo(versao));
+		return evento;
+	}
+	
+	private static SaldoDTO saldo(long versao) {
+		SaldoDTO saldo = new SaldoDTO(null, null, null, null, null, null);
+		saldo.setVersao(versao);
+		return saldo;
+	}
+	
+}
@@ -0,0 +1,63 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class ExecutorRequisicoesTest {
+
+	@Test
+	public void deveExecutarNaPropriaThreadQuandoDesabilitado() throws Exception {
+		ExecutorRequisicoes executor = criar(false, 1, 1);
+		Thread requisicao = Thread.currentThread();
+		
+		CompletableFuture<ResponseEntity> resposta = executor.executar(
+				() -> ResponseEntity.ok(Thread.currentThread() == requisicao));
+		
+		Assertions.assertThat(resposta.isDone()).isTrue();
+		Assertions.assertThat(resposta.get().getBody()).isEqualTo(true);
+	}
+	
+	@Test
+	public void deveRecusarComServiceUnavailableQuandoAFilaEstaCheia() throws Exception {
+		ExecutorRequisicoes executor = criar(true, 1, 1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		try {
+			// ocupa a única thread e a única vaga da fila
+			executor.executar(() -> aguardar(liberar));
+			executor.executar(() -> aguardar(liberar));
+			
+			ResponseEntity recusada = executor.executar(() -> ResponseEntity.ok().build()).get(1, TimeUnit.SECONDS);
+			
+			Assertions.assertThat(recusada.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+			Assertions.assertThat(recusada.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		} finally {
+			liberar.countDown();
+			executor.destroy();
+		}
+	}
+	
+	private ResponseEntity aguardar(CountDownLatch liberar) {
+		try {
+			liberar.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return ResponseEntity.ok().build();
+	}
+	
+	private ExecutorRequisicoes criar(boolean habilitado, int tamanhoPool, int tamanhoFila) {
+		return new ExecutorRequisicoes(habilitado, tamanhoPool, tamanhoFila,
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+	}
+	
+}
@@ -0,0 +1,61 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LimiteRequisicoesTest {
+
+	AtomicLong relogio = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	
+	LimiteRequisicoes<Long> limite = new LimiteRequisicoes<>(3, 2, relogio::get);
+	
+	@Test
+	public void deveLiberarAteACapacidadeERecusarDepois() {
+		for(int i = 0; i < 3; i++) {
+			Assertions.assertThat(limite.consumir(1L)).isZero();
+		}
+		
+		Assertions.assertThat(limite.consumir(1L)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+	}
+	
+	@Test
+	public void deveReporOsTokensComOTempo() {
+		for(int i = 0; i < 3; i++) {
+			limite.consumir(1L);
+		}
+		
+		relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		long primeira = limite.consumir(1L);
+		long segunda = limite.consumir(1L);
+		
+		Assertions.assertThat(primeira).isZero();
+		Assertions.assertThat(segunda).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+	}
+	
+	@Test
+	public void naoDeveAcumularMaisQueACapacidadeParado() {
+		relogio.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		limite.consumir(1L);
+		relogio.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		
+		for(int i = 0; i < 3; i++) {
+			Assertions.assertThat(limite.consumir(1L)).isZero();
+		}
+		Assertions.assertThat(limite.consumir(1L)).isPositive();
+	}
+	
+	@Test
+	public void deveSepararOsBaldesPorChave() {
+		for(int i = 0; i < 3; i++) {
+			limite.consumir(1L);
+		}
+		
+		Assertions.assertThat(limite.consumir(1L)).isPositive();
+		Assertions.assertThat(limite.consumir(2L)).isZero();
+		Assertions.assertThat(limite.quantidadeBaldes()).isEqualTo(2);
+	}
+	
+}
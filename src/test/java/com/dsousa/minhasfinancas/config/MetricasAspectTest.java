@@ -0,0 +1,79 @@
+package com.dsousa.minhasfinancas.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+public class MetricasAspectTest {
+
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	MeterRegistry registry;
+	
+	@Test
+	public void deveMedirMetodoDeRepositorioPeloNomeDaInterface() {
+		usuarioRepository.findById(-1L);
+		
+		Timer timer = registry.find(MetricasAspect.METRICA)
+				.tags("classe", "UsuarioRepository", "metodo", "findById", "resultado", "sucesso")
+				.timer();
+		Assertions.assertThat(timer).isNotNull();
+		Assertions.assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+	}
+	
+	@Test
+	public void deveSomarAsChamadasNoMesmoTimerSemPercentisCalculadosNaAplicacao() {
+		usuarioRepository.existsByEmail("metricas@email.com");
+		Timer timer = registry.find(MetricasAspect.METRICA)
+				.tags("classe", "UsuarioRepository", "metodo", "existsByEmail", "resultado", "sucesso")
+				.timer();
+		long antes = timer.count();
+		
+		usuarioRepository.existsByEmail("metricas@email.com");
+		
+		Assertions.assertThat(timer.count()).isEqualTo(antes + 1);
+		Assertions.assertThat(timer.takeSnapshot().percentileValues()).isEmpty();
+	}
+	
+	@Test
+	public void deveMedirErrosDosServicosPeloTipoDaExcecao() {
+		Assertions.catchThrowable(() -> lancamentoService.validarLancamento(new Lancamento()));
+		
+		Timer timer = registry.find(MetricasAspect.METRICA)
+				.tags("classe", "LancamentoServiceImpl", "metodo", "validarLancamento",
+						"resultado", "erro", "excecao", RegraNegocioException.class.getSimpleName())
+				.timer();
+		Assertions.assertThat(timer).isNotNull();
+		Assertions.assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+	}
+	
+	@Test
+	public void deveMedirOsComandosJdbc() {
+		usuarioRepository.count();
+		
+		Timer timer = registry.find(MetricasJdbcListener.METRICA).tags("tipo", "select").timer();
+		Assertions.assertThat(timer).isNotNull();
+		Assertions.assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+	}
+	
+}
@@ -0,0 +1,103 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.math.BigDecimal;
+
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		// banco próprio: o teste grava fora de transação de teste
+		"spring.datasource.url=jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"financas.datasource.replica.jdbc-url=" + ReplicaConfigTest.URL_REPLICA,
+		"financas.datasource.replica.username=sa",
+		"financas.datasource.replica.password=sa"
+})
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+public class ReplicaConfigTest {
+
+	static final String URL_REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas";
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	JdbcTemplate primario;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@AfterEach
+	public void tearDown() {
+		ContextoUsuario.limpar();
+	}
+	
+	@Test
+	public void deveLerDaReplicaExcetoParaQuemAcabouDeEscrever() {
+		migrarReplica();
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("replica").email("replica@email.com").senha("senha").build());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamentoService.salvar(lancamento);
+		
+		BigDecimal saldoNaReplica = lancamentoService.obterSaldoPorUsuario(usuario.getId());
+		ContextoUsuario.definir(usuario.getId());
+		BigDecimal saldoNoPrimario = lancamentoService.obterSaldoPorUsuario(usuario.getId());
+		
+		Assertions.assertThat(saldoNaReplica).isEqualByComparingTo(BigDecimal.ZERO);
+		Assertions.assertThat(saldoNoPrimario).isEqualByComparingTo(BigDecimal.TEN);
+	}
+	
+	@Test
+	public void deveGravarNoPrimarioDepoisDeUmaLeituraNaMesmaRequisicao() throws Exception {
+		migrarReplica();
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("lote").email("lote@email.com").senha("senha").build());
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", "sa"));
+		replica.update("insert into financas.usuario (id, nome, email, senha) values (?, 'lote', 'lote@email.com', 'senha')", usuario.getId());
+		
+		// sem token o lote consulta os usuários (somente leitura) antes de gravar
+		MvcResult resultado = mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos/lote")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"descricao\":\"lote\",\"mes\":1,\"ano\":2020,\"valor\":10,\"idUsuario\":" + usuario.getId()
+						+ ",\"tipo\":\"RECEITA\",\"status\":\"PENDENTE\"}]"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		String contagem = "select count(*) from financas.lancamento where id_usuario = ?";
+		Assertions.assertThat(primario.queryForObject(contagem, Integer.class, usuario.getId())).isEqualTo(1);
+		Assertions.assertThat(replica.queryForObject(contagem, Integer.class, usuario.getId())).isZero();
+	}
+	
+	// o Flyway só migra o primário; aqui a réplica fica com o esquema e sem os dados
+	private static void migrarReplica() {
+		Flyway.configure().dataSource(URL_REPLICA, "sa", "sa").locations("classpath:db/migration/h2").schemas("financas").load().migrate();
+	}
+	
+}
@@ -0,0 +1,136 @@
+package com.dsousa.minhasfinancas.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RoteamentoDataSourceTest {
+
+	DataSource primario = criarBanco("primario");
+	
+	DataSource replica = criarBanco("replica");
+	
+	AderenciaEscrita aderencia = new AderenciaEscrita(Duration.ofMinutes(1));
+	
+	MeterRegistry registry = new SimpleMeterRegistry();
+	
+	JdbcTemplate jdbc;
+	
+	TransactionTemplate escrita;
+	
+	TransactionTemplate leitura;
+	
+	@BeforeEach
+	public void setUp() {
+		configurar(new RoteamentoDataSource(primario, replica, aderencia, Duration.ofMinutes(1), () -> registry));
+	}
+	
+	@AfterEach
+	public void tearDown() {
+		ContextoUsuario.limpar();
+	}
+	
+	@Test
+	public void deveLerDaReplicaEmTransacaoSomenteLeitura() {
+		Assertions.assertThat(origem(leitura)).isEqualTo("replica");
+		Assertions.assertThat(registry.counter(RoteamentoDataSource.METRICA, "resultado", "sucesso").count())
+			.isEqualTo(1);
+	}
+	
+	@Test
+	public void deveUsarOPrimarioEmTransacaoDeEscrita() {
+		Assertions.assertThat(origem(escrita)).isEqualTo("primario");
+	}
+	
+	@Test
+	public void deveLerDoPrimarioParaQuemEscreveuDentroDaJanela() {
+		aderencia.registrar(1L);
+		
+		ContextoUsuario.definir(1L);
+		String doUsuario = origem(leitura);
+		ContextoUsuario.definir(2L);
+		String deOutroUsuario = origem(leitura);
+		
+		Assertions.assertThat(doUsuario).isEqualTo("primario");
+		Assertions.assertThat(deOutroUsuario).isEqualTo("replica");
+	}
+	
+	@Test
+	public void deveVoltarAoPrimarioQuandoAReplicaFalha() {
+		JdbcDataSource inexistente = new JdbcDataSource();
+		inexistente.setURL("jdbc:h2:mem:inexistente;IFEXISTS=TRUE");
+		RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, inexistente, aderencia,
+				Duration.ofMinutes(1), () -> registry);
+		configurar(roteamento);
+		
+		Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+		Assertions.assertThat(roteamento.replicaDisponivel()).isFalse();
+		Assertions.assertThat(registry.counter(RoteamentoDataSource.METRICA, "resultado", "falha").count())
+			.isEqualTo(1);
+		
+		// dentro da espera a réplica nem é tentada
+		Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+		Assertions.assertThat(registry.counter(RoteamentoDataSource.METRICA, "resultado", "falha").count())
+			.isEqualTo(1);
+	}
+	
+	@Test
+	public void deveVoltarAReplicaDepoisDaEspera() {
+		JdbcDataSource inexistente = new JdbcDataSource();
+		inexistente.setURL("jdbc:h2:mem:inexistente;IFEXISTS=TRUE");
+		RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, inexistente, aderencia,
+				Duration.ZERO, () -> registry);
+		configurar(roteamento);
+		
+		origem(leitura);
+		
+		Assertions.assertThat(roteamento.replicaDisponivel()).isTrue();
+	}
+	
+	@Test
+	public void devePropagarOUsuarioParaATarefa() {
+		ContextoUsuario.definir(7L);
+		Runnable tarefa = ContextoUsuario.propagar(() -> Assertions.assertThat(ContextoUsuario.obter()).isEqualTo(7L));
+		ContextoUsuario.limpar();
+		
+		tarefa.run();
+		
+		Assertions.assertThat(ContextoUsuario.obter()).isNull();
+	}
+	
+	private void configurar(RoteamentoDataSource roteamento) {
+		DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+		jdbc = new JdbcTemplate(dataSource);
+		escrita = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		leitura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		leitura.setReadOnly(true);
+	}
+	
+	private String origem(TransactionTemplate transacao) {
+		return transacao.execute(status -> jdbc.queryForObject("select nome from origem", String.class));
+	}
+	
+	private static DataSource criarBanco(String nome) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:roteamento_" + nome + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("create table if not exists origem (nome varchar(20))");
+		jdbc.execute("delete from origem");
+		jdbc.update("insert into origem values (?)", nome);
+		return dataSource;
+	}
+	
+}
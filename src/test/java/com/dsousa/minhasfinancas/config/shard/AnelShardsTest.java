@@ -0,0 +1,42 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnelShardsTest {
+
+	static final int USUARIOS = 100_000;
+	
+	@Test
+	public void deveEspalharOsUsuariosPelosShards() {
+		AnelShards anel = new AnelShards(4);
+		int[] porShard = new int[4];
+		
+		for(long id = 1; id <= USUARIOS; id++) {
+			porShard[anel.shardDe(id)]++;
+		}
+		
+		for(int quantidade : porShard) {
+			Assertions.assertThat(quantidade).isBetween(USUARIOS / 4 * 8 / 10, USUARIOS / 4 * 12 / 10);
+		}
+	}
+	
+	@Test
+	public void deveMoverSoParaOShardNovoAoAcrescentarUm() {
+		AnelShards quatro = new AnelShards(4);
+		AnelShards cinco = new AnelShards(5);
+		int movidos = 0;
+		
+		for(long id = 1; id <= USUARIOS; id++) {
+			int antes = quatro.shardDe(id);
+			int depois = cinco.shardDe(id);
+			if(antes != depois) {
+				Assertions.assertThat(depois).isEqualTo(4);
+				movidos++;
+			}
+		}
+		
+		Assertions.assertThat(movidos).isBetween(USUARIOS / 5 * 8 / 10, USUARIOS / 5 * 12 / 10);
+	}
+	
+}
@@ -0,0 +1,214 @@
+package com.dsousa.minhasfinancas.config.shard;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.ResumoMensalService;
+import com.dsousa.minhasfinancas.service.UsuarioService;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"financas.shards.adicionais[0].jdbc-url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"financas.shards.adicionais[0].username=sa",
+		"financas.shards.adicionais[0].password=sa",
+		"financas.shards.adicionais[1].jdbc-url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"financas.shards.adicionais[1].username=sa",
+		"financas.shards.adicionais[1].password=sa",
+		"financas.shards.cache-diretorio-segundos=0",
+		"financas.shards.espera-migracao-segundos=0"
+})
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+public class ShardingTest {
+
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	ResumoMensalService resumoMensalService;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	UsuarioService usuarioService;
+	
+	@Autowired
+	Shards shards;
+	
+	@Autowired
+	DiretorioShards diretorio;
+	
+	@Autowired
+	MigracaoShards migracao;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	public void deveGravarOsLancamentosNoShardDoUsuario() {
+		boolean[] usados = new boolean[shards.quantidade()];
+		Set<Long> ids = new HashSet<>();
+		
+		for(int i = 0; i < 12; i++) {
+			Usuario usuario = criarUsuario("gravar" + i);
+			Lancamento lancamento = lancamentoService.salvar(criarLancamento(usuario));
+			int shard = diretorio.localizar(usuario.getId()).getShard();
+			usados[shard] = true;
+			
+			for(int outro = 0; outro < shards.quantidade(); outro++) {
+				Assertions.assertThat(contarLancamentos(outro, usuario.getId())).isEqualTo(outro == shard ? 1 : 0);
+			}
+			ids.add(lancamento.getId());
+			Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo(BigDecimal.TEN);
+		}
+		
+		Assertions.assertThat(usados).containsOnly(true);
+		Assertions.assertThat(ids).hasSize(12);
+	}
+	
+	@Test
+	public void deveManterOSaldoDoNovoUsuarioApenasNoShardDele() {
+		for(int i = 0; i < 6; i++) {
+			Usuario usuario = usuarioService.salvarUsuario(Usuario.builder().nome("novo" + i)
+					.email("novo" + i + "@email.com").senha("senha").build());
+			int shard = diretorio.localizar(usuario.getId()).getShard();
+			
+			for(int outro = 0; outro < shards.quantidade(); outro++) {
+				Assertions.assertThat(contarSaldos(outro, usuario.getId())).isEqualTo(outro == shard ? 1 : 0);
+			}
+		}
+	}
+	
+	@Test
+	public void deveEncontrarUmLancamentoPeloIdEmQualquerShard() {
+		Usuario usuario = usuarioNoShard("buscar", 2);
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(usuario));
+		
+		Optional<Lancamento> encontrado = lancamentoService.buscarPorId(lancamento.getId());
+		
+		Assertions.assertThat(encontrado).isPresent();
+		Assertions.assertThat(lancamentoService.buscarPorId(-1L)).isEmpty();
+	}
+	
+	@Test
+	public void deveObterOsSaldosDeUsuariosEmShardsDiferentes() {
+		Usuario primeiro = usuarioNoShard("saldos1", 1);
+		Usuario segundo = usuarioNoShard("saldos2", 2);
+		lancamentoService.salvar(criarLancamento(primeiro));
+		lancamentoService.salvar(criarLancamento(segundo));
+		lancamentoService.salvar(criarLancamento(segundo));
+		
+		Map<Long, SaldoDTO> saldos = lancamentoService.obterSaldosPorUsuarios(Arrays.asList(segundo.getId(), primeiro.getId()));
+		
+		Assertions.assertThat(saldos.get(primeiro.getId()).getSaldo()).isEqualByComparingTo(BigDecimal.TEN);
+		Assertions.assertThat(saldos.get(segundo.getId()).getSaldo()).isEqualByComparingTo("20");
+	}
+	
+	@Test
+	public void deveGravarOLoteNoShardDoUsuarioDepoisDeConsultarOShardZero() throws Exception {
+		Usuario usuario = usuarioNoShard("lote", 1);
+		
+		// sem token o lote consulta os usuários no shard 0 antes de gravar
+		MvcResult resultado = mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos/lote")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"descricao\":\"lote\",\"mes\":1,\"ano\":2020,\"valor\":10,\"idUsuario\":" + usuario.getId()
+						+ ",\"tipo\":\"RECEITA\",\"status\":\"PENDENTE\"}]"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		Assertions.assertThat(contarLancamentos(1, usuario.getId())).isEqualTo(1);
+		Assertions.assertThat(contarLancamentos(0, usuario.getId())).isZero();
+	}
+	
+	@Test
+	public void deveMoverOsDadosDeUmUsuarioEntreShards() {
+		Usuario usuario = usuarioNoShard("mover", 1);
+		Lancamento primeiro = lancamentoService.salvar(criarLancamento(usuario));
+		lancamentoService.salvar(criarLancamento(usuario));
+		
+		migracao.mover(usuario.getId(), 2);
+		
+		Assertions.assertThat(diretorio.localizar(usuario.getId()).getShard()).isEqualTo(2);
+		Assertions.assertThat(contarLancamentos(1, usuario.getId())).isZero();
+		Assertions.assertThat(contarLancamentos(2, usuario.getId())).isEqualTo(2);
+		Assertions.assertThat(lancamentoService.buscarPorId(primeiro.getId())).isPresent();
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("20");
+		Assertions.assertThat(resumoMensalService.obterPorUsuario(usuario.getId(), null, null)).hasSize(1);
+		
+		// e continua recebendo escritas no destino
+		lancamentoService.salvar(criarLancamento(usuario));
+		Assertions.assertThat(contarLancamentos(2, usuario.getId())).isEqualTo(3);
+	}
+	
+	@Test
+	public void deveRecusarEscritasDeUmUsuarioEmMigracao() {
+		Usuario usuario = usuarioNoShard("migrando", 1);
+		lancamentoService.salvar(criarLancamento(usuario));
+		diretorio.definir(usuario.getId(), 1, true);
+		
+		Assertions.assertThatThrownBy(() -> lancamentoService.salvar(criarLancamento(usuario)))
+			.isInstanceOf(RegraNegocioException.class)
+			.hasMessage(ShardAspect.EM_MIGRACAO);
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo(BigDecimal.TEN);
+	}
+	
+	private Usuario usuarioNoShard(String nome, int shard) {
+		Usuario usuario = criarUsuario(nome);
+		diretorio.localizar(usuario.getId());
+		if(diretorio.localizar(usuario.getId()).getShard() != shard) {
+			migracao.mover(usuario.getId(), shard);
+		}
+		return usuario;
+	}
+	
+	private Usuario criarUsuario(String nome) {
+		return usuarioRepository.save(Usuario.builder().nome(nome).email(nome + "@email.com").senha("senha").build());
+	}
+	
+	private Lancamento criarLancamento(Usuario usuario) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		return lancamento;
+	}
+	
+	private int contarLancamentos(int shard, Long idUsuario) {
+		return new JdbcTemplate(shards.dataSource(shard))
+				.queryForObject("select count(*) from financas.lancamento where id_usuario = ?", Integer.class, idUsuario);
+	}
+	
+	private int contarSaldos(int shard, Long idUsuario) {
+		return new JdbcTemplate(shards.dataSource(shard))
+				.queryForObject("select count(*) from financas.saldo where id_usuario = ?", Integer.class, idUsuario);
+	}
+	
+}
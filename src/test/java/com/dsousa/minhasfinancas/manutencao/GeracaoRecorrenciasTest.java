@@ -0,0 +1,73 @@
+package com.dsousa.minhasfinancas.manutencao;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.dsousa.minhasfinancas.config.shard.ShardAtual;
+import com.dsousa.minhasfinancas.config.shard.Shards;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.service.RecorrenciaService;
+
+public class GeracaoRecorrenciasTest {
+
+	RecorrenciaService recorrenciaService = Mockito.mock(RecorrenciaService.class);
+	
+	@SuppressWarnings("unchecked")
+	ObjectProvider<Shards> shards = Mockito.mock(ObjectProvider.class);
+	
+	GeracaoRecorrencias geracao = new GeracaoRecorrencias(recorrenciaService, shards);
+	
+	@Test
+	public void deveRefazerUmaAUmaAsRecorrenciasDoBlocoQueFalhouESeguirAdiante() {
+		int competencia = Recorrencia.competencia(2020, 1);
+		Mockito.when(shards.getIfAvailable()).thenReturn(null);
+		Mockito.when(recorrenciaService.listarIdsVencidas(0L, competencia, GeracaoRecorrencias.TAMANHO_BLOCO))
+			.thenReturn(Arrays.asList(3L, 4L));
+		
+		// a recorrência 4 já gerou o lançamento em outra instância: a chave única recusa a repetição
+		Mockito.when(recorrenciaService.gerarBloco(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt())).thenAnswer(chamada -> {
+			long ultimoId = chamada.getArgument(0, Long.class);
+			int tamanho = chamada.getArgument(2, Integer.class);
+			if(ultimoId == 0L && tamanho > 1 || ultimoId == 3L && tamanho == 1) {
+				throw new DataIntegrityViolationException("uk_lancamento_recorrencia");
+			}
+			return ultimoId == 4L ? null : ultimoId + 1;
+		});
+		
+		int blocos = geracao.gerar(YearMonth.of(2020, 1));
+		
+		Assertions.assertThat(blocos).isEqualTo(1);
+		Mockito.verify(recorrenciaService).gerarBloco(2L, competencia, 1);
+		Mockito.verify(recorrenciaService).gerarBloco(3L, competencia, 1);
+		Mockito.verify(recorrenciaService).gerarBloco(4L, competencia, GeracaoRecorrencias.TAMANHO_BLOCO);
+	}
+	
+	@Test
+	public void deveSeguirParaOsOutrosShardsQuandoUmShardNaoResponder() {
+		Shards dois = Mockito.mock(Shards.class);
+		Mockito.when(dois.quantidade()).thenReturn(2);
+		Mockito.when(shards.getIfAvailable()).thenReturn(dois);
+		
+		Mockito.when(recorrenciaService.gerarBloco(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt())).thenAnswer(chamada -> {
+			if(ShardAtual.obter() == 0) {
+				throw new CannotCreateTransactionException("shard 0 fora");
+			}
+			return chamada.getArgument(0, Long.class) == 0L ? 5L : null;
+		});
+		Mockito.when(recorrenciaService.listarIdsVencidas(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt()))
+			.thenThrow(new CannotCreateTransactionException("shard 0 fora"));
+		
+		int blocos = geracao.gerar(YearMonth.of(2020, 1));
+		
+		Assertions.assertThat(blocos).isEqualTo(1);
+		Mockito.verify(recorrenciaService).gerarBloco(5L, Recorrencia.competencia(2020, 1), GeracaoRecorrencias.TAMANHO_BLOCO);
+	}
+	
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -18,7 +20,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
 
@@ -83,6 +88,89 @@ public class LancamentoRepositoryTest {
 		
 	}
 	
+	@Test
+	public void deveAtualizarApenasOStatusDoLancamentoDoUsuario() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento = persistirLancamento(usuario, 2020, 1);
+		entityManager.flush();
+		entityManager.clear();
+		
+		LancamentoDTO dto = repository.obterParaAtualizacaoDeStatus(lancamento.getId()).get();
+		int deOutroUsuario = repository.atualizarStatus(lancamento.getId(), usuario.getId() + 1, StatusLancamento.CANCELADO);
+		int atualizados = repository.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+		
+		assertThat(dto.getIdUsuario()).isEqualTo(usuario.getId());
+		assertThat(dto.getStatus()).isEqualTo(StatusLancamento.PENDENTE.name());
+		assertThat(deOutroUsuario).isZero();
+		assertThat(atualizados).isEqualTo(1);
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+	}
+	
+	@Test
+	public void deveObterOsTotaisDoUsuarioEmUmaUnicaConsulta() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 50);
+		persistirLancamento(usuario, TipoLancamento.RECEITA, null, 5);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 20);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, StatusLancamento.CANCELADO, 7);
+		
+		SaldoDTO saldo = repository.obterSaldoPorUsuario(usuario.getId());
+		
+		assertThat(saldo.getReceitas()).isEqualByComparingTo("155");
+		assertThat(saldo.getDespesas()).isEqualByComparingTo("57");
+		assertThat(saldo.getSaldo()).isEqualByComparingTo("98");
+		assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("70");
+		assertThat(saldo.getSaldoPrevisto()).isEqualByComparingTo("105");
+	}
+	
+	@Test
+	public void deveRetornarSaldoZeradoParaUsuarioSemLancamentos() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		
+		SaldoDTO saldo = repository.obterSaldoPorUsuario(usuario.getId());
+		
+		assertThat(saldo.getSaldo()).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(saldo.getSaldoPrevisto()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+	
+	@Test
+	public void deveBuscarPaginasSeguindoOCursor() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento filtro = Lancamento.builder().usuario(usuario).build();
+		
+		Lancamento marco = persistirLancamento(usuario, 2020, 3);
+		Lancamento janeiro = persistirLancamento(usuario, 2020, 1);
+		Lancamento anoAnterior = persistirLancamento(usuario, 2019, 12);
+		Lancamento janeiroOutro = persistirLancamento(usuario, 2020, 1);
+		
+		List<LancamentoDTO> primeiraPagina = repository.buscarPagina(filtro, null, 2);
+		CursorLancamento cursor = CursorLancamento.decodificar(CursorLancamento.de(primeiraPagina.get(1)).codificar());
+		List<LancamentoDTO> segundaPagina = repository.buscarPagina(filtro, cursor, 2);
+		
+		assertThat(primeiraPagina).extracting(LancamentoDTO::getId).containsExactly(anoAnterior.getId(), janeiro.getId());
+		assertThat(segundaPagina).extracting(LancamentoDTO::getId).containsExactly(janeiroOutro.getId(), marco.getId());
+		assertThat(primeiraPagina.get(0).getIdUsuario()).isEqualTo(usuario.getId());
+		assertThat(primeiraPagina.get(0).getTipo()).isEqualTo(anoAnterior.getTipo().name());
+	}
+	
+	@Test
+	public void devePercorrerOsLancamentosDoUsuarioDesanexandoCadaUm() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, 2020, 2);
+		persistirLancamento(usuario, 2020, 1);
+		entityManager.flush();
+		entityManager.clear();
+		
+		List<Lancamento> percorridos = new ArrayList<>();
+		repository.percorrerPorUsuario(usuario.getId(), 1, percorridos::add);
+		
+		assertThat(percorridos).extracting(Lancamento::getMes).containsExactly(1, 2);
+		assertThat(percorridos).noneMatch(entityManager.getEntityManager()::contains);
+	}
+	
 	public static Lancamento criarLancamento() {
 		return Lancamento.builder()
 						.ano(2019)
@@ -94,6 +182,23 @@ public class LancamentoRepositoryTest {
 						.dataCadastro(LocalDate.now()).build();
 	}
 	
+	private void persistirLancamento(Usuario usuario, TipoLancamento tipo, StatusLancamento status, int valor) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		entityManager.persist(lancamento);
+	}
+	
+	private Lancamento persistirLancamento(Usuario usuario, int ano, int mes) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		return entityManager.persist(lancamento);
+	}
+	
 	private Lancamento criarEPersistirLancamento() {
 		Lancamento lancamento = criarLancamento();
 		
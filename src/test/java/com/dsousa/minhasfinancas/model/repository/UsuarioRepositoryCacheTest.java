@@ -0,0 +1,83 @@
+package com.dsousa.minhasfinancas.model.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.config.CacheConfig;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@Import(CacheConfig.class)
+@ExtendWith(SpringExtension.class)
+public class UsuarioRepositoryCacheTest {
+
+	@Autowired
+	UsuarioRepository repository;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Test
+	public void deveGuardarOUsuarioPorIdEPorEmailAposAPrimeiraLeitura() {
+		Usuario usuario = repository.save(UsuarioRepositoryTest.criarUsuario());
+		
+		repository.findById(usuario.getId());
+		repository.findByEmail(usuario.getEmail());
+		
+		Assertions.assertThat(cache(CacheConfig.USUARIOS).get(usuario.getId())).isNotNull();
+		Assertions.assertThat(cache(CacheConfig.USUARIOS_POR_EMAIL).get(usuario.getEmail())).isNotNull();
+		
+		long acertos = ((CaffeineCache) cache(CacheConfig.USUARIOS)).getNativeCache().stats().hitCount();
+		repository.findById(usuario.getId());
+		Assertions.assertThat(((CaffeineCache) cache(CacheConfig.USUARIOS)).getNativeCache().stats().hitCount()).isEqualTo(acertos + 1);
+	}
+	
+	@Test
+	public void naoDeveGuardarUsuarioInexistente() {
+		repository.findById(-1L);
+		repository.findByEmail("inexistente@gmail.com");
+		
+		Assertions.assertThat(cache(CacheConfig.USUARIOS).get(-1L)).isNull();
+		Assertions.assertThat(cache(CacheConfig.USUARIOS_POR_EMAIL).get("inexistente@gmail.com")).isNull();
+	}
+	
+	@Test
+	public void deveInvalidarAsEntradasAoSalvarOUsuario() {
+		Usuario usuario = repository.save(UsuarioRepositoryTest.criarUsuario());
+		repository.findById(usuario.getId());
+		repository.findByEmail(usuario.getEmail());
+		
+		usuario.setNome("outro nome");
+		repository.save(usuario);
+		
+		Assertions.assertThat(cache(CacheConfig.USUARIOS).get(usuario.getId())).isNull();
+		Assertions.assertThat(cache(CacheConfig.USUARIOS_POR_EMAIL).get(usuario.getEmail())).isNull();
+	}
+	
+	@BeforeEach
+	public void limparCaches() {
+		cacheManager.getCacheNames().forEach(nome -> cacheManager.getCache(nome).clear());
+	}
+	
+	private Cache cache(String nome) {
+		return cacheManager.getCache(nome);
+	}
+	
+}
@@ -2,6 +2,8 @@ package com.dsousa.minhasfinancas.model.repository;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.assertj.core.api.Assertions;
@@ -13,6 +15,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
@@ -71,6 +74,22 @@ public class UsuarioRepositoryTest {
 		Assertions.assertThat(result.isPresent()).isFalse();		
 	}
 	
+	@Test
+	public void deveListarApenasOsIdsDeUsuariosExistentes() {
+		Usuario usuario = entityManager.persist(criarUsuario());
+		
+		List<Long> result = repository.listarIdsExistentes(Arrays.asList(usuario.getId(), usuario.getId() + 1000));
+		Assertions.assertThat(result).containsExactly(usuario.getId());
+	}
+	
+	@Test
+	public void naoDevePersistirDoisUsuariosComOMesmoEmail() {
+		entityManager.persist(criarUsuario());
+		
+		Throwable exception = Assertions.catchThrowable(() -> repository.saveAndFlush(criarUsuario()));
+		Assertions.assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+	
 	public static Usuario criarUsuario() {
 		Usuario usuario = Usuario.builder()
 				.nome("usuario")
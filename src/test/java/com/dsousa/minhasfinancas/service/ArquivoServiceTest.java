@@ -0,0 +1,197 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.impl.ArquivoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Import({ LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class,
+	ResumoMensalServiceImpl.class, ArquivoServiceImpl.class })
+public class ArquivoServiceTest {
+
+	@Autowired
+	ArquivoService service;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	SaldoService saldoService;
+	
+	@Autowired
+	ResumoMensalService resumoMensalService;
+	
+	@Autowired
+	IndiceBuscaService indiceBuscaService;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	LancamentoArquivadoRepository arquivadoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		lancamentoService.salvarLote(Arrays.asList(
+				criarLancamento(2018, 3, TipoLancamento.RECEITA, "salario marco", 100),
+				criarLancamento(2018, 3, TipoLancamento.DESPESA, "aluguel marco", 40),
+				criarLancamento(2019, 7, TipoLancamento.DESPESA, "mercado julho", 25),
+				criarLancamento(2021, 1, TipoLancamento.RECEITA, "salario janeiro", 200)));
+		entityManager.flush();
+	}
+	
+	@Test
+	public void deveMoverOsAnosFechadosParaOArquivoSemAlterarSaldoNemResumo() {
+		SaldoDTO saldoAntes = saldoService.obterPorUsuario(usuario.getId());
+		
+		int arquivados = service.arquivar(usuario.getId(), 2020);
+		
+		Assertions.assertThat(arquivados).isEqualTo(3);
+		Assertions.assertThat(lancamentoRepository.findByUsuarioId(usuario.getId()))
+			.extracting(Lancamento::getAno).containsExactly(2021);
+		Assertions.assertThat(arquivadoRepository.count()).isEqualTo(3);
+		Assertions.assertThat(saldoService.obterPorUsuario(usuario.getId()).getSaldo()).isEqualByComparingTo(saldoAntes.getSaldo());
+		Assertions.assertThat(indiceBuscaService.pesquisar(usuario.getId(), "salario", null, null, 10))
+			.extracting(Lancamento::getAno).containsExactly(2021);
+		
+		// as reconstruções somam o arquivo aos lançamentos em aberto
+		saldoService.reconstruir(usuario.getId());
+		resumoMensalService.reconstruir(usuario.getId());
+		
+		Assertions.assertThat(saldoService.obterPorUsuario(usuario.getId()).getSaldo()).isEqualByComparingTo(saldoAntes.getSaldo());
+		Assertions.assertThat(resumoMensalService.obterPorUsuario(usuario.getId(), null, null))
+			.extracting(ResumoMensalDTO::getAno).containsExactly(2018, 2018, 2019, 2021);
+	}
+	
+	@Test
+	public void deveBuscarODetalheNoArquivoQuandoOFiltroPedeUmAnoArquivado() {
+		service.arquivar(usuario.getId(), 2020);
+		
+		Lancamento filtro = Lancamento.builder().usuario(usuario).ano(2018).build();
+		PaginaDTO<LancamentoDTO> pagina = lancamentoService.buscar(filtro, null, 1);
+		PaginaDTO<LancamentoDTO> proxima = lancamentoService.buscar(filtro, pagina.getProximoCursor(), 1);
+		
+		Assertions.assertThat(pagina.getItens()).extracting(LancamentoDTO::getDescricao).containsExactly("salario marco");
+		Assertions.assertThat(proxima.getItens()).extracting(LancamentoDTO::getDescricao).containsExactly("aluguel marco");
+		Assertions.assertThat(proxima.getProximoCursor()).isNull();
+	}
+	
+	@Test
+	public void deveListarOResumoDosAnosArquivadosAntesDosLancamentosEmAberto() {
+		service.arquivar(usuario.getId(), 2020);
+		
+		Lancamento filtro = Lancamento.builder().usuario(usuario).build();
+		List<LancamentoDTO> itens = new ArrayList<>();
+		String cursor = null;
+		do {
+			PaginaDTO<LancamentoDTO> pagina = lancamentoService.buscar(filtro, cursor, 2);
+			itens.addAll(pagina.getItens());
+			cursor = pagina.getProximoCursor();
+		} while(cursor != null);
+		
+		Assertions.assertThat(itens).extracting(LancamentoDTO::getAno).containsExactly(2018, 2018, 2019, 2021);
+		Assertions.assertThat(itens).extracting(LancamentoDTO::getTipo).containsExactly("RECEITA", "DESPESA", "DESPESA", "RECEITA");
+		Assertions.assertThat(itens.get(0).getId()).isNull();
+		Assertions.assertThat(itens.get(0).getDescricao()).startsWith("Resumo de 1 ");
+		Assertions.assertThat(itens.get(3).getDescricao()).isEqualTo("salario janeiro");
+	}
+	
+	@Test
+	public void deveExportarOsAnosArquivadosAntesDosLancamentosEmAberto() {
+		service.arquivar(usuario.getId(), 2020);
+		
+		List<Lancamento> exportados = new ArrayList<>();
+		lancamentoService.exportar(usuario.getId(), exportados::add);
+		
+		Assertions.assertThat(exportados).extracting(Lancamento::getDescricao)
+			.containsExactly("salario marco", "aluguel marco", "mercado julho", "salario janeiro");
+		Assertions.assertThat(exportados).extracting(Lancamento::getId).doesNotContainNull();
+	}
+	
+	@Test
+	public void deveMudarAVersaoDoUsuarioSoQuandoArquivarLancamentos() {
+		// a versão é o ETag de GET /api/lancamentos: a listagem muda com o arquivamento
+		long versaoAntes = lancamentoService.obterVersaoPorUsuario(usuario.getId());
+		
+		service.arquivar(usuario.getId(), 2020);
+		entityManager.flush();
+		long versaoArquivado = lancamentoService.obterVersaoPorUsuario(usuario.getId());
+		service.arquivar(usuario.getId(), 2020);
+		entityManager.flush();
+		
+		Assertions.assertThat(versaoArquivado).isEqualTo(versaoAntes + 1);
+		Assertions.assertThat(lancamentoService.obterVersaoPorUsuario(usuario.getId())).isEqualTo(versaoArquivado);
+		Assertions.assertThat(lancamentoService.buscar(Lancamento.builder().usuario(usuario).build()))
+			.extracting(Lancamento::getAno).containsExactly(2021);
+	}
+	
+	@Test
+	public void naoDeveAceitarLancamentosEmAnosArquivados() {
+		service.arquivar(usuario.getId(), 2020);
+		
+		Throwable erro = Assertions.catchThrowable(() -> lancamentoService.salvar(
+				criarLancamento(2017, 1, TipoLancamento.RECEITA, "antigo", 1)));
+		ResultadoLoteDTO resultado = lancamentoService.salvarLote(Arrays.asList(
+				criarLancamento(2019, 1, TipoLancamento.RECEITA, "fechado", 1),
+				criarLancamento(2020, 1, TipoLancamento.RECEITA, "aberto", 1)));
+		
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThat(resultado.getSalvos()).isEqualTo(1);
+		Assertions.assertThat(resultado.getErros()).extracting(ResultadoLoteDTO.ErroLoteDTO::getIndice).containsExactly(0);
+	}
+	
+	private Lancamento criarLancamento(int ano, int mes, TipoLancamento tipo, String descricao, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setDescricao(descricao);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+	
+}
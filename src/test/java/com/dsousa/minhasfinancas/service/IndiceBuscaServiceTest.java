@@ -0,0 +1,115 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Import({ LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class })
+public class IndiceBuscaServiceTest {
+
+	@Autowired
+	IndiceBuscaService service;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+	}
+	
+	@Test
+	public void deveExtrairTermosSemAcentoEMinusculos() {
+		Assertions.assertThat(IndiceBuscaServiceImpl.extrairTermos("Manutenção do Carro - AGOSTO/2020"))
+			.containsExactly("manutencao", "carro", "agosto", "2020");
+	}
+	
+	@Test
+	public void deveEncontrarIgnorandoAcentosEOrdenarPelaQuantidadeDeTermos() {
+		Lancamento carro = salvar("Manutenção do carro");
+		Lancamento casa = salvar("Manutencao da casa");
+		salvar("Conta de luz");
+		
+		List<Lancamento> resultado = service.pesquisar(usuario.getId(), "manutenção carro", null, null, 10);
+		
+		Assertions.assertThat(resultado).extracting(Lancamento::getId).containsExactly(carro.getId(), casa.getId());
+	}
+	
+	@Test
+	public void deveReindexarAoAlterarADescricaoERemoverAoDeletar() {
+		Lancamento lancamento = salvar("Aluguel");
+		
+		lancamento.setDescricao("Condomínio");
+		lancamentoService.atualizar(lancamento);
+		
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "aluguel", null, null, 10)).isEmpty();
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "condominio", null, null, 10)).hasSize(1);
+		
+		lancamentoService.deletar(lancamento);
+		
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "condominio", null, null, 10)).isEmpty();
+	}
+	
+	@Test
+	public void deveReindexarOsLancamentosDoUsuarioEmBlocos() {
+		List<Lancamento> lote = new ArrayList<>();
+		for(int i = 0; i < 1200; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamento.setDescricao(i % 3 == 0 ? "Mercado " + i : "Padaria " + i);
+			lote.add(lancamento);
+		}
+		lancamentoService.salvarLote(lote);
+		
+		service.reindexar(usuario.getId());
+		
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "mercado", null, null, 2000)).hasSize(400);
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "padaria", null, null, 2000)).hasSize(800);
+		Assertions.assertThat(service.pesquisar(usuario.getId(), "1199", null, null, 10)).hasSize(1);
+	}
+	
+	@Test
+	public void deveRestringirABuscaAoUsuario() {
+		salvar("Mercado");
+		Usuario outro = entityManager.persist(Usuario.builder().nome("outro").email("outro@gmail.com").build());
+		
+		Assertions.assertThat(service.pesquisar(outro.getId(), "mercado", null, null, 10)).isEmpty();
+	}
+	
+	private Lancamento salvar(String descricao) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setDescricao(descricao);
+		return lancamentoService.salvar(lancamento);
+	}
+	
+}
@@ -0,0 +1,57 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.util.Base64;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.service.impl.JwtServiceImpl;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
+
+public class JwtServiceTest {
+
+	static final String CHAVE = Base64.getEncoder().encodeToString(new byte[64]);
+	
+	JwtService service = new JwtServiceImpl(30, CHAVE);
+	
+	@Test
+	public void deveObterOIdDoUsuarioDoTokenGerado() {
+		Usuario usuario = Usuario.builder().id(7L).nome("usuario").email("usuario@gmail.com").build();
+		
+		String token = service.gerarToken(usuario);
+		
+		Assertions.assertThat(service.obterIdUsuario(token)).isEqualTo(7L);
+		Assertions.assertThat(service.obterClaims(token).getSubject()).isEqualTo("usuario@gmail.com");
+	}
+	
+	@Test
+	public void deveRejeitarTokenAssinadoComOutraChave() {
+		byte[] outraChave = new byte[64];
+		outraChave[0] = 1;
+		String token = new JwtServiceImpl(30, Base64.getEncoder().encodeToString(outraChave))
+				.gerarToken(Usuario.builder().id(7L).build());
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.obterIdUsuario(token));
+		Assertions.assertThat(exception).isInstanceOf(SignatureException.class);
+	}
+	
+	@Test
+	public void deveRejeitarTokenExpirado() {
+		String token = new JwtServiceImpl(-1, CHAVE).gerarToken(Usuario.builder().id(7L).build());
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.obterIdUsuario(token));
+		Assertions.assertThat(exception).isInstanceOf(ExpiredJwtException.class);
+	}
+	
+	@Test
+	public void naoDeveIniciarSemUmaChaveDeAssinaturaValida() {
+		Assertions.assertThatThrownBy(() -> new JwtServiceImpl(30, ""))
+			.isInstanceOf(IllegalStateException.class);
+		Assertions.assertThatThrownBy(() -> new JwtServiceImpl(30, Base64.getEncoder().encodeToString(new byte[32])))
+			.isInstanceOf(IllegalStateException.class);
+	}
+	
+}
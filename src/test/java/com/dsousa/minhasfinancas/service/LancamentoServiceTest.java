@@ -5,6 +5,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
@@ -24,13 +26,20 @@ import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.PaginaDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
 import com.dsousa.minhasfinancas.model.entity.Lancamento;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
 import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
 import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.AnoArquivadoRepository;
+import com.dsousa.minhasfinancas.model.repository.CursorLancamento;
 import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
 import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.ResumoMensalRepository;
 import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
 
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -46,6 +55,18 @@ public class LancamentoServiceTest {
 	@MockBean
 	LancamentoRepository repository;
 	
+	@MockBean
+	SaldoService saldoService;
+	
+	@MockBean
+	IndiceBuscaService indiceBuscaService;
+	
+	@MockBean
+	AnoArquivadoRepository anoArquivadoRepository;
+	
+	@MockBean
+	ResumoMensalRepository resumoMensalRepository;
+	
 	
 	@Test
 	public void deveSalvarUmLancamento() {
@@ -74,6 +95,25 @@ public class LancamentoServiceTest {
 	}
 	
 	
+	@Test
+	public void deveSalvarOsLancamentosValidosDoLoteEInformarOsErros() {
+		Lancamento valido = LancamentoRepositoryTest.criarLancamento();
+		Lancamento invalido = LancamentoRepositoryTest.criarLancamento();
+		invalido.setValor(BigDecimal.ZERO);
+		Mockito.doNothing().when(service).validarLancamento(valido);
+		Mockito.doThrow(new RegraNegocioException("Informe um valor válido.")).when(service).validarLancamento(invalido);
+		
+		ResultadoLoteDTO resultado = service.salvarLote(Arrays.asList(invalido, valido));
+		
+		Assertions.assertThat(resultado.getSalvos()).isEqualTo(1);
+		Assertions.assertThat(resultado.getErros()).hasSize(1);
+		Assertions.assertThat(resultado.getErros().get(0).getIndice()).isEqualTo(0);
+		Assertions.assertThat(resultado.getErros().get(0).getMensagem()).isEqualTo("Informe um valor válido.");
+		Mockito.verify(repository).save(valido);
+		Mockito.verify(repository, Mockito.never()).save(invalido);
+		Mockito.verify(repository).descarregar();
+	}
+	
 	@Test
 	public void deveAtualizarUmLancamento() {
 		
@@ -90,6 +130,23 @@ public class LancamentoServiceTest {
 		Mockito.verify(repository, Mockito.times(1)).save(lancamentoSalvo);
 	}
 	
+	@Test
+	public void deveBloquearOLancamentoAntesDeLerOEstadoAnteriorNaAtualizacao() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		Mockito.doNothing().when(service).validarLancamento(Mockito.any(Lancamento.class));
+		Mockito.when(repository.obterParaAtualizacao(1l)).thenReturn(Optional.of(lancamento));
+		
+		service.atualizar(lancamento);
+		service.atualizarParcialmente(1l, null, new Lancamento());
+		
+		InOrder ordem = Mockito.inOrder(repository);
+		ordem.verify(repository).obterParaAtualizacao(1l);
+		ordem.verify(repository).save(lancamento);
+		ordem.verify(repository).obterParaAtualizacao(1l);
+		Mockito.verify(repository, Mockito.never()).findById(1l);
+	}
+	
 	
 	@Test
 	public void deveLancarErroAoTentarAtualizarLancamentoQueAindaNaoFoiSalvo() {
@@ -137,6 +194,34 @@ public class LancamentoServiceTest {
 							.contains(lancamento);
 	}
 	
+	@Test
+	public void deveLimitarAPaginaEInformarOProximoCursor() {
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		List<LancamentoDTO> lista = new ArrayList<>();
+		for(long id = 1; id <= 3; id++) {
+			lista.add(LancamentoDTO.builder().id(id).ano(2020).mes(1).build());
+		}
+		Mockito.when(repository.buscarPagina(filtro, null, 3)).thenReturn(lista);
+		
+		PaginaDTO<LancamentoDTO> pagina = service.buscar(filtro, null, 2);
+		
+		Assertions.assertThat(pagina.getItens()).hasSize(2);
+		Assertions.assertThat(CursorLancamento.decodificar(pagina.getProximoCursor()).getId()).isEqualTo(2L);
+	}
+	
+	@Test
+	public void naoDeveInformarCursorNaUltimaPagina() {
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		Mockito.when(repository.buscarPagina(Mockito.eq(filtro), Mockito.isNull(), Mockito.anyInt()))
+			.thenReturn(Arrays.asList(LancamentoDTO.builder().id(1L).ano(2020).mes(1).build()));
+		
+		PaginaDTO<LancamentoDTO> pagina = service.buscar(filtro, null, null);
+		
+		Assertions.assertThat(pagina.getItens()).hasSize(1);
+		Assertions.assertThat(pagina.getProximoCursor()).isNull();
+		Mockito.verify(repository).buscarPagina(filtro, null, LancamentoServiceImpl.TAMANHO_PAGINA_PADRAO + 1);
+	}
+	
 	@Test
 	public void deveAtualizaOStatusDeUmLancamento() {
 	
@@ -181,6 +266,19 @@ public class LancamentoServiceTest {
 		Assertions.assertThat(resultado.isPresent()).isFalse();
 	}
 	
+	@Test
+	public void deveObterSaldoDoUsuarioPeloSnapshot() {
+		Long idUsuario = 1L;
+		SaldoDTO totais = new SaldoDTO(BigDecimal.valueOf(100), BigDecimal.valueOf(50), null,
+				BigDecimal.valueOf(30), null, BigDecimal.TEN);
+		Mockito.when(saldoService.obterPorUsuario(idUsuario)).thenReturn(totais);
+		
+		BigDecimal saldo = service.obterSaldoPorUsuario(idUsuario);
+		
+		Assertions.assertThat(saldo).isEqualByComparingTo("110");
+		Mockito.verify(repository, Mockito.never()).obterSaldoPorUsuario(idUsuario);
+	}
+	
 	@Test
 	public void DeveLancarErrosAoValidarUmLancamento() {
 		
@@ -0,0 +1,144 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Recorrencia;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.FrequenciaRecorrencia;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.RecorrenciaRepository;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.RecorrenciaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Import({ LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class, RecorrenciaServiceImpl.class })
+public class RecorrenciaServiceTest {
+
+	@Autowired
+	RecorrenciaService service;
+	
+	@Autowired
+	SaldoService saldoService;
+	
+	@Autowired
+	RecorrenciaRepository repository;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+	}
+	
+	@Test
+	public void deveGerarAsCompetenciasVencidasEAvancarAProxima() {
+		Recorrencia aluguel = service.salvar(criarRecorrencia(FrequenciaRecorrencia.MENSAL, 2020, 1, null));
+		
+		gerarTudo(Recorrencia.competencia(2020, 3));
+		
+		List<Lancamento> lancamentos = lancamentoRepository.findByUsuarioId(usuario.getId());
+		Assertions.assertThat(lancamentos).extracting(Lancamento::getMes).containsExactlyInAnyOrder(1, 2, 3);
+		Assertions.assertThat(lancamentos).allSatisfy(lancamento -> {
+			Assertions.assertThat(lancamento.getIdRecorrencia()).isEqualTo(aluguel.getId());
+			Assertions.assertThat(lancamento.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		});
+		Assertions.assertThat(repository.findById(aluguel.getId()).get().getProximaCompetencia())
+			.isEqualTo(Recorrencia.competencia(2020, 4));
+		Assertions.assertThat(saldoService.obterPorUsuario(usuario.getId()).getDespesasPendentes()).isEqualByComparingTo("3000");
+	}
+	
+	@Test
+	public void naoDeveGerarDeNovoAsCompetenciasJaGeradas() {
+		service.salvar(criarRecorrencia(FrequenciaRecorrencia.MENSAL, 2020, 1, null));
+		
+		gerarTudo(Recorrencia.competencia(2020, 2));
+		gerarTudo(Recorrencia.competencia(2020, 2));
+		gerarTudo(Recorrencia.competencia(2020, 3));
+		
+		Assertions.assertThat(lancamentoRepository.findByUsuarioId(usuario.getId()))
+			.extracting(Lancamento::getMes).containsExactlyInAnyOrder(1, 2, 3);
+	}
+	
+	@Test
+	public void deveSeguirAFrequenciaEEncerrarNoFim() {
+		Recorrencia seguro = service.salvar(criarRecorrencia(FrequenciaRecorrencia.TRIMESTRAL, 2020, 1, Recorrencia.competencia(2020, 8)));
+		
+		gerarTudo(Recorrencia.competencia(2021, 12));
+		
+		Assertions.assertThat(lancamentoRepository.findByUsuarioId(usuario.getId()))
+			.extracting(Lancamento::getMes).containsExactlyInAnyOrder(1, 4, 7);
+		Assertions.assertThat(repository.findById(seguro.getId()).get().getProximaCompetencia()).isNull();
+	}
+	
+	@Test
+	public void devePercorrerTodasAsRecorrenciasEmBlocos() {
+		for(int i = 0; i < 5; i++) {
+			service.salvar(criarRecorrencia(FrequenciaRecorrencia.ANUAL, 2020, 6, null));
+		}
+		
+		int blocos = gerarTudo(Recorrencia.competencia(2021, 6));
+		
+		Assertions.assertThat(blocos).isEqualTo(3);
+		Assertions.assertThat(lancamentoRepository.findByUsuarioId(usuario.getId())).hasSize(10);
+	}
+	
+	@Test
+	public void naoDeveSalvarRecorrenciaQueTerminaAntesDeComecar() {
+		Throwable erro = Assertions.catchThrowable(() -> service.salvar(
+				criarRecorrencia(FrequenciaRecorrencia.MENSAL, 2020, 5, Recorrencia.competencia(2020, 4))));
+		
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+	
+	private int gerarTudo(int competencia) {
+		int blocos = 0;
+		Long ultimoId = 0L;
+		while((ultimoId = service.gerarBloco(ultimoId, competencia, 2)) != null) {
+			blocos++;
+		}
+		return blocos;
+	}
+	
+	private Recorrencia criarRecorrencia(FrequenciaRecorrencia frequencia, int ano, int mes, Integer competenciaFim) {
+		return Recorrencia.builder()
+				.descricao("aluguel")
+				.usuario(usuario)
+				.valor(BigDecimal.valueOf(1000))
+				.tipo(TipoLancamento.DESPESA)
+				.frequencia(frequencia)
+				.competenciaInicio(Recorrencia.competencia(ano, mes))
+				.competenciaFim(competenciaFim)
+				.build();
+	}
+	
+}
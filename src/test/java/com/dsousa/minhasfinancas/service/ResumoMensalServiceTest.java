@@ -0,0 +1,144 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.api.DTO.ResumoMensalDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Import({ LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class, ResumoMensalServiceImpl.class })
+public class ResumoMensalServiceTest {
+
+	@Autowired
+	ResumoMensalService service;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+	}
+	
+	@Test
+	public void deveTotalizarPorMesTipoEStatusAoSalvar() {
+		lancamentoService.salvar(criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		lancamentoService.salvarLote(Arrays.asList(
+				criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 50),
+				criarLancamento(2020, 2, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30)));
+		
+		List<ResumoMensalDTO> relatorio = service.obterPorUsuario(usuario.getId(), null, null);
+		
+		Assertions.assertThat(relatorio).hasSize(2);
+		Assertions.assertThat(relatorio.get(0).getMes()).isEqualTo(1);
+		Assertions.assertThat(relatorio.get(0).getValor()).isEqualByComparingTo("150");
+		Assertions.assertThat(relatorio.get(0).getQuantidade()).isEqualTo(2);
+		Assertions.assertThat(relatorio.get(1).getTipo()).isEqualTo(TipoLancamento.DESPESA);
+		Assertions.assertThat(relatorio.get(1).getValor()).isEqualByComparingTo("30");
+	}
+	
+	@Test
+	public void deveMoverOValorAoTrocarOMesEORemoverOMesQueFicouVazio() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento alteracao = lancamentoRepository.findById(lancamento.getId()).get();
+		alteracao.setMes(3);
+		lancamentoService.atualizar(alteracao);
+		
+		List<ResumoMensalDTO> relatorio = service.obterPorUsuario(usuario.getId(), null, null);
+		
+		Assertions.assertThat(relatorio).hasSize(1);
+		Assertions.assertThat(relatorio.get(0).getMes()).isEqualTo(3);
+		Assertions.assertThat(relatorio.get(0).getValor()).isEqualByComparingTo("100");
+	}
+	
+	@Test
+	public void deveRetirarOLancamentoDeletado() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		lancamentoService.salvar(criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 10));
+		
+		lancamentoService.deletar(lancamento);
+		
+		List<ResumoMensalDTO> relatorio = service.obterPorUsuario(usuario.getId(), null, null);
+		Assertions.assertThat(relatorio).extracting(ResumoMensalDTO::getQuantidade).containsExactly(1L);
+		Assertions.assertThat(relatorio.get(0).getValor()).isEqualByComparingTo("10");
+	}
+	
+	@Test
+	public void deveFiltrarPeloIntervaloDeAnos() {
+		lancamentoService.salvar(criarLancamento(2019, 12, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 1));
+		lancamentoService.salvar(criarLancamento(2020, 6, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 1));
+		lancamentoService.salvar(criarLancamento(2021, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 1));
+		
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId(), 2020, 2020))
+			.extracting(ResumoMensalDTO::getAno).containsExactly(2020);
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId(), 2020, null))
+			.extracting(ResumoMensalDTO::getAno).containsExactly(2020, 2021);
+	}
+	
+	@Test
+	public void deveReconstruirAPartirDosLancamentosContandoSemStatusComoPendente() {
+		entityManager.persist(criarLancamento(2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		entityManager.persist(criarLancamento(2020, 1, TipoLancamento.RECEITA, null, 20));
+		entityManager.persist(criarLancamento(2020, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 5));
+		
+		service.reconstruir(usuario.getId());
+		
+		List<ResumoMensalDTO> relatorio = service.obterPorUsuario(usuario.getId(), null, null);
+		Assertions.assertThat(relatorio).hasSize(2);
+		Assertions.assertThat(relatorio.get(1).getTipo()).isEqualTo(TipoLancamento.RECEITA);
+		Assertions.assertThat(relatorio.get(1).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		Assertions.assertThat(relatorio.get(1).getValor()).isEqualByComparingTo("120");
+		Assertions.assertThat(relatorio.get(1).getQuantidade()).isEqualTo(2);
+	}
+	
+	private Lancamento criarLancamento(int ano, int mes, TipoLancamento tipo, StatusLancamento status, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+	
+}
@@ -0,0 +1,233 @@
+package com.dsousa.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.ResultadoLoteDTO.ErroLoteDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepository;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Import({ LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class })
+public class SaldoServiceTest {
+
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	SaldoService service;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+	}
+	
+	@Test
+	public void deveAtualizarOSaldoAoSalvarUmLancamento() {
+		lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		lancamentoService.salvar(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, 30));
+		
+		SaldoDTO saldo = service.obterPorUsuario(usuario.getId());
+		
+		Assertions.assertThat(saldo.getSaldo()).isEqualByComparingTo("70");
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("-30");
+	}
+	
+	@Test
+	public void deveMoverOValorAoAlterarValorTipoEStatus() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento alteracao = lancamentoRepository.findById(lancamento.getId()).get();
+		alteracao.setValor(BigDecimal.valueOf(40));
+		alteracao.setTipo(TipoLancamento.DESPESA);
+		alteracao.setStatus(StatusLancamento.EFETIVADO);
+		lancamentoService.atualizar(alteracao);
+		
+		SaldoDTO saldo = service.obterPorUsuario(usuario.getId());
+		
+		Assertions.assertThat(saldo.getReceitas()).isEqualByComparingTo(BigDecimal.ZERO);
+		Assertions.assertThat(saldo.getDespesas()).isEqualByComparingTo("40");
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("-40");
+	}
+	
+	@Test
+	public void deveAtualizarOSaldoAoAlterarUmLancamentoDesanexado() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento alteracao = criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 120);
+		alteracao.setId(lancamento.getId());
+		lancamentoService.atualizar(alteracao);
+		
+		SaldoDTO saldo = service.obterPorUsuario(usuario.getId());
+		
+		Assertions.assertThat(saldo.getReceitas()).isEqualByComparingTo("120");
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("120");
+	}
+	
+	@Test
+	public void deveMoverOValorAoAtualizarSoOStatus() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento atualizado = lancamentoService.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO).get();
+		entityManager.flush();
+		entityManager.clear();
+		
+		SaldoDTO saldo = service.obterPorUsuario(usuario.getId());
+		
+		Assertions.assertThat(atualizado.getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		Assertions.assertThat(lancamentoRepository.findById(lancamento.getId()).get().getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("-100");
+		Assertions.assertThat(saldo.getSaldoPrevisto()).isEqualByComparingTo("-100");
+	}
+	
+	@Test
+	public void naoDeveAtualizarOStatusDoLancamentoDeOutroUsuario() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento retornado = lancamentoService.atualizarStatus(lancamento.getId(), usuario.getId() + 1, StatusLancamento.EFETIVADO).get();
+		
+		Assertions.assertThat(retornado.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId()).getSaldoRealizado()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+	
+	@Test
+	public void deveAtualizarParcialmenteApenasOsCamposInformados() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento alteracoes = new Lancamento();
+		alteracoes.setValor(BigDecimal.valueOf(80));
+		lancamentoService.atualizarParcialmente(lancamento.getId(), usuario.getId(), alteracoes);
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento atualizado = lancamentoRepository.findById(lancamento.getId()).get();
+		Assertions.assertThat(atualizado.getValor()).isEqualByComparingTo("80");
+		Assertions.assertThat(atualizado.getDescricao()).isEqualTo(lancamento.getDescricao());
+		Assertions.assertThat(atualizado.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId()).getSaldo()).isEqualByComparingTo("80");
+	}
+	
+	@Test
+	public void deveIncrementarAVersaoEmTodaEscritaMesmoSemMudarOsTotais() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		long versaoCriacao = service.obterVersao(usuario.getId());
+		
+		Lancamento alteracao = lancamento.copiar();
+		alteracao.setDescricao("outra descrição");
+		lancamentoService.atualizar(alteracao);
+		entityManager.flush();
+		
+		Assertions.assertThat(versaoCriacao).isEqualTo(1);
+		Assertions.assertThat(service.obterVersao(usuario.getId())).isEqualTo(2);
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId()).getVersao()).isEqualTo(2);
+		Assertions.assertThat(service.obterVersao(usuario.getId() + 1)).isZero();
+	}
+	
+	@Test
+	public void deveRetirarOValorAoDeletarUmLancamento() {
+		Lancamento lancamento = lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 100));
+		lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.PENDENTE, 10));
+		
+		lancamentoService.deletar(lancamento);
+		
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId()).getSaldo()).isEqualByComparingTo("10");
+	}
+	
+	@Test
+	public void deveAtualizarOSaldoAoSalvarUmLote() {
+		List<Lancamento> lote = new ArrayList<>();
+		for(int i = 0; i < 1200; i++) {
+			lote.add(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 1));
+		}
+		lote.add(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 0));
+		lote.add(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 200));
+		
+		ResultadoLoteDTO resultado = lancamentoService.salvarLote(lote);
+		
+		Assertions.assertThat(resultado.getSalvos()).isEqualTo(1201);
+		Assertions.assertThat(resultado.getErros()).extracting(ErroLoteDTO::getIndice).containsExactly(1200);
+		Assertions.assertThat(service.obterPorUsuario(usuario.getId()).getSaldo()).isEqualByComparingTo("1000");
+		Assertions.assertThat(lancamentoRepository.count()).isEqualTo(1201);
+	}
+	
+	@Test
+	public void deveObterOsSaldosDeVariosUsuariosDeUmaVez() {
+		Usuario semLancamentos = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		lancamentoService.salvar(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100));
+		
+		Map<Long, SaldoDTO> saldos = lancamentoService.obterSaldosPorUsuarios(Arrays.asList(semLancamentos.getId(), usuario.getId()));
+		
+		Assertions.assertThat(saldos).containsOnlyKeys(semLancamentos.getId(), usuario.getId());
+		Assertions.assertThat(saldos.get(usuario.getId()).getSaldo()).isEqualByComparingTo("100");
+		Assertions.assertThat(saldos.get(semLancamentos.getId()).getSaldo()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+	
+	@Test
+	public void deveReconstruirOSaldoAPartirDosLancamentos() {
+		entityManager.persist(criarLancamento(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 100));
+		entityManager.persist(criarLancamento(TipoLancamento.DESPESA, StatusLancamento.PENDENTE, 25));
+		
+		service.reconstruir(usuario.getId());
+		
+		SaldoDTO saldo = service.obterPorUsuario(usuario.getId());
+		Assertions.assertThat(saldo.getSaldo()).isEqualByComparingTo("75");
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("100");
+	}
+	
+	private Lancamento criarLancamento(TipoLancamento tipo, StatusLancamento status, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+	
+}
@@ -14,17 +14,22 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.dsousa.minhasfinancas.exception.ErroAutenticacao;
 import com.dsousa.minhasfinancas.exception.RegraNegocioException;
+import com.dsousa.minhasfinancas.model.entity.SaldoUsuario;
 import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.repository.SaldoUsuarioRepository;
 import com.dsousa.minhasfinancas.model.repository.UsuarioRepository;
 import com.dsousa.minhasfinancas.service.impl.UsuarioServiceImpl;
 
@@ -39,6 +44,12 @@ public class UsuarioServiceTest {
 	@MockBean
 	UsuarioRepository repository;
 	
+	@MockBean
+	SaldoUsuarioRepository saldoRepository;
+	
+	@Autowired
+	PasswordEncoder encoder;
+	
 	@Test
 	public void deveValidarEmail() {
 		Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(false);
@@ -92,11 +103,43 @@ public class UsuarioServiceTest {
 		Assertions.assertThat(exception).isInstanceOf(ErroAutenticacao.class).hasMessage("Senha inválida.");
 	}
 	
+	@Test
+	public void deveAutenticarComASenhaCriptografada() {
+		Usuario usuario = Usuario.builder().email("email@gmail.com").senha(encoder.encode("senha")).id(1l).build();
+		Mockito.when(repository.findByEmail("email@gmail.com")).thenReturn(Optional.of(usuario));
+		
+		Usuario result = service.autenticar("email@gmail.com", "senha");
+		
+		Assertions.assertThat(result.getId()).isEqualTo(1l);
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any(Usuario.class));
+	}
+	
+	@Test
+	public void deveCriptografarASenhaLegadaNoPrimeiroLogin() {
+		Usuario usuario = Usuario.builder().email("email@gmail.com").senha("senha").id(1l).build();
+		Mockito.when(repository.findByEmail("email@gmail.com")).thenReturn(Optional.of(usuario));
+		
+		service.autenticar("email@gmail.com", "senha");
+		
+		Mockito.verify(repository).save(usuario);
+		Assertions.assertThat(usuario.getSenha()).isNotEqualTo("senha");
+		Assertions.assertThat(encoder.matches("senha", usuario.getSenha())).isTrue();
+	}
+	
+	@Test
+	public void deveGravarASenhaCriptografada() {
+		Mockito.when(repository.saveAndFlush(Mockito.any(Usuario.class))).then(invocacao -> invocacao.getArgument(0));
+		
+		Usuario usuarioSalvo = service.salvarUsuario(Usuario.builder().email("email@email.com").senha("senha").build());
+		
+		Assertions.assertThat(usuarioSalvo.getSenha()).startsWith("$2");
+		Assertions.assertThat(encoder.matches("senha", usuarioSalvo.getSenha())).isTrue();
+	}
+	
 	@Test
 	public void deveSalvarUmUsuario() {
-		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
 		Usuario usuario = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("senha").build();
-		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(usuario);
+		Mockito.when(repository.saveAndFlush(Mockito.any(Usuario.class))).thenReturn(usuario);
 		
 		Usuario usuarioSalvo = service.salvarUsuario(new Usuario());
 		
@@ -108,18 +151,38 @@ public class UsuarioServiceTest {
 		
 	}
 	
+	@Test
+	public void deveCriarOSaldoZeradoApenasDoNovoUsuario() {
+		Mockito.when(repository.saveAndFlush(Mockito.any(Usuario.class))).then(invocacao -> {
+			Usuario usuario = invocacao.getArgument(0);
+			if(usuario.getId() == null) {
+				usuario.setId(7l);
+			}
+			return usuario;
+		});
+		
+		service.salvarUsuario(Usuario.builder().email("email@email.com").build());
+		service.salvarUsuario(Usuario.builder().id(7l).email("email@email.com").build());
+		
+		ArgumentCaptor<SaldoUsuario> saldo = ArgumentCaptor.forClass(SaldoUsuario.class);
+		Mockito.verify(saldoRepository).save(saldo.capture());
+		Assertions.assertThat(saldo.getValue().getIdUsuario()).isEqualTo(7l);
+		Assertions.assertThat(saldo.getValue().getReceitasEfetivadas()).isZero();
+		Assertions.assertThat(saldo.getValue().getVersao()).isZero();
+	}
+	
 	@Test
 	public void naoDeveSalvarUmUsuarioComEmailJaCadastrado() {
 		String email = "email@email.com";
 		Usuario usuario = Usuario.builder().email(email).build();
 		
-		Mockito.doThrow(RegraNegocioException.class).when(service).validarEmail(email);
+		Mockito.when(repository.saveAndFlush(usuario)).thenThrow(new DataIntegrityViolationException("uk_usuario_email"));
 		
 		Throwable exception = Assertions.catchThrowable( () -> service.salvarUsuario(usuario));
 		
-		Mockito.verify(repository, Mockito.never() ).save(usuario);
+		Mockito.verify(repository, Mockito.never()).existsByEmail(email);
 		
-		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThat(exception).isInstanceOf(RegraNegocioException.class).hasMessage("Já existe um usuário cadastrado com esse email!");
 	}
 	
 }
@@ -0,0 +1,119 @@
+package com.dsousa.minhasfinancas.service.razao;
+
+import java.math.BigDecimal;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.dsousa.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.dsousa.minhasfinancas.service.LancamentoService;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Operacao;
+import com.dsousa.minhasfinancas.service.impl.IndiceBuscaServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.dsousa.minhasfinancas.service.impl.SaldoServiceImpl;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(properties = "financas.razao.habilitado=true")
+@Import({ RazaoMemoria.class, LancamentoServiceImpl.class, SaldoServiceImpl.class, IndiceBuscaServiceImpl.class })
+public class RazaoMemoriaTest {
+
+	@Autowired
+	RazaoMemoria razaoMemoria;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+	}
+	
+	@Test
+	public void deveListarAPartirDasColunasCarregadas() {
+		lancamentoService.salvar(criarLancamento(2, TipoLancamento.DESPESA, 30));
+		lancamentoService.salvar(criarLancamento(1, TipoLancamento.RECEITA, 100));
+		entityManager.flush();
+		
+		Lancamento filtro = Lancamento.builder().usuario(usuario).tipo(TipoLancamento.RECEITA).build();
+		
+		Assertions.assertThat(lancamentoService.buscar(filtro, null, 10).getItens())
+			.extracting(LancamentoDTO::getValor).usingElementComparator(BigDecimal::compareTo).containsExactly(BigDecimal.valueOf(100));
+		Assertions.assertThat(razaoMemoria.obter(usuario.getId())).isNotNull();
+		Assertions.assertThat(razaoMemoria.obter(usuario.getId()).tamanho()).isEqualTo(2);
+	}
+	
+	@Test
+	public void deveIrAoBancoQuandoAsColunasFicamParaTras() {
+		lancamentoService.salvar(criarLancamento(1, TipoLancamento.RECEITA, 100));
+		entityManager.flush();
+		Lancamento filtro = Lancamento.builder().usuario(usuario).build();
+		lancamentoService.buscar(filtro, null, 10);
+		
+		// sem commit, a alteração não chega às colunas; a versão do saldo já mudou
+		lancamentoService.salvar(criarLancamento(2, TipoLancamento.DESPESA, 30));
+		entityManager.flush();
+		
+		Assertions.assertThat(lancamentoService.buscar(filtro, null, 10).getItens()).hasSize(2);
+	}
+	
+	@Test
+	public void deveAplicarAsAlteracoesDepoisDoCommit() {
+		lancamentoService.salvar(criarLancamento(1, TipoLancamento.RECEITA, 100));
+		entityManager.flush();
+		Lancamento filtro = Lancamento.builder().usuario(usuario).build();
+		lancamentoService.buscar(filtro, null, 10);
+		
+		LancamentosAlteradosEvent evento = LancamentosAlteradosEvent.de(Operacao.CRIACAO, null,
+				lancamentoService.salvar(criarLancamento(2, TipoLancamento.DESPESA, 30)).copiar());
+		SaldoDTO saldo = new SaldoDTO(null, null, null, null, null, null);
+		saldo.setVersao(2);
+		evento.registrarSaldo(usuario.getId(), saldo);
+		entityManager.flush();
+		razaoMemoria.aplicar(evento);
+		
+		RazaoUsuario razao = razaoMemoria.obter(usuario.getId());
+		Assertions.assertThat(razao.getVersao()).isEqualTo(2);
+		Assertions.assertThat(razao.tamanho()).isEqualTo(2);
+		long[] totais = new long[6];
+		Assertions.assertThat(razaoMemoria.somar(filtro, totais)).isTrue();
+		Assertions.assertThat(RazaoUsuario.saldo(totais).getSaldo()).isEqualByComparingTo("70");
+	}
+	
+	private Lancamento criarLancamento(int mes, TipoLancamento tipo, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+	
+}
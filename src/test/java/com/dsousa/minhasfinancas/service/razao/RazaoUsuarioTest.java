@@ -0,0 +1,113 @@
+package com.dsousa.minhasfinancas.service.razao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dsousa.minhasfinancas.api.DTO.LancamentoDTO;
+import com.dsousa.minhasfinancas.api.DTO.SaldoDTO;
+import com.dsousa.minhasfinancas.model.entity.Lancamento;
+import com.dsousa.minhasfinancas.model.entity.Usuario;
+import com.dsousa.minhasfinancas.model.enumered.StatusLancamento;
+import com.dsousa.minhasfinancas.model.enumered.TipoLancamento;
+import com.dsousa.minhasfinancas.model.repository.CursorLancamento;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Alteracao;
+import com.dsousa.minhasfinancas.service.event.LancamentosAlteradosEvent.Operacao;
+
+public class RazaoUsuarioTest {
+
+	static final Long ID_USUARIO = 1L;
+	
+	RazaoUsuario razao;
+	
+	@BeforeEach
+	public void setUp() {
+		razao = new RazaoUsuario(ID_USUARIO, 3);
+		razao.acrescentar(criarLancamento(1, 2019, 12, "Aluguel", "1500.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO));
+		razao.acrescentar(criarLancamento(4, 2020, 1, "Salário", "5000.00", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO));
+		razao.acrescentar(criarLancamento(2, 2020, 2, "Aluguel", "1500.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE));
+		razao.acrescentar(criarLancamento(3, 2020, 2, "Mercado", "320.45", TipoLancamento.DESPESA, null));
+	}
+	
+	@Test
+	public void deveFiltrarNaOrdemDaListagemAPartirDoCursor() {
+		List<LancamentoDTO> despesas = razao.buscar(filtro(null, null, TipoLancamento.DESPESA), null, 10);
+		List<LancamentoDTO> depoisDoCursor = razao.buscar(filtro(null, null, null), new CursorLancamento(2020, 2, 2L), 10);
+		List<LancamentoDTO> aluguel2020 = razao.buscar(filtro("ALUG", 2020, null), null, 10);
+		
+		Assertions.assertThat(despesas).extracting(LancamentoDTO::getId).containsExactly(1L, 2L, 3L);
+		Assertions.assertThat(depoisDoCursor).extracting(LancamentoDTO::getId).containsExactly(3L);
+		Assertions.assertThat(aluguel2020).extracting(LancamentoDTO::getId).containsExactly(2L);
+		Assertions.assertThat(aluguel2020.get(0).getValor()).isEqualByComparingTo("1500");
+		Assertions.assertThat(aluguel2020.get(0).getStatus()).isEqualTo("PENDENTE");
+		Assertions.assertThat(razao.buscar(filtro(null, null, null), null, 2)).hasSize(2);
+	}
+	
+	@Test
+	public void deveSomarPorTipoEStatus() {
+		long[] totais = new long[6];
+		razao.somar(filtro(null, 2020, null), totais);
+		SaldoDTO saldo = RazaoUsuario.saldo(totais);
+		
+		Assertions.assertThat(saldo.getReceitasEfetivadas()).isEqualByComparingTo("5000");
+		Assertions.assertThat(saldo.getDespesasPendentes()).isEqualByComparingTo("1820.45");
+		Assertions.assertThat(saldo.getDespesasEfetivadas()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+	
+	@Test
+	public void deveAplicarAlteracoesNaPosicaoDaNovaCompetencia() {
+		Lancamento anterior = criarLancamento(1, 2019, 12, "Aluguel", "1500.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		Lancamento atual = criarLancamento(1, 2020, 3, "Aluguel", "1600.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		Lancamento novo = criarLancamento(5, 2020, 1, "Farmácia", "40.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		
+		boolean aplicado = razao.aplicar(Arrays.asList(
+				new Alteracao(Operacao.ATUALIZACAO, anterior, atual),
+				new Alteracao(Operacao.CRIACAO, null, novo),
+				new Alteracao(Operacao.EXCLUSAO, criarLancamento(3, 2020, 2, "Mercado", "320.45", TipoLancamento.DESPESA, null), null)), 4);
+		
+		Assertions.assertThat(aplicado).isTrue();
+		Assertions.assertThat(razao.getVersao()).isEqualTo(4);
+		Assertions.assertThat(razao.buscar(filtro(null, null, null), null, 10)).extracting(LancamentoDTO::getId)
+			.containsExactly(4L, 5L, 2L, 1L);
+	}
+	
+	@Test
+	public void deveIgnorarVersoesJaAplicadasERecusarLacunas() {
+		Alteracao criacao = new Alteracao(Operacao.CRIACAO, null,
+				criarLancamento(5, 2020, 1, "Farmácia", "40.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO));
+		
+		Assertions.assertThat(razao.aplicar(Collections.singletonList(criacao), 3)).isTrue();
+		Assertions.assertThat(razao.aplicar(Collections.singletonList(criacao), 5)).isFalse();
+		Assertions.assertThat(razao.tamanho()).isEqualTo(4);
+		Assertions.assertThat(razao.getVersao()).isEqualTo(3);
+	}
+	
+	private static Lancamento filtro(String descricao, Integer ano, TipoLancamento tipo) {
+		return Lancamento.builder()
+				.usuario(Usuario.builder().id(ID_USUARIO).build())
+				.descricao(descricao)
+				.ano(ano)
+				.tipo(tipo)
+				.build();
+	}
+	
+	private static Lancamento criarLancamento(long id, int ano, int mes, String descricao, String valor,
+			TipoLancamento tipo, StatusLancamento status) {
+		return Lancamento.builder()
+				.id(id)
+				.ano(ano)
+				.mes(mes)
+				.descricao(descricao)
+				.valor(new BigDecimal(valor))
+				.usuario(Usuario.builder().id(ID_USUARIO).build())
+				.tipo(tipo)
+				.status(status)
+				.build();
+	}
+	
+}